@@ -10,6 +10,9 @@ CREATE TABLE account (
     password VARCHAR(255) NOT NULL,
     email VARCHAR(255) NOT NULL UNIQUE,
     image_url VARCHAR(255),
+    image_medium_url VARCHAR(255),
+    image_thumbnail_url VARCHAR(255),
+    image_upload_id VARCHAR(255),
     role role_type NOT NULL,
     exp INTEGER NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
@@ -24,6 +27,7 @@ CREATE TABLE courses (
     course_type course_type NOT NULL,
     deadline TIMESTAMP,
     exp_reward INTEGER NOT NULL DEFAULT 0,
+    content_version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
@@ -32,10 +36,14 @@ CREATE TABLE questions (
     id SERIAL PRIMARY KEY,
     content TEXT NOT NULL,
     image_url VARCHAR(255),
+    image_medium_url VARCHAR(255),
+    image_thumbnail_url VARCHAR(255),
+    image_upload_id VARCHAR(255),
     question_type question_type NOT NULL,
     explanation TEXT,
     course_id INTEGER NOT NULL,
     order_number INTEGER NOT NULL DEFAULT 0,
+    typo_tolerance INTEGER NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     CONSTRAINT fk_course FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE
 );
@@ -44,6 +52,7 @@ CREATE TABLE questions (
 CREATE TABLE answers (
     id SERIAL PRIMARY KEY,
     content TEXT NOT NULL,
+    normalized_content TEXT,
     is_correct BOOLEAN NOT NULL DEFAULT FALSE,
     question_id INTEGER NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -71,4 +80,15 @@ CREATE TABLE multiplayer (
     CONSTRAINT fk_account FOREIGN KEY (account_id) REFERENCES account(id) ON DELETE CASCADE,
     CONSTRAINT fk_course FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE,
     CONSTRAINT unique_multiplayer UNIQUE (account_id, course_id)
-);
\ No newline at end of file
+);
+
+-- Tabel Media Deletions
+CREATE TABLE media_deletions (
+    id SERIAL PRIMARY KEY,
+    url VARCHAR(1024) NOT NULL UNIQUE,
+    not_before TIMESTAMP NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_media_deletions_not_before ON media_deletions (not_before);
@@ -0,0 +1,89 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.CourseSearchEntry;
+import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.model.Difficulty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Search latency over a synthetic catalog: an exact word, a prefix as typed
+ * so far, a misspelt word, and a filtered two-word query. Course text is drawn
+ * from a few thousand made-up words with a skewed frequency, so common words
+ * such as the queried ones appear in roughly one course in ten.
+ */
+@State(Scope.Thread)
+public class CourseSearchIndexBenchmark {
+    private static final String[] WORDS = {
+            "javanese", "sundanese", "balinese", "greetings", "numbers", "family", "market", "travel",
+            "polite", "speech", "krama", "ngoko", "inggil", "food", "colours", "animals", "weather",
+            "verbs", "questions", "directions", "time", "days", "months", "body", "house", "school"};
+
+    private static final String[] SYLLABLES = {"ka", "ra", "ngo", "ja", "wi", "su", "ba", "li", "te", "do", "ma", "pu"};
+    private static final int VOCABULARY_SIZE = 3000;
+
+    @Param({"1000", "10000"})
+    public int courses;
+
+    private CourseSearchIndex index;
+    private String[] vocabulary;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        vocabulary = new String[VOCABULARY_SIZE];
+        System.arraycopy(WORDS, 0, vocabulary, 0, WORDS.length);
+        for (int i = WORDS.length; i < VOCABULARY_SIZE; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllable = 2 + random.nextInt(3); syllable > 0; syllable--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary[i] = word.toString();
+        }
+
+        index = new CourseSearchIndex();
+        for (long id = 1; id <= courses; id++) {
+            index.put(new CourseSearchEntry(id, sentence(random, 3) + " " + id, sentence(random, 12),
+                    Difficulty.values()[random.nextInt(Difficulty.values().length)],
+                    CourseType.values()[random.nextInt(CourseType.values().length)], null, 10));
+        }
+    }
+
+    @Benchmark
+    public List<CourseSearchEntry> exact() {
+        return index.search("greetings", null, null, 20);
+    }
+
+    @Benchmark
+    public List<CourseSearchEntry> prefix() {
+        return index.search("sund", null, null, 20);
+    }
+
+    @Benchmark
+    public List<CourseSearchEntry> typo() {
+        return index.search("balinse", null, null, 20);
+    }
+
+    @Benchmark
+    public List<CourseSearchEntry> filtered() {
+        return index.search("polite speech", Difficulty.HARD, CourseType.SINGLEPLAYER, 20);
+    }
+
+    private String sentence(Random random, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            // Cubing skews the draw towards the start of the vocabulary, where the real words are
+            sentence.append(vocabulary[(int) (vocabulary.length * Math.pow(random.nextDouble(), 3))]);
+        }
+        return sentence.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.benedict.duomonggo.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Grading cost of a short answer for the cases that matter: an exact answer,
+ * a near miss that is accepted, one that is rejected part way through, and a
+ * response so long it is turned away before any distance is computed.
+ */
+@State(Scope.Thread)
+public class ShortAnswerMatcherBenchmark {
+    @Param({"0", "1", "2"})
+    public int tolerance;
+
+    private ShortAnswerMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        matcher = new ShortAnswerMatcher(List.of(
+                ShortAnswerMatcher.normalize("Sugeng enjing"),
+                ShortAnswerMatcher.normalize("Sugeng injing"),
+                ShortAnswerMatcher.normalize("Wilujeng enjing")), tolerance);
+    }
+
+    @Benchmark
+    public boolean exact() {
+        return matcher.matches("Sugeng Enjing");
+    }
+
+    @Benchmark
+    public boolean typo() {
+        return matcher.matches("sugeng enjng");
+    }
+
+    @Benchmark
+    public boolean wrong() {
+        return matcher.matches("matur nuwun");
+    }
+
+    @Benchmark
+    public boolean accented() {
+        return matcher.matches("Sugèng énjing");
+    }
+
+    @Benchmark
+    public boolean tooLong() {
+        return matcher.matches("sugeng enjing, sugeng siang, sugeng sonten, sugeng dalu");
+    }
+}
@@ -1,13 +1,19 @@
 package com.benedict.duomonggo.config;
 
 import com.cloudinary.Cloudinary;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * The Cloudinary account. Every deployment uses the same cloud, so a
+ * deployment tells its files apart only by the folder prefix it is given.
+ */
 @Configuration
+@ConditionalOnProperty(name = "duomonggo.media.store", havingValue = "cloudinary", matchIfMissing = true)
 public class CloudinaryConfig {
 
     @Bean
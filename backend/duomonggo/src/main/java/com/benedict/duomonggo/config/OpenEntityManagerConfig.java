@@ -0,0 +1,31 @@
+package com.benedict.duomonggo.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Keeps the entity manager open while responses are written, which the
+ * entity responses rely on for their lazy questions and answers, except on
+ * login. An open entity manager holds its connection until the request ends,
+ * and login waits for the password hash asynchronously, so there the
+ * account lookup releases its connection before the hash is queued.
+ * Replaces {@code spring.jpa.open-in-view}, which is turned off.
+ */
+@Configuration
+public class OpenEntityManagerConfig implements WebMvcConfigurer {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public OpenEntityManagerConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/accounts/login");
+    }
+}
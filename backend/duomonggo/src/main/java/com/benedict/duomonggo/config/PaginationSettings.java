@@ -0,0 +1,30 @@
+package com.benedict.duomonggo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PaginationSettings {
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public PaginationSettings(@Value("${duomonggo.pagination.default-page-size:50}") int defaultPageSize,
+                              @Value("${duomonggo.pagination.max-page-size:200}") int maxPageSize) {
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Resolves the requested page size, falling back to the default and never
+     * exceeding the configured maximum.
+     */
+    public int resolveLimit(Integer requested) {
+        if (requested == null) {
+            return defaultPageSize;
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        return Math.min(requested, maxPageSize);
+    }
+}
@@ -0,0 +1,33 @@
+package com.benedict.duomonggo.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Media cleanup deletes at a limited rate and may list the whole store, so it
+ * runs on its own scheduler; the default one is left to the short jobs, like
+ * the multiplayer live flush, that must not wait behind it.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    public static final String MEDIA_CLEANUP_SCHEDULER = "mediaCleanupScheduler";
+
+    // Declaring a scheduler turns off Spring Boot's own, so the default is declared here too
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    // One thread for the deletion worker and one for the nightly reconciliation
+    @Bean(MEDIA_CLEANUP_SCHEDULER)
+    public ThreadPoolTaskScheduler mediaCleanupScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("media-cleanup-");
+        return scheduler;
+    }
+}
@@ -1,13 +1,18 @@
 package com.benedict.duomonggo.config;
 
+import com.benedict.duomonggo.service.TokenService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.config.Customizer;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -21,13 +26,27 @@ import java.util.Collections;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, TokenService tokenService) throws Exception {
         http
             .csrf(AbstractHttpConfigurer::disable)
             .cors(Customizer.withDefaults())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Streamed responses finish on an async dispatch, which carries no token;
+                // the original request has already been authorised
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                .requestMatchers(HttpMethod.POST, "/accounts/bulk").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/accounts/*/role").hasRole("ADMIN")
+                // Archives carry the correct answers, so only admins may move them
+                .requestMatchers(HttpMethod.GET, "/courses/export", "/courses/*/export").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/courses/import").hasRole("ADMIN")
+                // Answers say which choice is correct; players get them only through grading
+                .requestMatchers(HttpMethod.GET, "/answers", "/answers/**").hasRole("ADMIN")
+                // Playing enrolls the token's own account
+                .requestMatchers(HttpMethod.POST, "/courses/*/play").authenticated()
                 .anyRequest().permitAll())
-            .httpBasic(Customizer.withDefaults());
+            .httpBasic(AbstractHttpConfigurer::disable)
+            .addFilterBefore(new TokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -37,8 +56,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Collections.singletonList("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("authorization", "content-type", "x-auth-token"));
-        configuration.setExposedHeaders(Arrays.asList("x-auth-token"));
+        configuration.setAllowedHeaders(Arrays.asList("authorization", "content-type", "x-auth-token", "x-refresh-token"));
+        configuration.setExposedHeaders(Arrays.asList("x-auth-token", "x-refresh-token", "x-next-after", "retry-after", "x-upload-id"));
         configuration.setAllowCredentials(false);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,51 @@
+package com.benedict.duomonggo.config;
+
+import com.benedict.duomonggo.service.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates requests carrying an access token, either as
+ * {@code Authorization: Bearer <token>} or in the {@code x-auth-token} header.
+ * The principal is the account id; no database lookup is made.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+    public static final String TOKEN_HEADER = "x-auth-token";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public TokenAuthenticationFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        tokenService.verifyAccessToken(extractToken(request)).ifPresent(claims -> {
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    claims.getAccountId(), null, List.of(new SimpleGrantedAuthority("ROLE_" + claims.getRole().name())));
+            authentication.setDetails(claims);
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        });
+        filterChain.doFilter(request, response);
+    }
+
+    private static String extractToken(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            return authorization.substring(BEARER_PREFIX.length()).trim();
+        }
+        return request.getHeader(TOKEN_HEADER);
+    }
+}
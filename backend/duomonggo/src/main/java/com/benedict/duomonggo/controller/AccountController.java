@@ -1,140 +1,202 @@
 package com.benedict.duomonggo.controller;
 
+import com.benedict.duomonggo.config.PaginationSettings;
+import com.benedict.duomonggo.config.TokenAuthenticationFilter;
 import com.benedict.duomonggo.model.*;
+import com.benedict.duomonggo.service.AccountImportService;
 import com.benedict.duomonggo.service.AccountService;
+import com.benedict.duomonggo.service.ImageUploadService;
+import com.benedict.duomonggo.service.TokenService;
 import org.springframework.beans.factory.annotation.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/accounts")
 public class AccountController {
+    private static final String REFRESH_TOKEN_HEADER = "x-refresh-token";
+
     private final AccountService accountService;
+    private final PaginationSettings paginationSettings;
+    private final TokenService tokenService;
+    private final AccountImportService accountImportService;
+    private final ImageUploadService imageUploadService;
 
     @Autowired
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, PaginationSettings paginationSettings,
+                             TokenService tokenService, AccountImportService accountImportService,
+                             ImageUploadService imageUploadService) {
         this.accountService = accountService;
+        this.paginationSettings = paginationSettings;
+        this.tokenService = tokenService;
+        this.accountImportService = accountImportService;
+        this.imageUploadService = imageUploadService;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<BaseResponse<Account>> getAccount(@PathVariable Long id) {
-        Optional<Account> account = accountService.getAccountById(id);
+    public ResponseEntity<BaseResponse<AccountProfile>> getAccount(@PathVariable Long id) {
+        Optional<AccountProfile> account = accountService.getAccountProfile(id);
         return account.map(value -> ResponseEntity.ok(new BaseResponse<>(true, "Account found", value)))
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(new BaseResponse<>(false, "Account not found", null)));
     }
 
     @GetMapping
-    public ResponseEntity<BaseResponse<List<Account>>> getAllAccounts() {
-        List<Account> accounts = accountService.getAllAccounts();
-        return ResponseEntity.ok(new BaseResponse<>(true, "Accounts found", accounts));
+    public ResponseEntity<BaseResponse<List<AccountSummary>>> getAllAccounts(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            int pageSize = paginationSettings.resolveLimit(limit);
+            List<AccountSummary> accounts = accountService.getAccountsAfter(after, pageSize);
+            return KeysetPage.ok(accounts, pageSize, AccountSummary::getId, "Accounts found");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new BaseResponse<>(false, e.getMessage(), null));
+        }
     }
 
     @PostMapping("/register")
-    public ResponseEntity<BaseResponse<Account>> createAccount(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<BaseResponse<AccountProfile>> createAccount(@RequestBody Map<String, Object> payload) {
         try {
             String username = (String) payload.get("username");
             String password = (String) payload.get("password");
             String email = (String) payload.get("email");
 
-            Role role;
-            if (payload.get("role") != null) {
-                role = Role.valueOf(((String) payload.get("role")).toUpperCase());
-            } else {
-                role = Role.USER;
-            }
-
-            if (accountService.getAccountByUsername(username) != null) {
-                return ResponseEntity.status(HttpStatus.CONFLICT)
-                        .body(new BaseResponse<>(false, "Username already exists", null));
-            }
-
-            if (accountService.getAccountByEmail(email) != null) {
-                return ResponseEntity.status(HttpStatus.CONFLICT)
-                        .body(new BaseResponse<>(false, "Email already exists", null));
-            }
-
-            Account account = accountService.createAccount(username, password, email, role);
+            // Anyone may register, so only as a player; admins change roles through PUT /accounts/{id}/role.
+            // Taken usernames and emails are rejected by the service with 409
+            Account account = accountService.createAccount(username, password, email, Role.USER);
             return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(new BaseResponse<>(true, "Account created successfully", account));
+                    .body(new BaseResponse<>(true, "Account created successfully", AccountProfile.from(account)));
+        } catch (ResponseStatusException e) {
+            return rejected(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new BaseResponse<>(false, "Failed to create account: " + e.getMessage(), null));
         }
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BaseResponse<List<AccountImportResult>>> importAccounts(@RequestBody List<Map<String, Object>> payload) {
+        // Rows with fields of the wrong type reject the whole request, each with its own error
+        List<AccountImportRow> rows = new ArrayList<>(payload.size());
+        List<AccountImportResult> invalid = new ArrayList<>();
+        for (int i = 0; i < payload.size(); i++) {
+            Map<String, Object> row = payload.get(i) != null ? payload.get(i) : Map.of();
+            List<String> errors = new ArrayList<>();
+            String username = text(row, "username", errors);
+            String password = text(row, "password", errors);
+            String email = text(row, "email", errors);
+            String role = text(row, "role", errors);
+            if (!errors.isEmpty()) {
+                AccountImportResult result = new AccountImportResult(i + 1, username);
+                result.rejected(AccountImportResult.Status.INVALID, String.join("; ", errors));
+                invalid.add(result);
+            }
+            rows.add(new AccountImportRow(username, password, email, role));
+        }
+        if (!invalid.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(new BaseResponse<>(false, invalid.size() + " of " + rows.size() + " rows are invalid", invalid));
+        }
+        return runImport(rows);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<BaseResponse<List<AccountImportResult>>> importAccountsFromCsv(@RequestBody String csv) {
+        try {
+            return runImport(AccountImportCsv.parse(csv));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new BaseResponse<>(false, e.getMessage(), null));
+        }
+    }
+
     @PostMapping("/login")
-    public ResponseEntity<BaseResponse<Account>> login(@RequestBody Map<String, Object> payload) {
+    public CompletableFuture<ResponseEntity<BaseResponse<AccountProfile>>> login(@RequestBody Map<String, Object> payload) {
         try {
             String username = (String) payload.get("username");
             String password = (String) payload.get("password");
 
-            Account account = accountService.getAccountByUsername(username);
-            if (account == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new BaseResponse<>(false, "Invalid username or password", null));
-            }
-
-            if (accountService.authenticateAccount(username, password)) {
-                return ResponseEntity.ok(new BaseResponse<>(true, "Login successful", account));
-            } else {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new BaseResponse<>(false, "Invalid username or password", null));
-            }
+            // The request thread is released while the password is checked on the hashing pool
+            return accountService.authenticate(username, password)
+                    .thenApply(account -> account
+                            .map(value -> withTokens(tokenService.issue(value))
+                                    .body(new BaseResponse<>(true, "Login successful", AccountProfile.from(value))))
+                            .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                    .body(new BaseResponse<>(false, "Invalid username or password", null))))
+                    .exceptionally(e -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body(new BaseResponse<>(false, "Login failed: " + (e.getCause() != null ? e.getCause() : e).getMessage(), null)));
+        } catch (ResponseStatusException e) {
+            return CompletableFuture.completedFuture(rejected(e));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(new BaseResponse<>(false, "Login failed: " + e.getMessage(), null));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new BaseResponse<>(false, "Login failed: " + e.getMessage(), null)));
         }
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<BaseResponse<Long>> refresh(@RequestHeader(value = REFRESH_TOKEN_HEADER, required = false) String refreshToken) {
+        return tokenService.refresh(refreshToken)
+                .map(tokens -> withTokens(tokens)
+                        .body(new BaseResponse<>(true, "Token refreshed", tokens.getAccessTokenExpiresAt())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new BaseResponse<>(false, "Invalid or expired refresh token", null)));
+    }
+
     @PutMapping(value = "/{id}", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
-    public ResponseEntity<BaseResponse<Account>> updateAccount(
+    public ResponseEntity<BaseResponse<AccountProfile>> updateAccount(
             @PathVariable Long id,
             @RequestParam(value = "username", required = false) String username,
             @RequestParam(value = "email", required = false) String email,
             @RequestParam(value = "password", required = false) String password,
             @RequestParam(value = "image", required = false) MultipartFile image) {
-        try {
-            Optional<Account> optionalAccount = accountService.getAccountById(id);
-            if (optionalAccount.isPresent()) {
-                if (username != null && !username.isEmpty()) {
-                    Account existingAccount = accountService.getAccountByUsername(username);
-                    if (existingAccount != null && !existingAccount.getId().equals(id)) {
-                        return ResponseEntity.status(HttpStatus.CONFLICT)
-                                .body(new BaseResponse<>(false, "Username already exists", null));
-                    }
-                }
-
-                if (email != null && !email.isEmpty()) {
-                    Account existingAccount = accountService.getAccountByEmail(email);
-                    if (existingAccount != null && !existingAccount.getId().equals(id)) {
-                        return ResponseEntity.status(HttpStatus.CONFLICT)
-                                .body(new BaseResponse<>(false, "Email already exists", null));
-                    }
-                }
-
-                Account account = optionalAccount.get();
-                Role role = account.getRole();
-                Integer exp = account.getExp();
-
-                Account updatedAccount = accountService.updateAccount(id, username, email, role, exp, image, password);
-
-                return ResponseEntity.ok(new BaseResponse<>(true, "Account updated successfully", updatedAccount));
-            } else {
+        try (ImageUpload upload = imageUploadService.stage(image, "accounts")) {
+            // Role and EXP are left untouched; the service only changes non-null fields
+            Account updatedAccount = accountService.updateAccount(id, username, email, null, null, upload, password);
+            if (updatedAccount == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(new BaseResponse<>(false, "Account not found", null));
             }
+
+            return UploadController.withUpload(ResponseEntity.ok(), upload)
+                    .body(new BaseResponse<>(true, "Account updated successfully", AccountProfile.from(updatedAccount)));
+        } catch (ResponseStatusException e) {
+            return rejected(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new BaseResponse<>(false, "Failed to update account: " + e.getMessage(), null));
         }
     }
 
+    @PutMapping("/{id}/role")
+    public ResponseEntity<BaseResponse<AccountProfile>> changeRole(@PathVariable Long id,
+                                                                  @RequestBody Map<String, Object> payload) {
+        try {
+            if (!(payload.get("role") instanceof String role)) {
+                return ResponseEntity.badRequest().body(new BaseResponse<>(false, "role must be a string", null));
+            }
+            // The account's tokens are revoked by the service, so the new role applies from the next login
+            Account updatedAccount = accountService.updateAccount(id, null, null, Role.valueOf(role.toUpperCase()),
+                    null, null, null);
+            if (updatedAccount == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new BaseResponse<>(false, "Account not found", null));
+            }
+            return ResponseEntity.ok(new BaseResponse<>(true, "Role changed successfully", AccountProfile.from(updatedAccount)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new BaseResponse<>(false, "role must be one of " + Arrays.toString(Role.values()), null));
+        } catch (ResponseStatusException e) {
+            return rejected(e);
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<BaseResponse<String>> deleteAccount(@PathVariable Long id) {
         try {
@@ -150,4 +212,42 @@ public class AccountController {
                     .body(new BaseResponse<>(false, "Failed to delete account: " + e.getMessage(), null));
         }
     }
+
+    private ResponseEntity<BaseResponse<List<AccountImportResult>>> runImport(List<AccountImportRow> rows) {
+        try {
+            List<AccountImportResult> results = accountImportService.importAccounts(rows);
+            long created = results.stream()
+                    .filter(result -> result.getStatus() == AccountImportResult.Status.CREATED)
+                    .count();
+            return ResponseEntity.ok(new BaseResponse<>(true,
+                    "Created " + created + " of " + results.size() + " accounts", results));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new BaseResponse<>(false, e.getMessage(), null));
+        } catch (ResponseStatusException e) {
+            return rejected(e);
+        }
+    }
+
+    private static String text(Map<String, Object> row, String field, List<String> errors) {
+        Object value = row.get(field);
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        errors.add(field + " must be a string");
+        return null;
+    }
+
+    private static ResponseEntity.BodyBuilder withTokens(TokenPair tokens) {
+        return ResponseEntity.ok()
+                .header(TokenAuthenticationFilter.TOKEN_HEADER, tokens.getAccessToken())
+                .header(REFRESH_TOKEN_HEADER, tokens.getRefreshToken());
+    }
+
+    private static <T> ResponseEntity<BaseResponse<T>> rejected(ResponseStatusException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getStatusCode());
+        if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+            response.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return response.body(new BaseResponse<>(false, e.getReason(), null));
+    }
 }
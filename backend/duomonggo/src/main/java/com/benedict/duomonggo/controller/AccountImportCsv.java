@@ -0,0 +1,114 @@
+package com.benedict.duomonggo.controller;
+
+import com.benedict.duomonggo.model.AccountImportRow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads account rows from CSV. The first line is a header naming the columns
+ * (username, password, email and optionally role, in any order). Fields may be
+ * quoted, with "" standing for a literal quote; quoted fields may contain
+ * commas and line breaks.
+ */
+final class AccountImportCsv {
+
+    private AccountImportCsv() {
+    }
+
+    static List<AccountImportRow> parse(String csv) {
+        List<List<String>> records = parseRecords(csv);
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("CSV header is missing");
+        }
+
+        List<String> header = records.get(0).stream()
+                .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int username = requireColumn(header, "username");
+        int password = requireColumn(header, "password");
+        int email = requireColumn(header, "email");
+        int role = header.indexOf("role");
+
+        List<AccountImportRow> rows = new ArrayList<>(records.size() - 1);
+        for (List<String> fields : records.subList(1, records.size())) {
+            rows.add(new AccountImportRow(field(fields, username), field(fields, password),
+                    field(fields, email), role >= 0 ? field(fields, role) : null));
+        }
+        return rows;
+    }
+
+    private static int requireColumn(List<String> header, String column) {
+        int index = header.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("CSV header must contain a " + column + " column");
+        }
+        return index;
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Quotes and line breaks are read in the same pass, so a quoted field may span lines
+    private static List<List<String>> parseRecords(String csv) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean blank = true;
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+                continue;
+            }
+            if (c == '"') {
+                quoted = true;
+                blank = false;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+                blank = false;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < csv.length() && csv.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                endRecord(records, fields, current, blank);
+                fields = new ArrayList<>();
+                blank = true;
+            } else {
+                current.append(c);
+                if (!Character.isWhitespace(c)) {
+                    blank = false;
+                }
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("CSV ends inside a quoted field");
+        }
+        endRecord(records, fields, current, blank);
+        return records;
+    }
+
+    private static void endRecord(List<List<String>> records, List<String> fields, StringBuilder current, boolean blank) {
+        fields.add(current.toString());
+        current.setLength(0);
+        // Blank lines are skipped
+        if (!blank) {
+            records.add(fields);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.benedict.duomonggo.controller;
 
+import com.benedict.duomonggo.config.PaginationSettings;
 import com.benedict.duomonggo.model.Answer;
 import com.benedict.duomonggo.service.AnswerService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,16 +16,25 @@ import java.util.Optional;
 @RequestMapping("/answers")
 public class AnswerController {
     private final AnswerService answerService;
+    private final PaginationSettings paginationSettings;
 
     @Autowired
-    public AnswerController(AnswerService answerService) {
+    public AnswerController(AnswerService answerService, PaginationSettings paginationSettings) {
         this.answerService = answerService;
+        this.paginationSettings = paginationSettings;
     }
 
     @GetMapping
-    public ResponseEntity<BaseResponse<List<Answer>>> getAllAnswers() {
-        List<Answer> answers = answerService.getAllAnswers();
-        return ResponseEntity.ok(new BaseResponse<>(true, "Answers retrieved successfully", answers));
+    public ResponseEntity<BaseResponse<List<Answer>>> getAllAnswers(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            int pageSize = paginationSettings.resolveLimit(limit);
+            List<Answer> answers = answerService.getAnswersAfter(after, pageSize);
+            return KeysetPage.ok(answers, pageSize, Answer::getId, "Answers retrieved successfully");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new BaseResponse<>(false, e.getMessage(), null));
+        }
     }
 
     @GetMapping("/{id}")
@@ -83,6 +93,30 @@ public class AnswerController {
         }
     }
 
+    @PutMapping("/question/{questionId}")
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<BaseResponse<List<Answer>>> replaceAnswers(@PathVariable Long questionId,
+                                                                     @RequestBody Map<String, Object> payload) {
+        try {
+            List<Map<String, Object>> answers = (List<Map<String, Object>>) payload.get("answers");
+            if (answers == null) {
+                throw new IllegalArgumentException("answers is required");
+            }
+
+            List<Answer> saved = answerService.replaceAnswers(questionId, answers);
+
+            if (saved != null) {
+                return ResponseEntity.ok(new BaseResponse<>(true, "Answers updated successfully", saved));
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new BaseResponse<>(false, "Question not found", null));
+            }
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new BaseResponse<>(false, "Failed to update answers: " + e.getMessage(), null));
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<BaseResponse<Void>> deleteAnswer(@PathVariable Long id) {
         try {
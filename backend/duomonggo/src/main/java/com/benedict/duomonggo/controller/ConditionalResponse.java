@@ -0,0 +1,53 @@
+package com.benedict.duomonggo.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Serves course content reads with a strong ETag built from the course's
+ * content version. A matching {@code If-None-Match} is answered with 304
+ * before anything is loaded.
+ */
+final class ConditionalResponse {
+    private ConditionalResponse() {
+    }
+
+    static <T> ResponseEntity<T> ifNoneMatch(String ifNoneMatch, String etag, Supplier<ResponseEntity<T>> loader) {
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        ResponseEntity<T> response = loader.get();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        // no-cache rather than the security defaults, so clients keep the body and revalidate it
+        return ResponseEntity.status(response.getStatusCode())
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(response.getBody());
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses weak comparison
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
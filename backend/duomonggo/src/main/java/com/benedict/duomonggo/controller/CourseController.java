@@ -1,13 +1,30 @@
 package com.benedict.duomonggo.controller;
 
+import com.benedict.duomonggo.config.PaginationSettings;
 import com.benedict.duomonggo.model.Course;
+import com.benedict.duomonggo.model.CourseDraft;
+import com.benedict.duomonggo.model.CoursePlayBundle;
 import com.benedict.duomonggo.model.Difficulty;
+import com.benedict.duomonggo.model.CourseSearchEntry;
+import com.benedict.duomonggo.model.CourseSummary;
 import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.model.QuestionType;
+import com.benedict.duomonggo.service.CourseArchiveService;
+import com.benedict.duomonggo.service.CourseAuthoringService;
+import com.benedict.duomonggo.service.CourseCatalogCache;
+import com.benedict.duomonggo.service.CourseContentVersions;
+import com.benedict.duomonggo.service.CourseSearchService;
 import com.benedict.duomonggo.service.CourseService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -20,42 +37,109 @@ import java.util.*;
 @RequestMapping("/courses")
 public class CourseController {
     private final CourseService courseService;
+    private final PaginationSettings paginationSettings;
+    private final CourseCatalogCache courseCatalogCache;
+    private final CourseContentVersions courseContentVersions;
+    private final CourseAuthoringService courseAuthoringService;
+    private final CourseArchiveService courseArchiveService;
+    private final CourseSearchService courseSearchService;
 
     @Autowired
-    public CourseController(CourseService courseService) {
+    public CourseController(CourseService courseService, PaginationSettings paginationSettings,
+                            CourseCatalogCache courseCatalogCache, CourseContentVersions courseContentVersions,
+                            CourseAuthoringService courseAuthoringService, CourseArchiveService courseArchiveService,
+                            CourseSearchService courseSearchService) {
         this.courseService = courseService;
+        this.paginationSettings = paginationSettings;
+        this.courseCatalogCache = courseCatalogCache;
+        this.courseContentVersions = courseContentVersions;
+        this.courseAuthoringService = courseAuthoringService;
+        this.courseArchiveService = courseArchiveService;
+        this.courseSearchService = courseSearchService;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<BaseResponse<Course>> getCourse(@PathVariable Long id) {
-        Optional<Course> course = courseService.getCourseById(id);
-        return course.map(value -> ResponseEntity.ok(new BaseResponse<>(true, "Course found", value)))
-                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(new BaseResponse<>(false, "Course not found", null)));
+    public ResponseEntity<BaseResponse<Course>> getCourse(@PathVariable Long id,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<Long> version = courseContentVersions.current(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new BaseResponse<>(false, "Course not found", null));
+        }
+
+        return ConditionalResponse.ifNoneMatch(ifNoneMatch, CourseContentVersions.etag(id, version.get()), () -> {
+            Optional<Course> course = courseService.getCourseById(id);
+            return course.map(value -> ResponseEntity.ok(new BaseResponse<>(true, "Course found", value)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new BaseResponse<>(false, "Course not found", null)));
+        });
+    }
+
+    @PostMapping("/{id}/play")
+    public ResponseEntity<BaseResponse<CoursePlayBundle>> playCourse(@PathVariable Long id,
+                                                                    @AuthenticationPrincipal Long accountId) {
+        try {
+            // Only signed-in accounts reach here, and only for themselves
+            Optional<CoursePlayBundle> bundle = courseService.startPlaying(id, accountId);
+            return bundle.map(value -> ResponseEntity.ok(new BaseResponse<>(true, "Course ready to play", value)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new BaseResponse<>(false, "Course not found", null)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new BaseResponse<>(false, "Failed to start course: " + e.getMessage(), null));
+        }
     }
 
     @GetMapping
-    public ResponseEntity<BaseResponse<List<Course>>> getAllCourses() {
-        List<Course> courses = courseService.getAllCourses();
-        return ResponseEntity.ok(new BaseResponse<>(true, "Courses found", courses));
+    public ResponseEntity<?> getAllCourses(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            int pageSize = paginationSettings.resolveLimit(limit);
+            CourseCatalogCache.View courses = courseCatalogCache.getPage(after, pageSize);
+            ResponseEntity.BodyBuilder response = EncodedResponse.ok();
+            if (courses.getSize() == pageSize) {
+                response.header(KeysetPage.NEXT_CURSOR_HEADER, String.valueOf(courses.getLastId()));
+            }
+            return response.body(EncodedResponse.body("Courses found", courses.getJson()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new BaseResponse<>(false, e.getMessage(), null));
+        }
     }
 
     @GetMapping("/type/{courseType}")
-    public ResponseEntity<BaseResponse<List<Course>>> getCoursesByType(@PathVariable String courseType) {
+    public ResponseEntity<?> getCoursesByType(@PathVariable String courseType) {
         try {
             CourseType courseTypeEnum = CourseType.valueOf(courseType.toUpperCase());
-            List<Course> courses = courseService.getCoursesByCourseType(courseTypeEnum);
+            CourseCatalogCache.View courses = courseCatalogCache.getByType(courseTypeEnum);
 
-            if (courses.isEmpty()) {
-                return ResponseEntity.ok(new BaseResponse<>(true, "No courses found with this type", courses));
+            if (courses.getSize() == 0) {
+                return EncodedResponse.ok().body(EncodedResponse.body("No courses found with this type", courses.getJson()));
             }
 
-            return ResponseEntity.ok(new BaseResponse<>(true, "Courses found", courses));
+            return EncodedResponse.ok().body(EncodedResponse.body("Courses found", courses.getJson()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(new BaseResponse<>(false, "Invalid course type value", null));
         }
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<BaseResponse<List<CourseSearchEntry>>> searchCourses(
+            @RequestParam(value = "q", defaultValue = "") String query,
+            @RequestParam(value = "difficulty", required = false) String difficulty,
+            @RequestParam(value = "courseType", required = false) String courseType,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            int pageSize = paginationSettings.resolveLimit(limit);
+            Difficulty difficultyEnum = difficulty != null ? Difficulty.valueOf(difficulty.toUpperCase()) : null;
+            CourseType courseTypeEnum = courseType != null ? CourseType.valueOf(courseType.toUpperCase()) : null;
+            List<CourseSearchEntry> courses = courseSearchService.search(query, difficultyEnum, courseTypeEnum, pageSize);
+            return ResponseEntity.ok(new BaseResponse<>(true, "Courses found", courses));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new BaseResponse<>(false, "Invalid search: " + e.getMessage(), null));
+        }
+    }
+
     @PostMapping
     public ResponseEntity<BaseResponse<Course>> createCourse(@RequestBody Map<String, Object> payload) {
         try {
@@ -112,6 +196,189 @@ public class CourseController {
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<BaseResponse<CourseSummary>> publishCourse(@RequestBody Map<String, Object> payload) {
+        try {
+            CourseSummary course = courseAuthoringService.publish(parseDraft(payload));
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(new BaseResponse<>(true, "Course published successfully", course));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new BaseResponse<>(false, "Failed to publish course: " + e.getMessage(), null));
+        }
+    }
+
+    @PostMapping("/{id}/questions")
+    public ResponseEntity<BaseResponse<List<Long>>> addQuestions(@PathVariable Long id,
+                                                                 @RequestBody Map<String, Object> payload) {
+        try {
+            // Same question shape as POST /courses/bulk; answers go in with their questions
+            Optional<List<Long>> questionIds = courseAuthoringService.addQuestions(id, parseQuestions(payload));
+            return questionIds.map(value -> ResponseEntity.status(HttpStatus.CREATED)
+                            .body(new BaseResponse<>(true, "Questions added successfully", value)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new BaseResponse<>(false, "Course not found", null)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new BaseResponse<>(false, "Failed to add questions: " + e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCourses(@RequestParam(value = "ids", required = false) List<Long> ids) {
+        return archive(ids != null ? ids : List.of(), "courses.json.gz");
+    }
+
+    @GetMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportCourse(@PathVariable Long id) {
+        if (courseContentVersions.current(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return archive(List.of(id), "course-" + id + ".json.gz");
+    }
+
+    private ResponseEntity<StreamingResponseBody> archive(List<Long> ids, String filename) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(out -> courseArchiveService.export(ids, out));
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<BaseResponse<List<CourseSummary>>> importCourses(HttpServletRequest request) {
+        try {
+            List<CourseSummary> courses = courseArchiveService.importArchive(request.getInputStream());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(new BaseResponse<>(true, "Courses imported successfully", courses));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new BaseResponse<>(false, "Failed to import courses: " + e.getMessage(), null));
+        }
+    }
+
+    // Each field is checked for its JSON type, and a mistyped one is reported by its path
+    private static CourseDraft parseDraft(Map<String, Object> payload) {
+        String courseTypeName = text(payload, "courseType", "courseType");
+        CourseType courseType = courseTypeName != null
+                ? enumValue(CourseType.class, courseTypeName, "courseType")
+                : CourseType.SINGLEPLAYER;
+        String deadlineStr = text(payload, "deadline", "deadline");
+        LocalDateTime deadline;
+        try {
+            deadline = deadlineStr != null
+                    ? ZonedDateTime.parse(deadlineStr, DateTimeFormatter.ISO_DATE_TIME.withZone(ZoneId.of("Asia/Bangkok"))).toLocalDateTime()
+                    : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("deadline must be an ISO date-time");
+        }
+
+        return new CourseDraft(
+                text(payload, "title", "title"),
+                text(payload, "description", "description"),
+                enumValue(Difficulty.class, required(text(payload, "difficulty", "difficulty"), "difficulty"), "difficulty"),
+                courseType,
+                deadline,
+                required(integer(payload, "expReward", "expReward"), "expReward"),
+                parseQuestions(payload));
+    }
+
+    private static List<CourseDraft.QuestionDraft> parseQuestions(Map<String, Object> payload) {
+        List<Map<String, Object>> questionPayloads = objects(payload, "questions", "questions");
+        List<CourseDraft.QuestionDraft> questions = new ArrayList<>(questionPayloads.size());
+        for (int i = 0; i < questionPayloads.size(); i++) {
+            Map<String, Object> question = questionPayloads.get(i);
+            String path = "questions[" + i + "]";
+
+            List<Map<String, Object>> answerPayloads = objects(question, "answers", path + ".answers");
+            List<CourseDraft.AnswerDraft> answers = new ArrayList<>(answerPayloads.size());
+            for (int j = 0; j < answerPayloads.size(); j++) {
+                Map<String, Object> answer = answerPayloads.get(j);
+                String answerPath = path + ".answers[" + j + "]";
+                answers.add(new CourseDraft.AnswerDraft(text(answer, "content", answerPath + ".content"),
+                        bool(answer, "isCorrect", answerPath + ".isCorrect")));
+            }
+            questions.add(new CourseDraft.QuestionDraft(
+                    text(question, "content", path + ".content"),
+                    enumValue(QuestionType.class, required(text(question, "questionType", path + ".questionType"), path + ".questionType"),
+                            path + ".questionType"),
+                    text(question, "explanation", path + ".explanation"),
+                    null,
+                    integer(question, "orderNumber", path + ".orderNumber"),
+                    integer(question, "typoTolerance", path + ".typoTolerance"),
+                    answers));
+        }
+        return questions;
+    }
+
+    private static String text(Map<String, Object> map, String field, String path) {
+        Object value = map.get(field);
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        throw new IllegalArgumentException(path + " must be a string");
+    }
+
+    private static Boolean bool(Map<String, Object> map, String field, String path) {
+        Object value = map.get(field);
+        if (value == null || value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        throw new IllegalArgumentException(path + " must be true or false");
+    }
+
+    // Whole numbers may also be sent as strings, as the rest of this controller accepts
+    private static Integer integer(Map<String, Object> map, String field, String path) {
+        Object value = map.get(field);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            long number = ((Number) value).longValue();
+            if (number == (int) number) {
+                return (int) number;
+            }
+        } else if (value instanceof String string) {
+            try {
+                return Integer.parseInt(string.trim());
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        throw new IllegalArgumentException(path + " must be a whole number");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> objects(Map<String, Object> map, String field, String path) {
+        Object value = map.get(field);
+        if (value == null) {
+            return List.of();
+        }
+        if (value instanceof List<?> list) {
+            for (int i = 0; i < list.size(); i++) {
+                if (!(list.get(i) instanceof Map)) {
+                    throw new IllegalArgumentException(path + "[" + i + "] must be an object");
+                }
+            }
+            return (List<Map<String, Object>>) value;
+        }
+        throw new IllegalArgumentException(path + " must be a list");
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String name, String path) {
+        try {
+            return Enum.valueOf(type, name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(path + " must be one of " + Arrays.toString(type.getEnumConstants()));
+        }
+    }
+
+    private static <T> T required(T value, String path) {
+        if (value == null) {
+            throw new IllegalArgumentException(path + " is required");
+        }
+        return value;
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<BaseResponse<Course>> updateCourse(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
         try {
@@ -0,0 +1,34 @@
+package com.benedict.duomonggo.controller;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wraps a payload that is already JSON in the {@link BaseResponse} envelope
+ * without decoding and re-encoding it.
+ */
+final class EncodedResponse {
+    private static final byte[] SUFFIX = "}".getBytes(StandardCharsets.UTF_8);
+
+    private EncodedResponse() {
+    }
+
+    static ResponseEntity.BodyBuilder ok() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+    }
+
+    static byte[] body(String message, byte[] payloadJson) {
+        byte[] prefix = ("{\"success\":true,\"message\":\""
+                + new String(JsonStringEncoder.getInstance().quoteAsString(message))
+                + "\",\"payload\":").getBytes(StandardCharsets.UTF_8);
+
+        byte[] body = new byte[prefix.length + payloadJson.length + SUFFIX.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        System.arraycopy(payloadJson, 0, body, prefix.length, payloadJson.length);
+        System.arraycopy(SUFFIX, 0, body, prefix.length + payloadJson.length, SUFFIX.length);
+        return body;
+    }
+}
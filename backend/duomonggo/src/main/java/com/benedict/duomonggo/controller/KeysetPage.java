@@ -0,0 +1,26 @@
+package com.benedict.duomonggo.controller;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Builds list responses for keyset-paginated endpoints. When a page is full the
+ * id of its last row is returned in the {@value #NEXT_CURSOR_HEADER} header, to
+ * be passed back as {@code after} for the next page.
+ */
+final class KeysetPage {
+    static final String NEXT_CURSOR_HEADER = "X-Next-After";
+
+    private KeysetPage() {
+    }
+
+    static <T> ResponseEntity<BaseResponse<List<T>>> ok(List<T> items, int limit, Function<T, Long> idOf, String message) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (items.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(idOf.apply(items.get(items.size() - 1))));
+        }
+        return response.body(new BaseResponse<>(true, message, items));
+    }
+}
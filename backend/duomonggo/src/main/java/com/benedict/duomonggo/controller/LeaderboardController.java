@@ -0,0 +1,44 @@
+package com.benedict.duomonggo.controller;
+
+import com.benedict.duomonggo.model.LeaderboardStanding;
+import com.benedict.duomonggo.service.LeaderboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/leaderboard")
+public class LeaderboardController {
+    private static final int MAX_LIMIT = 100;
+
+    private final LeaderboardService leaderboardService;
+
+    @Autowired
+    public LeaderboardController(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    @GetMapping
+    public ResponseEntity<BaseResponse<List<LeaderboardStanding>>> getLeaderboard(
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (offset < 0 || limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest()
+                    .body(new BaseResponse<>(false, "Offset must be non-negative and limit between 1 and " + MAX_LIMIT, null));
+        }
+        List<LeaderboardStanding> standings = leaderboardService.getStandings(offset, limit);
+        return ResponseEntity.ok(new BaseResponse<>(true, "Leaderboard retrieved successfully", standings));
+    }
+
+    @GetMapping("/account/{accountId}")
+    public ResponseEntity<BaseResponse<LeaderboardStanding>> getAccountStanding(@PathVariable Long accountId) {
+        Optional<LeaderboardStanding> standing = leaderboardService.getStanding(accountId);
+        return standing.map(value -> ResponseEntity.ok(new BaseResponse<>(true, "Leaderboard rank found", value)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new BaseResponse<>(false, "Account is not ranked", null)));
+    }
+}
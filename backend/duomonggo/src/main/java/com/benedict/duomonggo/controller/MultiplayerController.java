@@ -1,10 +1,13 @@
 package com.benedict.duomonggo.controller;
 
 import com.benedict.duomonggo.model.Multiplayer;
+import com.benedict.duomonggo.model.MultiplayerStanding;
 import com.benedict.duomonggo.service.MultiplayerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -14,6 +17,7 @@ import java.util.Map;
 @RequestMapping("/multiplayer")
 @CrossOrigin(origins = "*")
 public class MultiplayerController {
+    private static final int MAX_RANKING_LIMIT = 100;
 
     private final MultiplayerService multiplayerService;
 
@@ -51,8 +55,39 @@ public class MultiplayerController {
     }
 
     @GetMapping("/time/course/{courseId}")
-    public ResponseEntity<BaseResponse<List<Map<String, Object>>>> getAllCompletionTimesForCourse(@PathVariable Long courseId) {
-        List<Map<String, Object>> result = multiplayerService.getAllCompletionTimesForCourse(courseId);
+    public ResponseEntity<BaseResponse<List<Map<String, Object>>>> getAllCompletionTimesForCourse(
+            @PathVariable Long courseId,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "" + MAX_RANKING_LIMIT) int limit) {
+        if (offset < 0 || limit < 1 || limit > MAX_RANKING_LIMIT) {
+            return ResponseEntity.badRequest()
+                    .body(new BaseResponse<>(false, "Offset must be non-negative and limit between 1 and " + MAX_RANKING_LIMIT, null));
+        }
+        List<Map<String, Object>> result = multiplayerService.getAllCompletionTimesForCourse(courseId, offset, limit);
         return ResponseEntity.ok(new BaseResponse<>(true, "All completion times retrieved successfully", result));
     }
+
+    @GetMapping("/ranking/course/{courseId}")
+    public ResponseEntity<BaseResponse<List<MultiplayerStanding>>> getRanking(
+            @PathVariable Long courseId,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (offset < 0 || limit < 1 || limit > MAX_RANKING_LIMIT) {
+            return ResponseEntity.badRequest()
+                    .body(new BaseResponse<>(false, "Offset must be non-negative and limit between 1 and " + MAX_RANKING_LIMIT, null));
+        }
+        List<MultiplayerStanding> result = multiplayerService.getRanking(courseId, offset, limit);
+        return ResponseEntity.ok(new BaseResponse<>(true, "Ranking retrieved successfully", result));
+    }
+
+    @GetMapping("/ranking/user/{accountId}/course/{courseId}")
+    public ResponseEntity<BaseResponse<MultiplayerStanding>> getRankingForAccount(@PathVariable Long accountId, @PathVariable Long courseId) {
+        MultiplayerStanding result = multiplayerService.getRankingForAccount(accountId, courseId);
+        return ResponseEntity.ok(new BaseResponse<>(true, "Rank retrieved successfully", result));
+    }
+
+    @GetMapping(value = "/live/course/{courseId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToRanking(@PathVariable Long courseId) {
+        return multiplayerService.subscribeToRanking(courseId);
+    }
 }
@@ -1,32 +1,58 @@
 package com.benedict.duomonggo.controller;
 
+import com.benedict.duomonggo.config.PaginationSettings;
+import com.benedict.duomonggo.model.GradeResult;
+import com.benedict.duomonggo.model.ImageUpload;
 import com.benedict.duomonggo.model.Question;
 import com.benedict.duomonggo.model.QuestionType;
+import com.benedict.duomonggo.service.CourseContentVersions;
+import com.benedict.duomonggo.service.GradingService;
+import com.benedict.duomonggo.service.ImageUploadService;
 import com.benedict.duomonggo.service.QuestionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/questions")
 public class QuestionController {
     private final QuestionService questionService;
+    private final PaginationSettings paginationSettings;
+    private final CourseContentVersions courseContentVersions;
+    private final GradingService gradingService;
+    private final ImageUploadService imageUploadService;
 
     @Autowired
-    public QuestionController(QuestionService questionService) {
+    public QuestionController(QuestionService questionService, PaginationSettings paginationSettings,
+                              CourseContentVersions courseContentVersions, GradingService gradingService,
+                              ImageUploadService imageUploadService) {
         this.questionService = questionService;
+        this.paginationSettings = paginationSettings;
+        this.courseContentVersions = courseContentVersions;
+        this.gradingService = gradingService;
+        this.imageUploadService = imageUploadService;
     }
 
     @GetMapping
-    public ResponseEntity<BaseResponse<List<Question>>> getAllQuestions() {
-        List<Question> questions = questionService.getAllQuestions();
-        return ResponseEntity.ok(new BaseResponse<>(true, "Questions retrieved successfully", questions));
+    public ResponseEntity<BaseResponse<List<Question>>> getAllQuestions(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            int pageSize = paginationSettings.resolveLimit(limit);
+            List<Question> questions = questionService.getQuestionsAfter(after, pageSize);
+            return KeysetPage.ok(questions, pageSize, Question::getId, "Questions retrieved successfully");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new BaseResponse<>(false, e.getMessage(), null));
+        }
     }
 
     @GetMapping("/{id}")
@@ -38,9 +64,17 @@ public class QuestionController {
     }
 
     @GetMapping("/course/{courseId}")
-    public ResponseEntity<BaseResponse<List<Question>>> getQuestionsByCourseId(@PathVariable Long courseId) {
-        List<Question> questions = questionService.getQuestionsByCourseId(courseId);
-        return ResponseEntity.ok(new BaseResponse<>(true, "Questions retrieved successfully", questions));
+    public ResponseEntity<BaseResponse<List<Question>>> getQuestionsByCourseId(@PathVariable Long courseId,
+                                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<Long> version = courseContentVersions.current(courseId);
+        if (version.isEmpty()) {
+            return ResponseEntity.ok(new BaseResponse<>(true, "Questions retrieved successfully", List.of()));
+        }
+
+        return ConditionalResponse.ifNoneMatch(ifNoneMatch, CourseContentVersions.etag(courseId, version.get()), () -> {
+            List<Question> questions = questionService.getQuestionsByCourseId(courseId);
+            return ResponseEntity.ok(new BaseResponse<>(true, "Questions retrieved successfully", questions));
+        });
     }
 
     @PostMapping(consumes = {MediaType.MULTIPART_FORM_DATA_VALUE, MediaType.APPLICATION_JSON_VALUE})
@@ -50,15 +84,16 @@ public class QuestionController {
             @RequestParam(value = "explanation") String explanation,
             @RequestParam(value = "courseId") Long courseId,
             @RequestParam(value = "orderNumber") Integer orderNumber,
+            @RequestParam(value = "typoTolerance", required = false) Integer typoTolerance,
             @RequestParam(value = "image", required = false) MultipartFile image) {
-        try {
+        try (ImageUpload upload = imageUploadService.stage(image, "questions")) {
             QuestionType questionType = QuestionType.valueOf(questionTypeStr);
             Question question;
 
-            question = questionService.createQuestion(content, questionType, explanation, courseId, orderNumber, null, image);
+            question = questionService.createQuestion(content, questionType, explanation, courseId, orderNumber, null, upload, typoTolerance);
 
             if (question != null) {
-                return ResponseEntity.status(HttpStatus.CREATED)
+                return UploadController.withUpload(ResponseEntity.status(HttpStatus.CREATED), upload)
                     .body(new BaseResponse<>(true, "Question created successfully", question));
             } else {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -70,6 +105,50 @@ public class QuestionController {
         }
     }
 
+    @PostMapping("/{id}/grade")
+    public ResponseEntity<BaseResponse<GradeResult>> gradeAnswer(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
+        try {
+            Optional<GradeResult> result = grade(id, payload);
+            return result.map(value -> ResponseEntity.ok(new BaseResponse<>(true, "Answer graded", value)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new BaseResponse<>(false, "Question not found", null)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new BaseResponse<>(false, "Failed to grade answer: " + e.getMessage(), null));
+        }
+    }
+
+    @PostMapping("/grade")
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<BaseResponse<List<GradeResult>>> gradeAnswers(@RequestBody Map<String, Object> payload) {
+        try {
+            List<Map<String, Object>> submissions = (List<Map<String, Object>>) payload.get("submissions");
+            gradingService.checkBatchSize(submissions.size());
+            List<GradeResult> results = new ArrayList<>(submissions.size());
+            for (Map<String, Object> submission : submissions) {
+                Long questionId = Long.parseLong(submission.get("questionId").toString());
+                Optional<GradeResult> result = grade(questionId, submission);
+                if (result.isEmpty()) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new BaseResponse<>(false, "Question not found: " + questionId, null));
+                }
+                results.add(result.get());
+            }
+            return ResponseEntity.ok(new BaseResponse<>(true, "Answers graded", results));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new BaseResponse<>(false, "Failed to grade answers: " + e.getMessage(), null));
+        }
+    }
+
+    private Optional<GradeResult> grade(Long questionId, Map<String, Object> submission) {
+        Object answerId = submission.get("answerId");
+        Object response = submission.get("response");
+        return gradingService.grade(questionId,
+                answerId != null ? Long.parseLong(answerId.toString()) : null,
+                response != null ? response.toString() : null);
+    }
+
     @PutMapping(value = "/{id}", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE, MediaType.APPLICATION_JSON_VALUE})
     public ResponseEntity<BaseResponse<Question>> updateQuestion(
             @PathVariable Long id,
@@ -77,15 +156,17 @@ public class QuestionController {
             @RequestParam("questionType") String questionTypeStr,
             @RequestParam("explanation") String explanation,
             @RequestParam("orderNumber") Integer orderNumber,
+            @RequestParam(value = "typoTolerance", required = false) Integer typoTolerance,
             @RequestParam(value = "image", required = false) MultipartFile image) {
-        try {
+        try (ImageUpload upload = imageUploadService.stage(image, "questions")) {
             QuestionType questionType = QuestionType.valueOf(questionTypeStr);
             Question question;
 
-            question = questionService.updateQuestion(id, content, questionType, explanation, orderNumber, null, image);
+            question = questionService.updateQuestion(id, content, questionType, explanation, orderNumber, null, upload, typoTolerance);
 
             if (question != null) {
-                return ResponseEntity.ok(new BaseResponse<>(true, "Question updated successfully", question));
+                return UploadController.withUpload(ResponseEntity.ok(), upload)
+                    .body(new BaseResponse<>(true, "Question updated successfully", question));
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new BaseResponse<>(false, "Question not found", null));
@@ -96,6 +177,24 @@ public class QuestionController {
         }
     }
 
+    @PutMapping("/course/{courseId}/order")
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<BaseResponse<List<Question>>> reorderQuestions(@PathVariable Long courseId,
+                                                                         @RequestBody Map<String, Object> payload) {
+        try {
+            List<Object> ids = (List<Object>) payload.get("questionIds");
+            if (ids == null) {
+                throw new IllegalArgumentException("questionIds is required");
+            }
+            List<Long> questionIds = ids.stream().map(id -> Long.parseLong(id.toString())).toList();
+            List<Question> questions = questionService.reorderQuestions(courseId, questionIds);
+            return ResponseEntity.ok(new BaseResponse<>(true, "Questions reordered successfully", questions));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new BaseResponse<>(false, "Failed to reorder questions: " + e.getMessage(), null));
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<BaseResponse<Void>> deleteQuestion(@PathVariable Long id) {
         try {
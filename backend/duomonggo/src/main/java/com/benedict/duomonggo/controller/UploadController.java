@@ -0,0 +1,45 @@
+package com.benedict.duomonggo.controller;
+
+import com.benedict.duomonggo.model.ImageUpload;
+import com.benedict.duomonggo.service.ImageUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+
+/**
+ * Status of images being uploaded in the background. Endpoints that accept
+ * an image return its upload id in the {@value #UPLOAD_ID_HEADER} header.
+ */
+@RestController
+@RequestMapping("/uploads")
+public class UploadController {
+    static final String UPLOAD_ID_HEADER = "X-Upload-Id";
+
+    private final ImageUploadService imageUploadService;
+
+    @Autowired
+    public UploadController(ImageUploadService imageUploadService) {
+        this.imageUploadService = imageUploadService;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<BaseResponse<ImageUpload>> getUpload(@PathVariable String id) {
+        Optional<ImageUpload> upload = imageUploadService.getUpload(id);
+        return upload.map(value -> ResponseEntity.ok(new BaseResponse<>(true, "Upload found", value)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new BaseResponse<>(false, "Upload not found", null)));
+    }
+
+    static ResponseEntity.BodyBuilder withUpload(ResponseEntity.BodyBuilder response, ImageUpload upload) {
+        if (upload != null) {
+            response.header(UPLOAD_ID_HEADER, upload.getId());
+        }
+        return response;
+    }
+}
@@ -24,6 +24,17 @@ public class Account extends Serializable {
     @Column(name = "image_url")
     private String imageUrl;
 
+    // Smaller copies of the image, for pages that show it small
+    @Column(name = "image_medium_url")
+    private String imageMediumUrl;
+
+    @Column(name = "image_thumbnail_url")
+    private String imageThumbnailUrl;
+
+    // The upload whose image this account should end up with; older uploads that finish later are dropped
+    @Column(name = "image_upload_id")
+    private String imageUploadId;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "role", nullable = false)
     Role role;
@@ -89,6 +100,30 @@ public class Account extends Serializable {
         this.imageUrl = imageUrl;
     }
 
+    public String getImageMediumUrl() {
+        return imageMediumUrl;
+    }
+
+    public void setImageMediumUrl(String imageMediumUrl) {
+        this.imageMediumUrl = imageMediumUrl;
+    }
+
+    public String getImageThumbnailUrl() {
+        return imageThumbnailUrl;
+    }
+
+    public void setImageThumbnailUrl(String imageThumbnailUrl) {
+        this.imageThumbnailUrl = imageThumbnailUrl;
+    }
+
+    public String getImageUploadId() {
+        return imageUploadId;
+    }
+
+    public void setImageUploadId(String imageUploadId) {
+        this.imageUploadId = imageUploadId;
+    }
+
     public Role getRole() {
         return role;
     }
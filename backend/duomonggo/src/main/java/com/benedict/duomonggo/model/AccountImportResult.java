@@ -0,0 +1,60 @@
+package com.benedict.duomonggo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class AccountImportResult {
+    public enum Status {
+        CREATED,
+        INVALID,
+        DUPLICATE_IN_REQUEST,
+        USERNAME_TAKEN,
+        EMAIL_TAKEN,
+        CONFLICT
+    }
+
+    private final int row;
+    private final String username;
+    private Status status;
+    private String message;
+    private Long accountId;
+
+    public AccountImportResult(int row, String username) {
+        this.row = row;
+        this.username = username;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    @JsonIgnore
+    public boolean isPending() {
+        return status == null;
+    }
+
+    public void created(Long accountId) {
+        this.status = Status.CREATED;
+        this.accountId = accountId;
+    }
+
+    public void rejected(Status status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+}
@@ -0,0 +1,70 @@
+package com.benedict.duomonggo.model;
+
+import java.time.LocalDateTime;
+
+public class AccountProfile {
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String imageUrl;
+    private final String imageMediumUrl;
+    private final String imageThumbnailUrl;
+    private final Role role;
+    private final Integer exp;
+    private final LocalDateTime createdAt;
+
+    public AccountProfile(Long id, String username, String email, String imageUrl, String imageMediumUrl,
+                          String imageThumbnailUrl, Role role, Integer exp, LocalDateTime createdAt) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.imageUrl = imageUrl;
+        this.imageMediumUrl = imageMediumUrl;
+        this.imageThumbnailUrl = imageThumbnailUrl;
+        this.role = role;
+        this.exp = exp;
+        this.createdAt = createdAt;
+    }
+
+    public static AccountProfile from(Account account) {
+        return new AccountProfile(account.getId(), account.getUsername(), account.getEmail(), account.getImageUrl(),
+                account.getImageMediumUrl(), account.getImageThumbnailUrl(), account.getRole(), account.getExp(),
+                account.getCreatedAt());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public String getImageMediumUrl() {
+        return imageMediumUrl;
+    }
+
+    public String getImageThumbnailUrl() {
+        return imageThumbnailUrl;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public Integer getExp() {
+        return exp;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
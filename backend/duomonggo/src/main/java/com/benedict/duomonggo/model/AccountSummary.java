@@ -0,0 +1,43 @@
+package com.benedict.duomonggo.model;
+
+public class AccountSummary {
+    private final Long id;
+    private final String username;
+    private final String imageUrl;
+    private final String imageThumbnailUrl;
+    private final Role role;
+    private final Integer exp;
+
+    public AccountSummary(Long id, String username, String imageUrl, String imageThumbnailUrl, Role role, Integer exp) {
+        this.id = id;
+        this.username = username;
+        this.imageUrl = imageUrl;
+        this.imageThumbnailUrl = imageThumbnailUrl;
+        this.role = role;
+        this.exp = exp;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public String getImageThumbnailUrl() {
+        return imageThumbnailUrl;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public Integer getExp() {
+        return exp;
+    }
+}
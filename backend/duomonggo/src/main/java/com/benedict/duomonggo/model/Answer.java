@@ -1,5 +1,6 @@
 package com.benedict.duomonggo.model;
 
+import com.benedict.duomonggo.util.TextNormalizer;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -17,6 +18,11 @@ public class Answer extends Serializable {
     @Column(name = "content", nullable = false, columnDefinition = "TEXT")
     private String content;
 
+    // The content as short-answer grading compares it, kept in step with content
+    @Column(name = "normalized_content", columnDefinition = "TEXT")
+    @JsonIgnore
+    private String normalizedContent;
+
     @Column(name = "is_correct", nullable = false)
     private Boolean isCorrect;
 
@@ -36,6 +42,7 @@ public class Answer extends Serializable {
 
     public Answer(String content, Boolean isCorrect, Question question) {
         this.content = content;
+        this.normalizedContent = TextNormalizer.normalize(content);
         this.isCorrect = isCorrect;
         this.question = question;
     }
@@ -50,6 +57,12 @@ public class Answer extends Serializable {
 
     public void setContent(String content) {
         this.content = content;
+        this.normalizedContent = TextNormalizer.normalize(content);
+    }
+
+    @JsonIgnore
+    public String getNormalizedContent() {
+        return normalizedContent != null ? normalizedContent : TextNormalizer.normalize(content);
     }
 
     public Boolean getIsCorrect() {
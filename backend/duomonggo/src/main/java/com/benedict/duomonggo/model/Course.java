@@ -7,7 +7,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
 @Table(name = "courses")
@@ -40,10 +39,18 @@ public class Course extends Serializable {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Bumped by every content edit; written only through CourseRepository.bumpContentVersion
+    @Column(name = "content_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint not null default 0")
+    @JsonIgnore
+    private long contentVersion;
+
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("orderNumber ASC, id ASC")
     private List<Question> questions = new ArrayList<>();
     
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
     private List<Enrollment> enrollments = new ArrayList<>();
 
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -131,6 +138,10 @@ public class Course extends Serializable {
         return createdAt;
     }
 
+    public long getContentVersion() {
+        return contentVersion;
+    }
+
     public List<Question> getQuestions() {
         return questions;
     }
@@ -157,7 +168,7 @@ public class Course extends Serializable {
         this.enrollments = enrollments;
     }
 
-    @JsonProperty("multiplayerSessionIds")
+    @JsonIgnore
     public List<Long> getMultiplayerSessionIds() {
         List<Long> ids = new ArrayList<>();
         for (Multiplayer multiplayer : multiplayerSessions) {
@@ -0,0 +1,124 @@
+package com.benedict.duomonggo.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A whole course as submitted for publishing in one go: the course fields,
+ * and its questions with their answers.
+ */
+public class CourseDraft {
+    private final String title;
+    private final String description;
+    private final Difficulty difficulty;
+    private final CourseType courseType;
+    private final LocalDateTime deadline;
+    private final Integer expReward;
+    private final List<QuestionDraft> questions;
+
+    public CourseDraft(String title, String description, Difficulty difficulty, CourseType courseType,
+                       LocalDateTime deadline, Integer expReward, List<QuestionDraft> questions) {
+        this.title = title;
+        this.description = description;
+        this.difficulty = difficulty;
+        this.courseType = courseType;
+        this.deadline = deadline;
+        this.expReward = expReward;
+        this.questions = questions;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public CourseType getCourseType() {
+        return courseType;
+    }
+
+    public LocalDateTime getDeadline() {
+        return deadline;
+    }
+
+    public Integer getExpReward() {
+        return expReward;
+    }
+
+    public List<QuestionDraft> getQuestions() {
+        return questions;
+    }
+
+    public static class QuestionDraft {
+        private final String content;
+        private final QuestionType questionType;
+        private final String explanation;
+        private final String imageUrl;
+        private final Integer orderNumber;
+        private final Integer typoTolerance;
+        private final List<AnswerDraft> answers;
+
+        public QuestionDraft(String content, QuestionType questionType, String explanation, String imageUrl,
+                             Integer orderNumber, Integer typoTolerance, List<AnswerDraft> answers) {
+            this.content = content;
+            this.questionType = questionType;
+            this.explanation = explanation;
+            this.imageUrl = imageUrl;
+            this.orderNumber = orderNumber;
+            this.typoTolerance = typoTolerance;
+            this.answers = answers;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public QuestionType getQuestionType() {
+            return questionType;
+        }
+
+        public String getExplanation() {
+            return explanation;
+        }
+
+        public String getImageUrl() {
+            return imageUrl;
+        }
+
+        public Integer getOrderNumber() {
+            return orderNumber;
+        }
+
+        public Integer getTypoTolerance() {
+            return typoTolerance;
+        }
+
+        public List<AnswerDraft> getAnswers() {
+            return answers;
+        }
+    }
+
+    public static class AnswerDraft {
+        private final String content;
+        private final Boolean isCorrect;
+
+        public AnswerDraft(String content, Boolean isCorrect) {
+            this.content = content;
+            this.isCorrect = isCorrect;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public Boolean getIsCorrect() {
+            return isCorrect;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.benedict.duomonggo.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Everything the client needs to play a course: the course itself, its
+ * questions in order with their answers, and the player's enrollment.
+ */
+public class CoursePlayBundle {
+    private final Course course;
+    private final List<Question> questions;
+    private final Enrollment enrollment;
+
+    public CoursePlayBundle(Course course, List<Question> questions, Enrollment enrollment) {
+        this.course = course;
+        this.questions = questions;
+        this.enrollment = enrollment;
+    }
+
+    public Long getId() {
+        return course.getId();
+    }
+
+    public String getTitle() {
+        return course.getTitle();
+    }
+
+    public String getDescription() {
+        return course.getDescription();
+    }
+
+    public Difficulty getDifficulty() {
+        return course.getDifficulty();
+    }
+
+    public CourseType getCourseType() {
+        return course.getCourseType();
+    }
+
+    public LocalDateTime getDeadline() {
+        return course.getDeadline();
+    }
+
+    public Integer getExpReward() {
+        return course.getExpReward();
+    }
+
+    public List<Question> getQuestions() {
+        return questions;
+    }
+
+    public Long getEnrollmentId() {
+        return enrollment.getId();
+    }
+
+    public boolean isCompleted() {
+        return Boolean.TRUE.equals(enrollment.getIsCompleted());
+    }
+}
@@ -0,0 +1,60 @@
+package com.benedict.duomonggo.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields of a course that search indexes and returns.
+ */
+public class CourseSearchEntry {
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final Difficulty difficulty;
+    private final CourseType courseType;
+    private final LocalDateTime deadline;
+    private final Integer expReward;
+
+    public CourseSearchEntry(Long id, String title, String description, Difficulty difficulty, CourseType courseType,
+                             LocalDateTime deadline, Integer expReward) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.difficulty = difficulty;
+        this.courseType = courseType;
+        this.deadline = deadline;
+        this.expReward = expReward;
+    }
+
+    public static CourseSearchEntry from(Course course) {
+        return new CourseSearchEntry(course.getId(), course.getTitle(), course.getDescription(), course.getDifficulty(),
+                course.getCourseType(), course.getDeadline(), course.getExpReward());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public CourseType getCourseType() {
+        return courseType;
+    }
+
+    public LocalDateTime getDeadline() {
+        return deadline;
+    }
+
+    public Integer getExpReward() {
+        return expReward;
+    }
+}
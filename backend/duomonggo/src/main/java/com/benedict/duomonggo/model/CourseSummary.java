@@ -0,0 +1,77 @@
+package com.benedict.duomonggo.model;
+
+import java.time.LocalDateTime;
+
+public class CourseSummary {
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final Difficulty difficulty;
+    private final CourseType courseType;
+    private final LocalDateTime deadline;
+    private final Integer expReward;
+    private final LocalDateTime createdAt;
+    private final long questionCount;
+    private final long enrollmentCount;
+    private final long completionCount;
+
+    public CourseSummary(Long id, String title, String description, Difficulty difficulty, CourseType courseType,
+                         LocalDateTime deadline, Integer expReward, LocalDateTime createdAt,
+                         Long questionCount, Long enrollmentCount, Long completionCount) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.difficulty = difficulty;
+        this.courseType = courseType;
+        this.deadline = deadline;
+        this.expReward = expReward;
+        this.createdAt = createdAt;
+        this.questionCount = questionCount != null ? questionCount : 0;
+        this.enrollmentCount = enrollmentCount != null ? enrollmentCount : 0;
+        this.completionCount = completionCount != null ? completionCount : 0;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public CourseType getCourseType() {
+        return courseType;
+    }
+
+    public LocalDateTime getDeadline() {
+        return deadline;
+    }
+
+    public Integer getExpReward() {
+        return expReward;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getQuestionCount() {
+        return questionCount;
+    }
+
+    public long getEnrollmentCount() {
+        return enrollmentCount;
+    }
+
+    public long getCompletionCount() {
+        return completionCount;
+    }
+}
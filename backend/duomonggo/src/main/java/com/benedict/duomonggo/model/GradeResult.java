@@ -0,0 +1,37 @@
+package com.benedict.duomonggo.model;
+
+import java.util.List;
+
+/**
+ * The outcome of grading one submission, along with the correct answers so
+ * the player can be shown what they should have picked or typed.
+ */
+public class GradeResult {
+    private final Long questionId;
+    private final boolean correct;
+    private final List<Long> correctAnswerIds;
+    private final String correctAnswer;
+
+    public GradeResult(Long questionId, boolean correct, List<Long> correctAnswerIds, String correctAnswer) {
+        this.questionId = questionId;
+        this.correct = correct;
+        this.correctAnswerIds = correctAnswerIds;
+        this.correctAnswer = correctAnswer;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public boolean isCorrect() {
+        return correct;
+    }
+
+    public List<Long> getCorrectAnswerIds() {
+        return correctAnswerIds;
+    }
+
+    public String getCorrectAnswer() {
+        return correctAnswer;
+    }
+}
@@ -0,0 +1,120 @@
+package com.benedict.duomonggo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * An image accepted with a request and stored in the background. The client
+ * polls it by id until it is {@link Status#STORED} or {@link Status#FAILED}.
+ * <p>
+ * The image waits in a spool file, which is deleted when the upload ends,
+ * or on {@link #close()} if the upload was never started.
+ */
+public class ImageUpload implements AutoCloseable {
+    public enum Status {
+        QUEUED, UPLOADING, STORED, FAILED
+    }
+
+    private final String id;
+    private final String folder;
+    private final LocalDateTime createdAt;
+    private final Path file;
+    private volatile boolean started;
+    private volatile Status status = Status.QUEUED;
+    private volatile StoredImage image;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    public ImageUpload(String id, String folder, Path file) {
+        this.id = id;
+        this.folder = folder;
+        this.file = file;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public StoredImage getImage() {
+        return image;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    @JsonIgnore
+    public String getFolder() {
+        return folder;
+    }
+
+    @JsonIgnore
+    public Path getFile() {
+        return file;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.STORED || status == Status.FAILED;
+    }
+
+    /**
+     * Hands the spool file over to the upload, which deletes it when it ends.
+     */
+    public void started() {
+        started = true;
+    }
+
+    public void uploading() {
+        status = Status.UPLOADING;
+    }
+
+    public void stored(StoredImage image) {
+        this.image = image;
+        finish(Status.STORED);
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    @Override
+    public void close() {
+        if (!started) {
+            deleteFile();
+        }
+    }
+
+    private void finish(Status status) {
+        // The file is not needed once the upload is over, however it ended
+        deleteFile();
+        finishedAt = LocalDateTime.now();
+        this.status = status;
+    }
+
+    private void deleteFile() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left for the operating system's temp cleanup
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.benedict.duomonggo.model;
+
+public class LeaderboardEntry {
+    private final Long accountId;
+    private final String username;
+    private final String imageUrl;
+    private final String imageThumbnailUrl;
+    private final int exp;
+
+    public LeaderboardEntry(Long accountId, String username, String imageUrl, String imageThumbnailUrl, Integer exp) {
+        this.accountId = accountId;
+        this.username = username;
+        this.imageUrl = imageUrl;
+        this.imageThumbnailUrl = imageThumbnailUrl;
+        this.exp = exp != null ? exp : 0;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public String getImageThumbnailUrl() {
+        return imageThumbnailUrl;
+    }
+
+    public int getExp() {
+        return exp;
+    }
+}
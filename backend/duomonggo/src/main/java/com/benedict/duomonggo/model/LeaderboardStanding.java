@@ -0,0 +1,30 @@
+package com.benedict.duomonggo.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+public class LeaderboardStanding {
+    private final int rank;
+    private final int totalPlayers;
+
+    @JsonUnwrapped
+    private final LeaderboardEntry entry;
+
+    public LeaderboardStanding(int rank, int totalPlayers, LeaderboardEntry entry) {
+        this.rank = rank;
+        this.totalPlayers = totalPlayers;
+        this.entry = entry;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getTotalPlayers() {
+        return totalPlayers;
+    }
+
+    @JsonUnwrapped
+    public LeaderboardEntry getEntry() {
+        return entry;
+    }
+}
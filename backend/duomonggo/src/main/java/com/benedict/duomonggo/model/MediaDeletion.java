@@ -0,0 +1,65 @@
+package com.benedict.duomonggo.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored media file that no row uses any more, waiting to be deleted from
+ * the media store. Entries are written in the transaction that orphaned the
+ * file and removed once the file is gone.
+ */
+@Entity
+@Table(name = "media_deletions",
+       uniqueConstraints = {@UniqueConstraint(columnNames = {"url"})},
+       indexes = {@Index(columnList = "not_before")})
+public class MediaDeletion extends Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "url", nullable = false, length = 1024)
+    private String url;
+
+    // Not deleted before this time: the grace period at first, then the retry backoff
+    @Column(name = "not_before", nullable = false)
+    private LocalDateTime notBefore;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public MediaDeletion() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public LocalDateTime getNotBefore() {
+        return notBefore;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -1,5 +1,7 @@
 package com.benedict.duomonggo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.time.Duration;
@@ -12,10 +14,12 @@ public class Multiplayer extends Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id", nullable = false)
     private Course course;
@@ -39,18 +43,30 @@ public class Multiplayer extends Serializable {
         return id;
     }
 
+    @JsonIgnore
     public Account getAccount() {
         return account;
     }
 
+    @JsonProperty("accountId")
+    public Long getAccountId() {
+        return account != null ? account.getId() : null;
+    }
+
     public void setAccount(Account account) {
         this.account = account;
     }
 
+    @JsonIgnore
     public Course getCourse() {
         return course;
     }
 
+    @JsonProperty("courseId")
+    public Long getCourseId() {
+        return course != null ? course.getId() : null;
+    }
+
     public void setCourse(Course course) {
         this.course = course;
     }
@@ -0,0 +1,42 @@
+package com.benedict.duomonggo.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public class MultiplayerResult {
+    private final Long accountId;
+    private final String username;
+    private final long completionTime;
+    private final LocalDateTime completedAt;
+
+    public MultiplayerResult(Long accountId, String username, LocalDateTime startedAt, LocalDateTime completedAt) {
+        this(accountId, username, Duration.between(startedAt, completedAt).getSeconds(), completedAt);
+    }
+
+    public MultiplayerResult(Long accountId, String username, long completionTime, LocalDateTime completedAt) {
+        this.accountId = accountId;
+        this.username = username;
+        this.completionTime = completionTime;
+        this.completedAt = completedAt;
+    }
+
+    public MultiplayerResult withUsername(String username) {
+        return new MultiplayerResult(accountId, username, completionTime, completedAt);
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getCompletionTime() {
+        return completionTime;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+}
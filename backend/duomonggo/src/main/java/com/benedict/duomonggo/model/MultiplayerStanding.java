@@ -0,0 +1,41 @@
+package com.benedict.duomonggo.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+public class MultiplayerStanding {
+    private final int rank;
+    private final int totalPlayers;
+
+    @JsonUnwrapped
+    private final MultiplayerResult result;
+
+    public MultiplayerStanding(int rank, int totalPlayers, MultiplayerResult result) {
+        this.rank = rank;
+        this.totalPlayers = totalPlayers;
+        this.result = result;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getTotalPlayers() {
+        return totalPlayers;
+    }
+
+    /**
+     * Share of finishers that were as slow as or slower than this one, so the
+     * fastest player is at 100 and the slowest at 100 / totalPlayers.
+     */
+    public double getPercentile() {
+        if (totalPlayers == 0) {
+            return 0;
+        }
+        return Math.round((totalPlayers - rank + 1) * 10000.0 / totalPlayers) / 100.0;
+    }
+
+    @JsonUnwrapped
+    public MultiplayerResult getResult() {
+        return result;
+    }
+}
@@ -1,6 +1,7 @@
 package com.benedict.duomonggo.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -22,6 +23,18 @@ public class Question extends Serializable {
     @Column(name = "image_url")
     private String imageUrl;
 
+    // Smaller copies of the image, for pages that show it small
+    @Column(name = "image_medium_url")
+    private String imageMediumUrl;
+
+    @Column(name = "image_thumbnail_url")
+    private String imageThumbnailUrl;
+
+    // The upload whose image this question should end up with; older uploads that finish later are dropped
+    @Column(name = "image_upload_id")
+    @JsonIgnore
+    private String imageUploadId;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "question_type", nullable = false)
     private QuestionType questionType;
@@ -35,11 +48,17 @@ public class Question extends Serializable {
     private Course course;
 
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id ASC")
+    @JsonIgnore
     private List<Answer> answers = new ArrayList<>();
 
     @Column(name = "order_number", nullable = false)
     private Integer orderNumber;
 
+    // How many typos a short answer may contain and still be graded correct
+    @Column(name = "typo_tolerance", nullable = false, columnDefinition = "integer not null default 0")
+    private Integer typoTolerance = 0;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -90,6 +109,31 @@ public class Question extends Serializable {
         this.imageUrl = imageUrl;
     }
 
+    public String getImageMediumUrl() {
+        return imageMediumUrl;
+    }
+
+    public void setImageMediumUrl(String imageMediumUrl) {
+        this.imageMediumUrl = imageMediumUrl;
+    }
+
+    public String getImageThumbnailUrl() {
+        return imageThumbnailUrl;
+    }
+
+    public void setImageThumbnailUrl(String imageThumbnailUrl) {
+        this.imageThumbnailUrl = imageThumbnailUrl;
+    }
+
+    @JsonIgnore
+    public String getImageUploadId() {
+        return imageUploadId;
+    }
+
+    public void setImageUploadId(String imageUploadId) {
+        this.imageUploadId = imageUploadId;
+    }
+
     public QuestionType getQuestionType() {
         return questionType;
     }
@@ -119,10 +163,23 @@ public class Question extends Serializable {
         return course != null ? course.getId() : null;
     }
 
+    @JsonIgnore
     public List<Answer> getAnswers() {
         return answers;
     }
 
+    /**
+     * The answers as shown to players: choices without their correctness
+     * flags, and nothing at all for short-answer questions, whose answers are
+     * the accepted responses. Grading happens on the server; authoring reads
+     * the full answers from the answer endpoints.
+     */
+    @JsonProperty("answers")
+    @JsonIgnoreProperties("isCorrect")
+    public List<Answer> getChoices() {
+        return questionType == QuestionType.MULTIPLE_CHOICE ? answers : List.of();
+    }
+
     public void setAnswers(List<Answer> answers) {
         this.answers = answers;
     }
@@ -145,6 +202,14 @@ public class Question extends Serializable {
         this.orderNumber = orderNumber;
     }
 
+    public Integer getTypoTolerance() {
+        return typoTolerance;
+    }
+
+    public void setTypoTolerance(Integer typoTolerance) {
+        this.typoTolerance = typoTolerance;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,45 @@
+package com.benedict.duomonggo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the sizes of an uploaded image ended up. The full size is at most
+ * 1600 pixels on its longest edge, the medium size 640 and the thumbnail 128.
+ */
+public class StoredImage {
+    private final String url;
+    private final String mediumUrl;
+    private final String thumbnailUrl;
+
+    public StoredImage(String url, String mediumUrl, String thumbnailUrl) {
+        this.url = url;
+        this.mediumUrl = mediumUrl;
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getMediumUrl() {
+        return mediumUrl;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    /**
+     * The URLs that are set, full size first.
+     */
+    public List<String> urls() {
+        List<String> urls = new ArrayList<>(3);
+        for (String url : new String[]{this.url, mediumUrl, thumbnailUrl}) {
+            if (url != null) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+}
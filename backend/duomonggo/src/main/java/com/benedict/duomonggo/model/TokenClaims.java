@@ -0,0 +1,46 @@
+package com.benedict.duomonggo.model;
+
+public class TokenClaims {
+    public enum Type {
+        ACCESS,
+        REFRESH
+    }
+
+    private final Type type;
+    private final Long accountId;
+    private final Role role;
+    private final long issuedAt;
+    private final long expiresAt;
+
+    public TokenClaims(Type type, Long accountId, Role role, long issuedAt, long expiresAt) {
+        this.type = type;
+        this.accountId = accountId;
+        this.role = role;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
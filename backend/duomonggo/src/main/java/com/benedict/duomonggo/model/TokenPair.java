@@ -0,0 +1,25 @@
+package com.benedict.duomonggo.model;
+
+public class TokenPair {
+    private final String accessToken;
+    private final String refreshToken;
+    private final long accessTokenExpiresAt;
+
+    public TokenPair(String accessToken, String refreshToken, long accessTokenExpiresAt) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.accessTokenExpiresAt = accessTokenExpiresAt;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public long getAccessTokenExpiresAt() {
+        return accessTokenExpiresAt;
+    }
+}
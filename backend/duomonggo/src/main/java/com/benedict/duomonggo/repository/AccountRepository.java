@@ -1,11 +1,69 @@
 package com.benedict.duomonggo.repository;
 
 import com.benedict.duomonggo.model.Account;
+import com.benedict.duomonggo.model.AccountProfile;
+import com.benedict.duomonggo.model.AccountSummary;
+import com.benedict.duomonggo.model.LeaderboardEntry;
+import com.benedict.duomonggo.model.Role;
+import com.benedict.duomonggo.model.StoredImage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
+    interface Credentials {
+        String getUsername();
+        String getEmail();
+    }
+
     Account findByUsername(String username);
     Account findByEmail(String email);
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+    boolean existsByUsernameAndIdNot(String username, Long id);
+    boolean existsByEmailAndIdNot(String email, Long id);
+
+    @Query("SELECT a.username AS username, a.email AS email FROM Account a " +
+           "WHERE a.username IN :usernames OR a.email IN :emails")
+    List<Credentials> findCredentialsMatching(@Param("usernames") Collection<String> usernames,
+                                              @Param("emails") Collection<String> emails);
+
+    @Query("SELECT new com.benedict.duomonggo.model.AccountSummary(a.id, a.username, a.imageUrl, a.imageThumbnailUrl, a.role, a.exp) " +
+           "FROM Account a WHERE a.id > :after ORDER BY a.id")
+    List<AccountSummary> findSummariesAfter(@Param("after") Long after, Limit limit);
+
+    @Query("SELECT new com.benedict.duomonggo.model.AccountProfile(a.id, a.username, a.email, a.imageUrl, a.imageMediumUrl, a.imageThumbnailUrl, a.role, a.exp, a.createdAt) " +
+           "FROM Account a WHERE a.id = :id")
+    Optional<AccountProfile> findProfileById(@Param("id") Long id);
+
+    @Query("SELECT new com.benedict.duomonggo.model.LeaderboardEntry(a.id, a.username, a.imageUrl, a.imageThumbnailUrl, a.exp) " +
+           "FROM Account a WHERE a.role = :role")
+    List<LeaderboardEntry> findLeaderboardEntries(@Param("role") Role role);
+
+    @Query("SELECT new com.benedict.duomonggo.model.LeaderboardEntry(a.id, a.username, a.imageUrl, a.imageThumbnailUrl, a.exp) " +
+           "FROM Account a WHERE a.id IN :ids AND a.role = :role")
+    List<LeaderboardEntry> findLeaderboardEntriesByIds(@Param("ids") Collection<Long> ids, @Param("role") Role role);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.exp = a.exp + " +
+           "(SELECT COALESCE(c.expReward, 0) FROM Course c WHERE c.id = :courseId) " +
+           "WHERE a.id = :accountId")
+    int addCourseReward(@Param("accountId") Long accountId, @Param("courseId") Long courseId);
+
+    @Query("SELECT new com.benedict.duomonggo.model.StoredImage(a.imageUrl, a.imageMediumUrl, a.imageThumbnailUrl) " +
+           "FROM Account a WHERE a.id = :id")
+    Optional<StoredImage> findImageById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.imageUrl = :#{#image.url}, a.imageMediumUrl = :#{#image.mediumUrl}, " +
+           "a.imageThumbnailUrl = :#{#image.thumbnailUrl} WHERE a.id = :id AND a.imageUploadId = :uploadId")
+    int updateImage(@Param("id") Long id, @Param("uploadId") String uploadId, @Param("image") StoredImage image);
 }
@@ -2,14 +2,25 @@ package com.benedict.duomonggo.repository;
 
 import com.benedict.duomonggo.model.Answer;
 import com.benedict.duomonggo.model.Question;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AnswerRepository extends JpaRepository<Answer, Long> {
     List<Answer> findByQuestion(Question question);
     List<Answer> findByQuestion_Id(Long questionId);
-    void deleteByQuestion_Id(Long questionId);
+    @Modifying
+    @Query("DELETE FROM Answer a WHERE a.question.id = :questionId")
+    void deleteByQuestion_Id(@Param("questionId") Long questionId);
+    List<Answer> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    @Query("SELECT a.question.course.id FROM Answer a WHERE a.id = :id")
+    Optional<Long> findCourseIdById(@Param("id") Long id);
 }
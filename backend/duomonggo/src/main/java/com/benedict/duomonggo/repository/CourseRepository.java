@@ -1,16 +1,55 @@
 package com.benedict.duomonggo.repository;
 
 import com.benedict.duomonggo.model.Course;
+import com.benedict.duomonggo.model.CourseSearchEntry;
+import com.benedict.duomonggo.model.CourseSummary;
 import com.benedict.duomonggo.model.Difficulty;
 import com.benedict.duomonggo.model.CourseType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
+    String SUMMARY_SELECT =
+            "SELECT new com.benedict.duomonggo.model.CourseSummary(c.id, c.title, c.description, c.difficulty, " +
+            "c.courseType, c.deadline, c.expReward, c.createdAt, " +
+            "(SELECT COUNT(q) FROM Question q WHERE q.course = c), " +
+            "(SELECT COUNT(e) FROM Enrollment e WHERE e.course = c), " +
+            "(SELECT COUNT(e) FROM Enrollment e WHERE e.course = c AND e.isCompleted = true)) " +
+            "FROM Course c ";
+
     List<Course> findByDifficulty(Difficulty difficulty);
     List<Course> findByTitleContaining(String title);
     List<Course> findByCourseType(CourseType courseType);
+
+    @Query(SUMMARY_SELECT + "WHERE c.id > :after ORDER BY c.id")
+    List<CourseSummary> findSummariesAfter(@Param("after") Long after, Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE c.courseType = :courseType ORDER BY c.id")
+    List<CourseSummary> findSummariesByCourseType(@Param("courseType") CourseType courseType);
+
+    @Query(SUMMARY_SELECT + "WHERE c.id = :id")
+    Optional<CourseSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("SELECT new com.benedict.duomonggo.model.CourseSearchEntry(c.id, c.title, c.description, c.difficulty, " +
+           "c.courseType, c.deadline, c.expReward) FROM Course c")
+    List<CourseSearchEntry> findSearchEntries();
+
+    // Locks the course row so changes to its list of questions run one at a time
+    @Query(value = "SELECT id FROM courses WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    @Query("SELECT c.contentVersion FROM Course c WHERE c.id = :id")
+    Optional<Long> findContentVersionById(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Course c SET c.contentVersion = c.contentVersion + 1 WHERE c.id = :id")
+    int bumpContentVersion(@Param("id") Long id);
 }
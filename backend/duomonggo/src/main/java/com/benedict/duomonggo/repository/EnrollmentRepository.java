@@ -2,6 +2,7 @@ package com.benedict.duomonggo.repository;
 
 import com.benedict.duomonggo.model.Enrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,4 +13,9 @@ import java.util.Optional;
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     @Query("SELECT e FROM Enrollment e WHERE e.account.id = :accountId AND e.course.id = :courseId")
     Optional<Enrollment> findByAccountIdAndCourseId(@Param("accountId") Long accountId, @Param("courseId") Long courseId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Enrollment e SET e.isCompleted = true " +
+           "WHERE e.account.id = :accountId AND e.course.id = :courseId AND e.isCompleted = false")
+    int markCompleted(@Param("accountId") Long accountId, @Param("courseId") Long courseId);
 }
@@ -0,0 +1,72 @@
+package com.benedict.duomonggo.repository;
+
+import com.benedict.duomonggo.model.MediaDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MediaDeletionRepository extends JpaRepository<MediaDeletion, Long> {
+    /**
+     * Queues the URLs for deletion once {@code delaySeconds} have passed.
+     * URLs already queued keep their place.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO media_deletions (url, not_before, attempts, created_at) " +
+                   "SELECT u.url, LOCALTIMESTAMP + make_interval(secs => :delaySeconds), 0, LOCALTIMESTAMP " +
+                   "FROM unnest(CAST(:urls AS varchar[])) AS u(url) " +
+                   "ON CONFLICT (url) DO NOTHING",
+           nativeQuery = true)
+    int enqueue(@Param("urls") String[] urls, @Param("delaySeconds") long delaySeconds);
+
+    /**
+     * Which of the given URL paths an account or question still uses. Paths
+     * rather than full URLs are compared, so a change of media host does not
+     * make every file look unused.
+     */
+    @Query(value = "SELECT DISTINCT p.path FROM unnest(CAST(:paths AS varchar[])) AS p(path) " +
+                   "JOIN (SELECT regexp_replace(r.url, '^[A-Za-z][A-Za-z0-9+.-]*://[^/]*', '') AS path FROM (" +
+                   "    SELECT i.url FROM questions q " +
+                   "    CROSS JOIN LATERAL (VALUES (q.image_url), (q.image_medium_url), (q.image_thumbnail_url)) AS i(url) " +
+                   "    UNION ALL " +
+                   "    SELECT i.url FROM account a " +
+                   "    CROSS JOIN LATERAL (VALUES (a.image_url), (a.image_medium_url), (a.image_thumbnail_url)) AS i(url)" +
+                   ") r WHERE r.url IS NOT NULL) used ON used.path = p.path",
+           nativeQuery = true)
+    List<String> findUsedPaths(@Param("paths") String[] paths);
+
+    @Modifying
+    @Query(value = "UPDATE media_deletions SET not_before = LOCALTIMESTAMP + make_interval(secs => :delaySeconds), " +
+                   "last_error = :error WHERE id = :id",
+           nativeQuery = true)
+    int retryLater(@Param("id") Long id, @Param("delaySeconds") long delaySeconds, @Param("error") String error);
+
+    /**
+     * Locks a queued entry while its file is deleted. Empty if the entry has
+     * been cancelled in the meantime.
+     */
+    @Query(value = "SELECT id FROM media_deletions WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    /**
+     * Drops queued entries for files named by the given content hash, the
+     * last path segment of every URL a store hands out. Waits for an entry
+     * that is being deleted right now.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM media_deletions WHERE url LIKE '%/' || :hash || '%'", nativeQuery = true)
+    int cancelByContentHash(@Param("hash") String hash);
+
+    /**
+     * Drops queued entries for exactly these URLs, waiting for an entry that
+     * is being deleted right now.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM media_deletions WHERE url = ANY(CAST(:urls AS varchar[]))", nativeQuery = true)
+    int cancelByUrls(@Param("urls") String[] urls);
+}
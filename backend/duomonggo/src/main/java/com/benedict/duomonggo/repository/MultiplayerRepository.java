@@ -1,7 +1,10 @@
 package com.benedict.duomonggo.repository;
 
 import com.benedict.duomonggo.model.Multiplayer;
+import com.benedict.duomonggo.model.MultiplayerResult;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,7 +12,11 @@ import java.util.Optional;
 
 @Repository
 public interface MultiplayerRepository extends JpaRepository<Multiplayer, Long> {
-    Optional<Multiplayer> findByAccountIdAndCourseId(Long accountId, Long courseId);
-    boolean existsByAccountIdAndCourseId(Long accountId, Long courseId);
-    List<Multiplayer> findByCourseIdAndCompletedAtIsNotNull(Long courseId);
+    Optional<Multiplayer> findByAccount_IdAndCourse_Id(Long accountId, Long courseId);
+    boolean existsByAccount_IdAndCourse_Id(Long accountId, Long courseId);
+
+    @Query("SELECT new com.benedict.duomonggo.model.MultiplayerResult(a.id, a.username, m.startedAt, m.completedAt) " +
+           "FROM Multiplayer m JOIN m.account a " +
+           "WHERE m.course.id = :courseId AND m.completedAt IS NOT NULL")
+    List<MultiplayerResult> findResultsByCourseId(@Param("courseId") Long courseId);
 }
@@ -2,14 +2,56 @@ package com.benedict.duomonggo.repository;
 
 import com.benedict.duomonggo.model.Course;
 import com.benedict.duomonggo.model.Question;
+import com.benedict.duomonggo.model.StoredImage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long> {
     List<Question> findByCourseOrderByOrderNumberAsc(Course course);
-    List<Question> findByCourse_IdOrderByOrderNumberAsc(Long courseId);
+    List<Question> findByCourse_IdOrderByOrderNumberAscIdAsc(Long courseId);
     long countByCourse_Id(Long courseId);
+    List<Question> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    @Query("SELECT DISTINCT q FROM Question q LEFT JOIN FETCH q.answers a " +
+           "WHERE q.course.id = :courseId ORDER BY q.orderNumber, q.id, a.id")
+    List<Question> findWithAnswersByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT q.course.id FROM Question q WHERE q.id = :id")
+    Optional<Long> findCourseIdById(@Param("id") Long id);
+
+    @Query("SELECT new com.benedict.duomonggo.model.StoredImage(q.imageUrl, q.imageMediumUrl, q.imageThumbnailUrl) " +
+           "FROM Question q WHERE q.id = :id")
+    Optional<StoredImage> findImageById(@Param("id") Long id);
+
+    @Query("SELECT new com.benedict.duomonggo.model.StoredImage(q.imageUrl, q.imageMediumUrl, q.imageThumbnailUrl) " +
+           "FROM Question q WHERE q.course.id = :courseId AND q.imageUrl IS NOT NULL")
+    List<StoredImage> findImagesByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT q.id FROM Question q WHERE q.course.id = :courseId")
+    List<Long> findIdsByCourseId(@Param("courseId") Long courseId);
+
+    /**
+     * Gives each question its position in {@code questionIds} as its order
+     * number, in one statement. Rows already in the right place are left
+     * alone, so moving one question only touches the ones it passes.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE questions q SET order_number = CAST(v.position AS integer) " +
+                   "FROM unnest(CAST(:questionIds AS bigint[])) WITH ORDINALITY AS v(id, position) " +
+                   "WHERE q.id = v.id AND q.course_id = :courseId AND q.order_number <> v.position",
+           nativeQuery = true)
+    int applyOrder(@Param("courseId") Long courseId, @Param("questionIds") Long[] questionIds);
+
+    @Modifying
+    @Query("UPDATE Question q SET q.imageUrl = :#{#image.url}, q.imageMediumUrl = :#{#image.mediumUrl}, " +
+           "q.imageThumbnailUrl = :#{#image.thumbnailUrl} WHERE q.id = :id AND q.imageUploadId = :uploadId")
+    int updateImage(@Param("id") Long id, @Param("uploadId") String uploadId, @Param("image") StoredImage image);
 }
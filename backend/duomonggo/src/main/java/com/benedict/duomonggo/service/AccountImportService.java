@@ -0,0 +1,175 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.AccountImportResult;
+import com.benedict.duomonggo.model.AccountImportRow;
+import com.benedict.duomonggo.model.Role;
+import com.benedict.duomonggo.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates accounts in bulk with the same rules as registration: unique
+ * username and email, BCrypt-hashed password, role defaulting to USER and
+ * zero EXP. The cost per row is one hash; the database sees a single
+ * uniqueness query and a single insert for the whole request.
+ */
+@Service
+public class AccountImportService {
+    // Rows that lose a race with a concurrent registration are skipped by ON CONFLICT and simply not returned
+    private static final String INSERT_ACCOUNTS_SQL =
+            "INSERT INTO account (username, password, email, role, exp, created_at) " +
+            "SELECT t.username, t.password, t.email, t.role, 0, LOCALTIMESTAMP " +
+            "FROM unnest(?, ?, ?, ?) AS t(username, password, email, role) " +
+            "ON CONFLICT DO NOTHING " +
+            "RETURNING id, username";
+
+    private final AccountRepository accountRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final LeaderboardService leaderboardService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxRows;
+
+    @Autowired
+    public AccountImportService(AccountRepository accountRepository, PasswordHashingService passwordHashingService,
+                                LeaderboardService leaderboardService, JdbcTemplate jdbcTemplate,
+                                @Value("${duomonggo.accounts.import.max-rows:5000}") int maxRows) {
+        this.accountRepository = accountRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.leaderboardService = leaderboardService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxRows = maxRows;
+    }
+
+    public List<AccountImportResult> importAccounts(List<AccountImportRow> rows) {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("No accounts to import");
+        }
+        if (rows.size() > maxRows) {
+            throw new IllegalArgumentException("At most " + maxRows + " accounts can be imported at once");
+        }
+
+        List<AccountImportResult> results = new ArrayList<>(rows.size());
+        Role[] roles = new Role[rows.size()];
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            AccountImportRow row = rows.get(i);
+            AccountImportResult result = new AccountImportResult(i + 1, row.getUsername());
+            results.add(result);
+
+            if (isBlank(row.getUsername()) || isBlank(row.getPassword()) || isBlank(row.getEmail())) {
+                result.rejected(AccountImportResult.Status.INVALID, "Username, password and email are required");
+                continue;
+            }
+            try {
+                roles[i] = isBlank(row.getRole()) ? Role.USER : Role.valueOf(row.getRole().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                result.rejected(AccountImportResult.Status.INVALID, "Unknown role: " + row.getRole());
+                continue;
+            }
+            if (!usernames.add(row.getUsername())) {
+                result.rejected(AccountImportResult.Status.DUPLICATE_IN_REQUEST, "Username appears more than once in this import");
+            } else if (!emails.add(row.getEmail())) {
+                result.rejected(AccountImportResult.Status.DUPLICATE_IN_REQUEST, "Email appears more than once in this import");
+            }
+        }
+
+        rejectTakenCredentials(rows, results, usernames, emails);
+
+        List<Integer> pending = new ArrayList<>();
+        for (AccountImportResult result : results) {
+            if (result.isPending()) {
+                pending.add(result.getRow() - 1);
+            }
+        }
+        if (pending.isEmpty()) {
+            return results;
+        }
+
+        List<String> passwords = pending.stream().map(i -> rows.get(i).getPassword()).toList();
+        List<String> hashes = passwordHashingService.encodeAll(passwords);
+
+        Map<String, Long> createdIds = insert(rows, roles, pending, hashes);
+        List<Long> created = new ArrayList<>();
+        for (int i : pending) {
+            AccountImportRow row = rows.get(i);
+            Long accountId = createdIds.get(row.getUsername());
+            if (accountId == null) {
+                results.get(i).rejected(AccountImportResult.Status.CONFLICT, "Username or email was taken while importing");
+                continue;
+            }
+            results.get(i).created(accountId);
+            created.add(accountId);
+        }
+        leaderboardService.accountsChanged(created);
+        return results;
+    }
+
+    private void rejectTakenCredentials(List<AccountImportRow> rows, List<AccountImportResult> results,
+                                        Set<String> usernames, Set<String> emails) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        for (AccountRepository.Credentials taken : accountRepository.findCredentialsMatching(usernames, emails)) {
+            takenUsernames.add(taken.getUsername());
+            takenEmails.add(taken.getEmail());
+        }
+
+        for (AccountImportResult result : results) {
+            if (!result.isPending()) {
+                continue;
+            }
+            AccountImportRow row = rows.get(result.getRow() - 1);
+            if (takenUsernames.contains(row.getUsername())) {
+                result.rejected(AccountImportResult.Status.USERNAME_TAKEN, "Username already exists");
+            } else if (takenEmails.contains(row.getEmail())) {
+                result.rejected(AccountImportResult.Status.EMAIL_TAKEN, "Email already exists");
+            }
+        }
+    }
+
+    private Map<String, Long> insert(List<AccountImportRow> rows, Role[] roles, List<Integer> pending, List<String> hashes) {
+        int size = pending.size();
+        String[] usernames = new String[size];
+        String[] passwords = new String[size];
+        String[] emails = new String[size];
+        String[] roleNames = new String[size];
+        for (int j = 0; j < size; j++) {
+            int i = pending.get(j);
+            usernames[j] = rows.get(i).getUsername();
+            passwords[j] = hashes.get(j);
+            emails[j] = rows.get(i).getEmail();
+            roleNames[j] = roles[i].name();
+        }
+
+        Map<String, Long> createdIds = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_ACCOUNTS_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", usernames));
+            statement.setArray(2, connection.createArrayOf("varchar", passwords));
+            statement.setArray(3, connection.createArrayOf("varchar", emails));
+            statement.setArray(4, connection.createArrayOf("varchar", roleNames));
+            return statement;
+        }, resultSet -> {
+            createdIds.put(resultSet.getString("username"), resultSet.getLong("id"));
+        });
+        return createdIds;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
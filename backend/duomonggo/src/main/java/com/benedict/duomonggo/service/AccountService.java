@@ -1,101 +1,188 @@
 package com.benedict.duomonggo.service;
 
 import com.benedict.duomonggo.model.Account;
+import com.benedict.duomonggo.model.AccountProfile;
+import com.benedict.duomonggo.model.AccountSummary;
+import com.benedict.duomonggo.model.ImageUpload;
 import com.benedict.duomonggo.model.Role;
+import com.benedict.duomonggo.model.StoredImage;
 import com.benedict.duomonggo.repository.AccountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class AccountService {
     private final AccountRepository accountRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final CloudinaryService cloudinaryService;
+    private final PasswordHashingService passwordHashingService;
+    private final ImageUploadService imageUploadService;
+    private final LeaderboardService leaderboardService;
+    private final MultiplayerRankingService multiplayerRankingService;
+    private final TokenService tokenService;
+    private final MediaCleanupService mediaCleanupService;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public AccountService(AccountRepository accountRepository, PasswordEncoder passwordEncoder, CloudinaryService cloudinaryService) {
+    public AccountService(AccountRepository accountRepository, PasswordHashingService passwordHashingService,
+                          ImageUploadService imageUploadService, LeaderboardService leaderboardService,
+                          MultiplayerRankingService multiplayerRankingService, TokenService tokenService,
+                          MediaCleanupService mediaCleanupService, PlatformTransactionManager transactionManager) {
         this.accountRepository = accountRepository;
-        this.passwordEncoder = passwordEncoder;
-        this.cloudinaryService = cloudinaryService;
+        this.passwordHashingService = passwordHashingService;
+        this.imageUploadService = imageUploadService;
+        this.leaderboardService = leaderboardService;
+        this.multiplayerRankingService = multiplayerRankingService;
+        this.tokenService = tokenService;
+        this.mediaCleanupService = mediaCleanupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    public List<Account> getAllAccounts() {
-        return accountRepository.findAll();
+    public List<AccountSummary> getAccountsAfter(Long after, int limit) {
+        return accountRepository.findSummariesAfter(after, Limit.of(limit));
     }
 
     public Optional<Account> getAccountById(Long id) {
         return accountRepository.findById(id);
     }
 
-    public Account getAccountByUsername(String username) {
-        return accountRepository.findByUsername(username);
+    public Optional<AccountProfile> getAccountProfile(Long id) {
+        return accountRepository.findProfileById(id);
     }
 
     public Account getAccountByEmail(String email) {
         return accountRepository.findByEmail(email);
     }
 
-    @Transactional
+    private boolean isUsernameTaken(String username, Long excludedAccountId) {
+        return excludedAccountId == null
+                ? accountRepository.existsByUsername(username)
+                : accountRepository.existsByUsernameAndIdNot(username, excludedAccountId);
+    }
+
+    private boolean isEmailTaken(String email, Long excludedAccountId) {
+        return excludedAccountId == null
+                ? accountRepository.existsByEmail(email)
+                : accountRepository.existsByEmailAndIdNot(email, excludedAccountId);
+    }
+
+    /**
+     * Hashes the password before touching the database, so no connection is
+     * held while the hash waits for the pool, then checks the username and
+     * email and saves the account in a short transaction.
+     *
+     * @throws ResponseStatusException 409 if the username or email is taken
+     */
     public Account createAccount(String username, String password, String email, Role role) {
-        String hashedPassword = passwordEncoder.encode(password);
-        Account account = new Account(username, hashedPassword, email, role, 0, null);
-        return accountRepository.save(account);
+        String hashedPassword = passwordHashingService.hash(password);
+        return transactionTemplate.execute(status -> {
+            rejectTakenCredentials(username, email, null);
+            Account account = accountRepository.save(new Account(username, hashedPassword, email, role, 0, null));
+            leaderboardService.accountChanged(account.getId());
+            return account;
+        });
     }
 
-    @Transactional
-    public Account updateAccount(Long id, String username, String email, Role role, Integer exp, MultipartFile image, String password) {
-        try {
+    /**
+     * Changes the non-null fields of an account. A new password is hashed
+     * before the transaction starts, as in {@link #createAccount}.
+     *
+     * @throws ResponseStatusException 409 if the new username or email is taken
+     */
+    public Account updateAccount(Long id, String username, String email, Role role, Integer exp, ImageUpload image, String password) {
+        String hashedPassword = password != null ? passwordHashingService.hash(password) : null;
+        return transactionTemplate.execute(status -> {
+            rejectTakenCredentials(username, email, id);
             Optional<Account> optionalAccount = accountRepository.findById(id);
             if (optionalAccount.isPresent()) {
                 Account account = optionalAccount.get();
-                if (username != null) {
+                if (username != null && !username.equals(account.getUsername())) {
                     account.setUsername(username);
+                    multiplayerRankingService.accountRenamed(id, username);
                 }
                 if (email != null) {
                     account.setEmail(email);
                 }
-                if (role != null) {
+                if (role != null && role != account.getRole()) {
                     account.setRole(role);
+                    TransactionHooks.afterCommit(() -> tokenService.revoke(id));
                 }
                 if (exp != null) {
                     account.setExp(exp);
                 }
-                if (password != null) {
-                    account.setPassword(passwordEncoder.encode(password));
+                if (hashedPassword != null) {
+                    account.setPassword(hashedPassword);
+                    TransactionHooks.afterCommit(() -> tokenService.revoke(id));
                 }
 
-                // Handle image upload
-                if (image != null && !image.isEmpty()) {
-                    String imageUrl = cloudinaryService.uploadImage(image, "accounts");
-                    account.setImageUrl(imageUrl);
+                // The image is uploaded once this change commits
+                if (image != null) {
+                    account.setImageUploadId(image.getId());
+                    imageUploadService.startAfterCommit(image, url -> accountImageStored(id, image.getId(), url));
                 }
 
-                return accountRepository.save(account);
+                account = accountRepository.save(account);
+                leaderboardService.accountChanged(id);
+                return account;
             }
             return null;
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to upload image: " + e.getMessage(), e);
+        });
+    }
+
+    private void rejectTakenCredentials(String username, String email, Long accountId) {
+        if (username != null && !username.isEmpty() && isUsernameTaken(username, accountId)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Username already exists");
+        }
+        if (email != null && !email.isEmpty() && isEmailTaken(email, accountId)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Email already exists");
+        }
+    }
+
+    private void accountImageStored(Long id, String uploadId, StoredImage image) {
+        StoredImage previous = accountRepository.findImageById(id).orElse(null);
+        if (accountRepository.updateImage(id, uploadId, image) == 0) {
+            // The account was deleted, or a later change gave it another upload, while the image was on its way
+            mediaCleanupService.orphaned(image);
+            return;
         }
+        mediaCleanupService.replaced(previous, image);
+        leaderboardService.accountChanged(id);
     }
 
     @Transactional
     public boolean deleteAccount(Long id) {
-        if (accountRepository.existsById(id)) {
+        Optional<StoredImage> image = accountRepository.findImageById(id);
+        if (image.isPresent()) {
             accountRepository.deleteById(id);
+            mediaCleanupService.orphaned(image.get());
+            leaderboardService.accountRemoved(id);
+            TransactionHooks.afterCommit(() -> tokenService.revoke(id));
             return true;
         }
         return false;
     }
 
-    public boolean authenticateAccount(String username, String password) {
-        Account account = accountRepository.findByUsername(username);
-        return account != null && passwordEncoder.matches(password, account.getPassword());
+    /**
+     * Looks the account up once and verifies the password on the hashing pool.
+     * Completes with the account when the credentials match, or empty otherwise.
+     * The lookup is its own transaction, so no connection is held while the
+     * hash waits for the pool; nothing may be lazily loaded from the account
+     * afterwards.
+     */
+    public CompletableFuture<Optional<Account>> authenticate(String username, String password) {
+        Account account = username == null ? null : accountRepository.findByUsername(username);
+        if (account == null || password == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return passwordHashingService.matches(password, account.getPassword())
+                .thenApply(matches -> matches ? Optional.of(account) : Optional.<Account>empty());
     }
 }
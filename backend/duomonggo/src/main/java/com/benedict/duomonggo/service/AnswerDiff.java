@@ -0,0 +1,112 @@
+package com.benedict.duomonggo.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * The writes that turn a question's stored answers into a submitted list.
+ * Submitted answers that carry an id are matched to that answer; the rest
+ * are matched to a stored answer with the same text, so an unchanged choice
+ * keeps its id even when the client does not send ids. An id is never given
+ * to different text: without an id, an edited choice is a new answer and
+ * the one it replaces is deleted.
+ */
+final class AnswerDiff {
+    private final List<Long> deletions = new ArrayList<>();
+    private final List<Choice> updates = new ArrayList<>();
+    private final List<Choice> insertions = new ArrayList<>();
+
+    private AnswerDiff() {
+    }
+
+    /**
+     * @param stored    the question's answers as they are now, each with its id
+     * @param submitted the answers the question should end up with
+     * @throws IllegalArgumentException if a submitted id is not one of the stored answers, or is given twice
+     */
+    static AnswerDiff between(List<Choice> stored, List<Choice> submitted) {
+        AnswerDiff diff = new AnswerDiff();
+        Map<Long, Choice> unclaimed = new LinkedHashMap<>();
+        for (Choice answer : stored) {
+            unclaimed.put(answer.id(), answer);
+        }
+
+        List<Choice> withoutId = new ArrayList<>();
+        for (Choice answer : submitted) {
+            if (answer.id() == null) {
+                withoutId.add(answer);
+                continue;
+            }
+            Choice current = unclaimed.remove(answer.id());
+            if (current == null) {
+                throw new IllegalArgumentException("Answer " + answer.id() + " is not an answer of this question or is listed twice");
+            }
+            diff.updateIfChanged(current, answer);
+        }
+
+        // Identical answers are claimed before answers whose text matches, so a
+        // choice that only changed correctness does not take another's id
+        List<Choice> unmatched = new ArrayList<>();
+        for (Choice answer : withoutId) {
+            if (claim(unclaimed, current -> sameContent(current, answer)) == null) {
+                unmatched.add(answer);
+            }
+        }
+        for (Choice answer : unmatched) {
+            Choice current = claim(unclaimed, candidate -> Objects.equals(candidate.content(), answer.content()));
+            if (current != null) {
+                diff.updates.add(new Choice(current.id(), answer.content(), answer.isCorrect()));
+            } else {
+                diff.insertions.add(answer);
+            }
+        }
+        unclaimed.keySet().forEach(diff.deletions::add);
+        return diff;
+    }
+
+    private static Choice claim(Map<Long, Choice> unclaimed, Predicate<Choice> matches) {
+        Iterator<Choice> candidates = unclaimed.values().iterator();
+        while (candidates.hasNext()) {
+            Choice candidate = candidates.next();
+            if (matches.test(candidate)) {
+                candidates.remove();
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void updateIfChanged(Choice current, Choice answer) {
+        if (!sameContent(current, answer)) {
+            updates.add(new Choice(current.id(), answer.content(), answer.isCorrect()));
+        }
+    }
+
+    private static boolean sameContent(Choice a, Choice b) {
+        return Objects.equals(a.content(), b.content()) && a.isCorrect() == b.isCorrect();
+    }
+
+    List<Long> getDeletions() {
+        return deletions;
+    }
+
+    List<Choice> getUpdates() {
+        return updates;
+    }
+
+    List<Choice> getInsertions() {
+        return insertions;
+    }
+
+    boolean isEmpty() {
+        return deletions.isEmpty() && updates.isEmpty() && insertions.isEmpty();
+    }
+
+    record Choice(Long id, String content, boolean isCorrect) {
+    }
+}
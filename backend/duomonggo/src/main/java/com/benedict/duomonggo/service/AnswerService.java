@@ -5,25 +5,45 @@ import com.benedict.duomonggo.model.Question;
 import com.benedict.duomonggo.repository.AnswerRepository;
 import com.benedict.duomonggo.repository.QuestionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class AnswerService {
+    private static final String SELECT_ANSWERS_SQL =
+            "SELECT id, content, is_correct FROM answers WHERE question_id = ? ORDER BY id";
+    private static final String UPDATE_ANSWERS_SQL =
+            "UPDATE answers a SET content = t.content, normalized_content = t.normalized_content, is_correct = t.is_correct " +
+            "FROM unnest(?, ?, ?, ?) AS t(id, content, normalized_content, is_correct) " +
+            "WHERE a.id = t.id";
+    private static final String INSERT_ANSWERS_SQL =
+            "INSERT INTO answers (content, normalized_content, is_correct, question_id, created_at) " +
+            "SELECT t.content, t.normalized_content, t.is_correct, ?, LOCALTIMESTAMP " +
+            "FROM unnest(?, ?, ?) AS t(content, normalized_content, is_correct)";
+
     private final AnswerRepository answerRepository;
     private final QuestionRepository questionRepository;
+    private final CourseContentVersions courseContentVersions;
+    private final JdbcTemplate jdbcTemplate;
 
     @Autowired
-    public AnswerService(AnswerRepository answerRepository, QuestionRepository questionRepository) {
+    public AnswerService(AnswerRepository answerRepository, QuestionRepository questionRepository,
+                         CourseContentVersions courseContentVersions, JdbcTemplate jdbcTemplate) {
         this.answerRepository = answerRepository;
         this.questionRepository = questionRepository;
+        this.courseContentVersions = courseContentVersions;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
-    public List<Answer> getAllAnswers() {
-        return answerRepository.findAll();
+    public List<Answer> getAnswersAfter(Long after, int limit) {
+        return answerRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit));
     }
 
     public Optional<Answer> getAnswerById(Long id) {
@@ -43,8 +63,9 @@ public class AnswerService {
         Optional<Question> questionOptional = questionRepository.findById(questionId);
         if (questionOptional.isPresent()) {
             Question question = questionOptional.get();
-            Answer answer = new Answer(content, isCorrect, question);
-            return answerRepository.save(answer);
+            Answer answer = answerRepository.save(new Answer(content, isCorrect, question));
+            courseContentVersions.bump(question.getCourse().getId());
+            return answer;
         }
         return null;
     }
@@ -56,18 +77,103 @@ public class AnswerService {
             Answer answer = optionalAnswer.get();
             answer.setContent(content);
             answer.setIsCorrect(isCorrect);
-            return answerRepository.save(answer);
+            answer = answerRepository.save(answer);
+            courseContentVersions.bump(answer.getQuestion().getCourse().getId());
+            return answer;
         }
         return null;
     }
 
     @Transactional
     public void deleteAnswer(Long id) {
+        Optional<Long> courseId = answerRepository.findCourseIdById(id);
         answerRepository.deleteById(id);
+        courseId.ifPresent(courseContentVersions::bump);
     }
 
     @Transactional
     public void deleteAnswersByQuestionId(Long questionId) {
         answerRepository.deleteByQuestion_Id(questionId);
+        questionRepository.findCourseIdById(questionId).ifPresent(courseContentVersions::bump);
+    }
+
+    /**
+     * Makes the question's answers match {@code answers}, each a map with
+     * {@code content}, {@code isCorrect} and optionally the {@code id} of the
+     * answer it replaces. Unchanged answers are not written, so their ids
+     * stay stable. Returns null if the question does not exist.
+     */
+    @Transactional
+    public List<Answer> replaceAnswers(Long questionId, List<Map<String, Object>> answers) {
+        Optional<Long> courseId = questionRepository.findCourseIdById(questionId);
+        if (courseId.isEmpty()) {
+            return null;
+        }
+        if (syncAnswers(questionId, answers)) {
+            courseContentVersions.bump(courseId.get());
+        }
+        return answerRepository.findByQuestion_Id(questionId);
+    }
+
+    /**
+     * Applies the difference between the stored and the submitted answers in
+     * at most three statements: one delete, one update and one insert. The
+     * caller bumps the course's content version when this returns true.
+     */
+    boolean syncAnswers(Long questionId, List<Map<String, Object>> answers) {
+        List<AnswerDiff.Choice> stored = jdbcTemplate.query(SELECT_ANSWERS_SQL,
+                (rs, row) -> new AnswerDiff.Choice(rs.getLong("id"), rs.getString("content"), rs.getBoolean("is_correct")),
+                questionId);
+        List<AnswerDiff.Choice> submitted = answers.stream().map(AnswerService::toChoice).toList();
+        AnswerDiff diff = AnswerDiff.between(stored, submitted);
+
+        if (!diff.getDeletions().isEmpty()) {
+            answerRepository.deleteAllByIdInBatch(diff.getDeletions());
+        }
+        if (!diff.getUpdates().isEmpty()) {
+            List<AnswerDiff.Choice> updates = diff.getUpdates();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(UPDATE_ANSWERS_SQL);
+                statement.setArray(1, connection.createArrayOf("bigint", updates.stream().map(AnswerDiff.Choice::id).toArray()));
+                statement.setArray(2, connection.createArrayOf("text", contents(updates)));
+                statement.setArray(3, connection.createArrayOf("text", normalizedContents(updates)));
+                statement.setArray(4, connection.createArrayOf("boolean", correctFlags(updates)));
+                return statement;
+            });
+        }
+        if (!diff.getInsertions().isEmpty()) {
+            List<AnswerDiff.Choice> insertions = diff.getInsertions();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT_ANSWERS_SQL);
+                statement.setLong(1, questionId);
+                statement.setArray(2, connection.createArrayOf("text", contents(insertions)));
+                statement.setArray(3, connection.createArrayOf("text", normalizedContents(insertions)));
+                statement.setArray(4, connection.createArrayOf("boolean", correctFlags(insertions)));
+                return statement;
+            });
+        }
+        return !diff.isEmpty();
+    }
+
+    private static AnswerDiff.Choice toChoice(Map<String, Object> answer) {
+        Object id = answer.get("id");
+        Object content = answer.get("content");
+        if (content == null) {
+            throw new IllegalArgumentException("Every answer needs content");
+        }
+        return new AnswerDiff.Choice(id != null ? Long.parseLong(id.toString()) : null,
+                content.toString(), Boolean.TRUE.equals(answer.get("isCorrect")));
+    }
+
+    private static String[] contents(List<AnswerDiff.Choice> choices) {
+        return choices.stream().map(AnswerDiff.Choice::content).toArray(String[]::new);
+    }
+
+    private static String[] normalizedContents(List<AnswerDiff.Choice> choices) {
+        return choices.stream().map(choice -> ShortAnswerMatcher.normalize(choice.content())).toArray(String[]::new);
+    }
+
+    private static Boolean[] correctFlags(List<AnswerDiff.Choice> choices) {
+        return choices.stream().map(AnswerDiff.Choice::isCorrect).toArray(Boolean[]::new);
     }
 }
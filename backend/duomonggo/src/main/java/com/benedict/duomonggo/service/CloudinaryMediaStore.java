@@ -0,0 +1,140 @@
+package com.benedict.duomonggo.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps media on Cloudinary. The cloud can be shared by several
+ * deployments, so each one can keep its folders under its own prefix,
+ * {@code duomonggo.media.cloudinary.folder-prefix}. Listing, and so the
+ * orphan reconciliation, needs the prefix.
+ */
+@Service
+@ConditionalOnProperty(name = "duomonggo.media.store", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryMediaStore implements MediaStore {
+    // /<cloud name>/<resource type>/upload/[v<version>/]<public id>[.<format>]
+    private static final Pattern URL_PATH = Pattern.compile("^/([^/]+)/([^/]+)/upload/(?:v\\d+/)?(.+?)(?:\\.[^./]+)?$");
+    private static final int LIST_PAGE_SIZE = 500;
+
+    private final Cloudinary cloudinary;
+    private final String folderPrefix;
+
+    @Autowired
+    public CloudinaryMediaStore(Cloudinary cloudinary,
+                                @Value("${duomonggo.media.cloudinary.folder-prefix:}") String folderPrefix) {
+        this.cloudinary = cloudinary;
+        this.folderPrefix = folderPrefix.replaceAll("^/+|/+$", "");
+    }
+
+    /**
+     * Stores the file under its content hash in {@code folder}. A file that
+     * is already there is looked up with one Admin API call and not sent
+     * again. The Admin API is rate limited per hour, so when the lookup
+     * fails for any reason other than the file being absent, the file is
+     * uploaded anyway; {@code overwrite=false} keeps that harmless.
+     */
+    @Override
+    public String store(Path file, String folder) throws IOException {
+        String hash = ContentHash.of(file);
+        String target = prefixed(folder);
+        Optional<String> existing = find(target + "/" + hash);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        // Named by content without overwriting, so Cloudinary keeps one copy of each image
+        Map<String, Object> params = new HashMap<>(Map.of(
+            "folder", target,
+            "public_id", hash,
+            "overwrite", false,
+            "resource_type", "auto"
+        ));
+
+        // Given a File, the client streams it into the request body
+        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.toFile(), params);
+        return (String) uploadResult.get("secure_url");
+    }
+
+    private Optional<String> find(String publicId) {
+        try {
+            Map<?, ?> resource = cloudinary.api().resource(publicId, ObjectUtils.asMap("resource_type", "image"));
+            return Optional.ofNullable((String) resource.get("secure_url"));
+        } catch (Exception e) {
+            // Not stored yet, or the Admin API is rate limited or unavailable; uploading works either way
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void delete(String url) throws IOException {
+        Matcher matcher = URL_PATH.matcher(URI.create(url).getPath());
+        if (!matcher.matches() || !matcher.group(1).equals(cloudinary.config.cloudName)) {
+            return;
+        }
+
+        Map<?, ?> result = cloudinary.uploader().destroy(matcher.group(3), ObjectUtils.asMap(
+            "resource_type", matcher.group(2),
+            "invalidate", true
+        ));
+        Object outcome = result.get("result");
+        if (!"ok".equals(outcome) && !"not found".equals(outcome)) {
+            throw new IOException("Cloudinary did not delete " + url + ": " + outcome);
+        }
+    }
+
+    @Override
+    public void list(Collection<String> folders, Instant storedBefore, Consumer<String> action) throws IOException {
+        if (folderPrefix.isEmpty()) {
+            throw new IOException("Set duomonggo.media.cloudinary.folder-prefix before listing, the cloud may be shared");
+        }
+        for (String folder : folders.stream().map(this::prefixed).toList()) {
+            String cursor = null;
+            do {
+                Map<String, Object> params = new HashMap<>(Map.of(
+                    "type", "upload",
+                    "prefix", folder + "/",
+                    "max_results", LIST_PAGE_SIZE
+                ));
+                if (cursor != null) {
+                    params.put("next_cursor", cursor);
+                }
+
+                Map<?, ?> page;
+                try {
+                    page = cloudinary.api().resources(params);
+                } catch (Exception e) {
+                    throw new IOException("Could not list Cloudinary folder " + folder, e);
+                }
+
+                for (Object resource : (List<?>) page.get("resources")) {
+                    Map<?, ?> fields = (Map<?, ?>) resource;
+                    if (Instant.parse((String) fields.get("created_at")).isBefore(storedBefore)) {
+                        action.accept((String) fields.get("secure_url"));
+                    }
+                }
+                cursor = (String) page.get("next_cursor");
+            } while (cursor != null);
+        }
+    }
+
+    private String prefixed(String folder) {
+        return folderPrefix.isEmpty() ? folder : folderPrefix + "/" + folder;
+    }
+}
@@ -1,40 +0,0 @@
-package com.benedict.duomonggo.service;
-
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.io.IOException;
-import java.util.Map;
-
-@Service
-public class CloudinaryService {
-    private final Cloudinary cloudinary;
-
-    @Autowired
-    public CloudinaryService(Cloudinary cloudinary) {
-        this.cloudinary = cloudinary;
-    }
-
-    public String uploadImage(MultipartFile file, String folder) throws IOException {
-        if (file.isEmpty()) {
-            return null;
-        }
-
-        Map<String, Object> params = ObjectUtils.asMap(
-            "folder", folder,
-            "resource_type", "auto"
-        );
-
-        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), params);
-        return (String) uploadResult.get("secure_url");
-    }
-
-    public void deleteImage(String publicId) throws IOException {
-        if (publicId != null && !publicId.isEmpty()) {
-            cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
-        }
-    }
-}
@@ -0,0 +1,360 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.CourseDraft;
+import com.benedict.duomonggo.model.CourseSummary;
+import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.model.Difficulty;
+import com.benedict.duomonggo.model.QuestionType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves courses between environments as gzipped JSON archives:
+ * <pre>
+ * {"format": "duomonggo-courses", "version": 1, "courses": [
+ *   {"title": ..., "difficulty": ..., ..., "questions": [
+ *     {"content": ..., "imageUrl": ..., ..., "answers": [{"content": ..., "isCorrect": ...}]}]}]}
+ * </pre>
+ * Export streams rows from a database cursor straight into the archive, and
+ * import reads questions a batch at a time and hands them to
+ * {@link CourseAuthoringService}, so neither side holds a whole course in
+ * memory. Images are carried as references to where they are hosted.
+ * <p>
+ * Course fields must come before the course's questions. Fields this version
+ * does not know are skipped, so archives from newer versions still import.
+ */
+@Service
+public class CourseArchiveService {
+    static final String FORMAT = "duomonggo-courses";
+    static final int VERSION = 1;
+
+    private static final int FETCH_SIZE = 500;
+    private static final int IMPORT_BATCH_SIZE = 200;
+
+    // Course columns repeat on every row; the order keeps each course and question contiguous
+    private static final String EXPORT_SQL =
+            "SELECT c.id AS course_id, c.title, c.description, c.difficulty, c.course_type, c.deadline, c.exp_reward, " +
+            "q.id AS question_id, q.content AS question_content, q.question_type, q.explanation, q.image_url, " +
+            "q.order_number, q.typo_tolerance, a.id AS answer_id, a.content AS answer_content, a.is_correct " +
+            "FROM courses c " +
+            "LEFT JOIN questions q ON q.course_id = c.id " +
+            "LEFT JOIN answers a ON a.question_id = q.id " +
+            "WHERE ? OR c.id = ANY(?) " +
+            "ORDER BY c.id, q.order_number, q.id, a.id";
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final CourseAuthoringService courseAuthoringService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CourseArchiveService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                CourseAuthoringService courseAuthoringService, ObjectMapper objectMapper) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.courseAuthoringService = courseAuthoringService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes the given courses, or every course when {@code courseIds} is
+     * empty, to {@code out} as a gzipped archive.
+     */
+    public void export(List<Long> courseIds, OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(gzip)) {
+            json.writeStartObject();
+            json.writeStringField("format", FORMAT);
+            json.writeNumberField("version", VERSION);
+            json.writeArrayFieldStart("courses");
+
+            ExportWriter writer = new ExportWriter(json);
+            // PostgreSQL only streams with a cursor inside a transaction; otherwise it buffers the whole result
+            readOnlyTransactionTemplate.executeWithoutResult(status -> cursorJdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(EXPORT_SQL);
+                statement.setBoolean(1, courseIds.isEmpty());
+                statement.setArray(2, connection.createArrayOf("bigint", courseIds.toArray()));
+                return statement;
+            }, writer::write));
+            writer.finish();
+
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Creates every course in the archive in one transaction and returns
+     * their summaries, so a failed import leaves nothing behind and can
+     * simply be retried. Accepts the archive gzipped or plain.
+     */
+    public List<CourseSummary> importArchive(InputStream in) throws IOException {
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return readArchive(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<CourseSummary> readArchive(InputStream in) throws IOException {
+        List<CourseSummary> imported = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(ungzipped(in))) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "format" -> {
+                        if (!FORMAT.equals(parser.getText())) {
+                            throw new IllegalArgumentException("Not a course archive");
+                        }
+                    }
+                    case "version" -> {
+                        if (parser.getIntValue() != VERSION) {
+                            throw new IllegalArgumentException("Unsupported archive version " + parser.getText());
+                        }
+                    }
+                    case "courses" -> {
+                        expect(value, JsonToken.START_ARRAY);
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            imported.add(importCourse(parser));
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return imported;
+    }
+
+    private CourseSummary importCourse(JsonParser parser) {
+        try {
+            CourseFields course = new CourseFields();
+            Long courseId = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                // The course is created when its questions start, so nothing may follow them
+                if (courseId != null) {
+                    throw new IllegalArgumentException("Course \"" + course.title + "\" has the field \"" + field
+                            + "\" after its questions");
+                }
+                if (!field.equals("questions")) {
+                    course.read(field, parser);
+                    continue;
+                }
+
+                expect(parser.currentToken(), JsonToken.START_ARRAY);
+                courseId = courseAuthoringService.insertCourse(course.toDraft());
+                List<CourseDraft.QuestionDraft> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+                int position = 0;
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    batch.add(readQuestion(parser.readValueAsTree()));
+                    if (batch.size() == IMPORT_BATCH_SIZE) {
+                        courseAuthoringService.appendQuestions(courseId, batch, position);
+                        position += batch.size();
+                        batch.clear();
+                    }
+                }
+                courseAuthoringService.appendQuestions(courseId, batch, position);
+            }
+
+            if (courseId == null) {
+                courseId = courseAuthoringService.insertCourse(course.toDraft());
+            }
+            return courseAuthoringService.getSummary(courseId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static CourseDraft.QuestionDraft readQuestion(JsonNode question) {
+        List<CourseDraft.AnswerDraft> answers = new ArrayList<>();
+        for (JsonNode answer : question.path("answers")) {
+            answers.add(new CourseDraft.AnswerDraft(text(answer, "content"), answer.path("isCorrect").asBoolean()));
+        }
+        return new CourseDraft.QuestionDraft(
+                text(question, "content"),
+                QuestionType.valueOf(question.path("questionType").asText()),
+                text(question, "explanation"),
+                text(question, "imageUrl"),
+                question.hasNonNull("orderNumber") ? question.get("orderNumber").asInt() : null,
+                question.hasNonNull("typoTolerance") ? question.get("typoTolerance").asInt() : null,
+                answers);
+    }
+
+    private static String text(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Malformed course archive: expected " + expected + " but found " + actual);
+        }
+    }
+
+    private static InputStream ungzipped(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 64 * 1024);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        boolean gzipped = first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8);
+        return gzipped ? new GZIPInputStream(buffered, 64 * 1024) : buffered;
+    }
+
+    /**
+     * Course fields read so far; the archive writes them before the questions.
+     */
+    private static final class CourseFields {
+        private String title;
+        private String description;
+        private Difficulty difficulty;
+        private CourseType courseType = CourseType.SINGLEPLAYER;
+        private LocalDateTime deadline;
+        private Integer expReward;
+
+        private void read(String field, JsonParser parser) throws IOException {
+            switch (field) {
+                case "title" -> title = parser.getValueAsString();
+                case "description" -> description = parser.getValueAsString();
+                case "difficulty" -> difficulty = Difficulty.valueOf(parser.getText());
+                case "courseType" -> courseType = CourseType.valueOf(parser.getText());
+                case "deadline" -> deadline = parser.currentToken() == JsonToken.VALUE_NULL ? null : LocalDateTime.parse(parser.getText());
+                case "expReward" -> expReward = parser.getIntValue();
+                default -> parser.skipChildren();
+            }
+        }
+
+        private CourseDraft toDraft() {
+            if (difficulty == null || expReward == null) {
+                throw new IllegalArgumentException("Course \"" + title + "\" is missing its difficulty or EXP reward");
+            }
+            return new CourseDraft(title, description, difficulty, courseType, deadline, expReward, List.of());
+        }
+    }
+
+    /**
+     * Turns the flat, ordered course/question/answer rows into nested JSON,
+     * opening and closing objects whenever the course or question changes.
+     */
+    private static final class ExportWriter {
+        private final JsonGenerator json;
+        private long courseId = -1;
+        private long questionId = -1;
+
+        private ExportWriter(JsonGenerator json) {
+            this.json = json;
+        }
+
+        private void write(ResultSet row) throws SQLException {
+            try {
+                long rowCourseId = row.getLong("course_id");
+                if (rowCourseId != courseId) {
+                    closeCourse();
+                    courseId = rowCourseId;
+                    openCourse(row);
+                }
+
+                long rowQuestionId = row.getLong("question_id");
+                if (row.wasNull()) {
+                    return;
+                }
+                if (rowQuestionId != questionId) {
+                    closeQuestion();
+                    questionId = rowQuestionId;
+                    openQuestion(row);
+                }
+
+                row.getLong("answer_id");
+                if (!row.wasNull()) {
+                    json.writeStartObject();
+                    json.writeStringField("content", row.getString("answer_content"));
+                    json.writeBooleanField("isCorrect", row.getBoolean("is_correct"));
+                    json.writeEndObject();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void finish() throws IOException {
+            closeCourse();
+        }
+
+        private void openCourse(ResultSet row) throws SQLException, IOException {
+            Timestamp deadline = row.getTimestamp("deadline");
+            json.writeStartObject();
+            json.writeStringField("title", row.getString("title"));
+            json.writeStringField("description", row.getString("description"));
+            json.writeStringField("difficulty", row.getString("difficulty"));
+            json.writeStringField("courseType", row.getString("course_type"));
+            json.writeStringField("deadline", deadline != null ? deadline.toLocalDateTime().toString() : null);
+            json.writeNumberField("expReward", row.getInt("exp_reward"));
+            json.writeArrayFieldStart("questions");
+        }
+
+        private void closeCourse() throws IOException {
+            if (courseId == -1) {
+                return;
+            }
+            closeQuestion();
+            json.writeEndArray();
+            json.writeEndObject();
+            courseId = -1;
+        }
+
+        private void openQuestion(ResultSet row) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeStringField("content", row.getString("question_content"));
+            json.writeStringField("questionType", row.getString("question_type"));
+            json.writeStringField("explanation", row.getString("explanation"));
+            json.writeStringField("imageUrl", row.getString("image_url"));
+            json.writeNumberField("orderNumber", row.getInt("order_number"));
+            json.writeNumberField("typoTolerance", row.getInt("typo_tolerance"));
+            json.writeArrayFieldStart("answers");
+        }
+
+        private void closeQuestion() throws IOException {
+            if (questionId == -1) {
+                return;
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            questionId = -1;
+        }
+    }
+}
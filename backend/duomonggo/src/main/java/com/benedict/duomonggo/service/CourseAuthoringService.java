@@ -0,0 +1,227 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.CourseDraft;
+import com.benedict.duomonggo.model.CourseSearchEntry;
+import com.benedict.duomonggo.model.CourseSummary;
+import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.repository.CourseRepository;
+import com.benedict.duomonggo.repository.QuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Publishes a whole course, questions and answers included, in one
+ * transaction. Question ids are drawn from the table's sequence up front so
+ * that answers can refer to them, which lets every table be written with a
+ * single multi-row insert: a course of any size costs five statements.
+ */
+@Service
+public class CourseAuthoringService {
+    private static final String INSERT_COURSE_SQL =
+            "INSERT INTO courses (title, description, difficulty, course_type, deadline, exp_reward, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, LOCALTIMESTAMP) " +
+            "RETURNING id";
+    private static final String ALLOCATE_QUESTION_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('questions', 'id')) FROM generate_series(1, ?)";
+    private static final String INSERT_QUESTIONS_SQL =
+            "INSERT INTO questions (id, content, question_type, explanation, image_url, course_id, order_number, typo_tolerance, created_at) " +
+            "SELECT t.id, t.content, t.question_type, t.explanation, t.image_url, ?, t.order_number, t.typo_tolerance, LOCALTIMESTAMP " +
+            "FROM unnest(?, ?, ?, ?, ?, ?, ?) AS t(id, content, question_type, explanation, image_url, order_number, typo_tolerance)";
+    private static final String INSERT_ANSWERS_SQL =
+            "INSERT INTO answers (content, normalized_content, is_correct, question_id, created_at) " +
+            "SELECT t.content, t.normalized_content, t.is_correct, t.question_id, LOCALTIMESTAMP " +
+            "FROM unnest(?, ?, ?, ?) AS t(content, normalized_content, is_correct, question_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CourseRepository courseRepository;
+    private final QuestionRepository questionRepository;
+    private final CourseCatalogCache courseCatalogCache;
+    private final CourseContentVersions courseContentVersions;
+    private final CourseSearchService courseSearchService;
+    private final MediaCleanupService mediaCleanupService;
+    private final int maxQuestions;
+
+    @Autowired
+    public CourseAuthoringService(JdbcTemplate jdbcTemplate, CourseRepository courseRepository,
+                                  QuestionRepository questionRepository, CourseCatalogCache courseCatalogCache,
+                                  CourseContentVersions courseContentVersions, CourseSearchService courseSearchService,
+                                  MediaCleanupService mediaCleanupService,
+                                  @Value("${duomonggo.courses.bulk.max-questions:500}") int maxQuestions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.courseRepository = courseRepository;
+        this.questionRepository = questionRepository;
+        this.courseCatalogCache = courseCatalogCache;
+        this.courseContentVersions = courseContentVersions;
+        this.courseSearchService = courseSearchService;
+        this.mediaCleanupService = mediaCleanupService;
+        this.maxQuestions = maxQuestions;
+    }
+
+    @Transactional
+    public CourseSummary publish(CourseDraft draft) {
+        if (draft.getQuestions().size() > maxQuestions) {
+            throw new IllegalArgumentException("A course can have at most " + maxQuestions + " questions");
+        }
+        for (int i = 0; i < draft.getQuestions().size(); i++) {
+            validateQuestion(draft.getQuestions().get(i), i);
+        }
+
+        Long courseId = insertCourse(draft);
+        appendQuestions(courseId, draft.getQuestions(), 0);
+        return getSummary(courseId);
+    }
+
+    /**
+     * Adds questions with their answers to an existing course, after the ones
+     * it already has. Empty when the course does not exist; otherwise the new
+     * question ids, in the order given.
+     */
+    @Transactional
+    public Optional<List<Long>> addQuestions(Long courseId, List<CourseDraft.QuestionDraft> questions) {
+        if (courseRepository.lockById(courseId).isEmpty()) {
+            return Optional.empty();
+        }
+        List<Long> questionIds = appendQuestions(courseId, questions, (int) questionRepository.countByCourse_Id(courseId));
+        courseCatalogCache.invalidate();
+        courseContentVersions.bump(courseId);
+        return Optional.of(questionIds);
+    }
+
+    /**
+     * Inserts the course row alone; its questions follow through
+     * {@link #appendQuestions}. Must run inside a transaction.
+     */
+    public Long insertCourse(CourseDraft draft) {
+        if (draft.getTitle() == null || draft.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Title is required");
+        }
+        if (draft.getCourseType() == CourseType.MULTIPLAYER && draft.getDeadline() == null) {
+            throw new IllegalArgumentException("Deadline is required for multiplayer courses");
+        }
+
+        Long courseId = jdbcTemplate.queryForObject(INSERT_COURSE_SQL, Long.class,
+                draft.getTitle(), draft.getDescription(), draft.getDifficulty().name(), draft.getCourseType().name(),
+                draft.getDeadline() != null ? Timestamp.valueOf(draft.getDeadline()) : null,
+                draft.getExpReward());
+        courseCatalogCache.invalidate();
+        courseSearchService.courseChanged(new CourseSearchEntry(courseId, draft.getTitle(), draft.getDescription(),
+                draft.getDifficulty(), draft.getCourseType(), draft.getDeadline(), draft.getExpReward()));
+        return courseId;
+    }
+
+    /**
+     * Adds a batch of questions to a course inserted or locked in the same
+     * transaction, returning their ids. {@code firstPosition} is the zero-based position of the first question
+     * in the whole course, used for default order numbers and error messages.
+     */
+    public List<Long> appendQuestions(Long courseId, List<CourseDraft.QuestionDraft> questions, int firstPosition) {
+        if (firstPosition + questions.size() > maxQuestions) {
+            throw new IllegalArgumentException("A course can have at most " + maxQuestions + " questions");
+        }
+        for (int i = 0; i < questions.size(); i++) {
+            validateQuestion(questions.get(i), firstPosition + i);
+        }
+        if (questions.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> questionIds = jdbcTemplate.queryForList(ALLOCATE_QUESTION_IDS_SQL, Long.class, questions.size());
+        insertQuestions(courseId, questions, questionIds, firstPosition);
+        insertAnswers(questions, questionIds);
+        return questionIds;
+    }
+
+    public CourseSummary getSummary(Long courseId) {
+        return courseRepository.findSummaryById(courseId)
+                .orElseThrow(() -> new IllegalStateException("Published course " + courseId + " is missing"));
+    }
+
+    private static void validateQuestion(CourseDraft.QuestionDraft question, int index) {
+        String position = "Question " + (index + 1);
+        if (question.getContent() == null || question.getContent().isBlank()) {
+            throw new IllegalArgumentException(position + " has no content");
+        }
+        QuestionService.validateTypoTolerance(question.getTypoTolerance());
+        boolean hasCorrectAnswer = question.getAnswers().stream()
+                .anyMatch(answer -> Boolean.TRUE.equals(answer.getIsCorrect()));
+        if (!hasCorrectAnswer) {
+            throw new IllegalArgumentException(position + " needs at least one correct answer");
+        }
+        if (question.getAnswers().stream().anyMatch(answer -> answer.getContent() == null)) {
+            throw new IllegalArgumentException(position + " has an answer without content");
+        }
+    }
+
+    private void insertQuestions(Long courseId, List<CourseDraft.QuestionDraft> questions, List<Long> questionIds,
+                                 int firstPosition) {
+        int size = questions.size();
+        Long[] ids = questionIds.toArray(new Long[0]);
+        String[] contents = new String[size];
+        String[] types = new String[size];
+        String[] explanations = new String[size];
+        String[] imageUrls = new String[size];
+        Integer[] orderNumbers = new Integer[size];
+        Integer[] typoTolerances = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            CourseDraft.QuestionDraft question = questions.get(i);
+            contents[i] = question.getContent();
+            types[i] = question.getQuestionType().name();
+            explanations[i] = question.getExplanation();
+            imageUrls[i] = question.getImageUrl();
+            orderNumbers[i] = question.getOrderNumber() != null ? question.getOrderNumber() : firstPosition + i + 1;
+            typoTolerances[i] = question.getTypoTolerance() != null ? question.getTypoTolerance() : 0;
+        }
+        // Imported questions may point at files already queued for deletion
+        mediaCleanupService.reusing(Arrays.stream(imageUrls).filter(Objects::nonNull).toList());
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_QUESTIONS_SQL);
+            statement.setLong(1, courseId);
+            statement.setArray(2, connection.createArrayOf("bigint", ids));
+            statement.setArray(3, connection.createArrayOf("text", contents));
+            statement.setArray(4, connection.createArrayOf("varchar", types));
+            statement.setArray(5, connection.createArrayOf("text", explanations));
+            statement.setArray(6, connection.createArrayOf("varchar", imageUrls));
+            statement.setArray(7, connection.createArrayOf("integer", orderNumbers));
+            statement.setArray(8, connection.createArrayOf("integer", typoTolerances));
+            return statement;
+        });
+    }
+
+    private void insertAnswers(List<CourseDraft.QuestionDraft> questions, List<Long> questionIds) {
+        int size = questions.stream().mapToInt(question -> question.getAnswers().size()).sum();
+        String[] contents = new String[size];
+        String[] normalizedContents = new String[size];
+        Boolean[] correct = new Boolean[size];
+        Long[] answerQuestionIds = new Long[size];
+        int row = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            for (CourseDraft.AnswerDraft answer : questions.get(i).getAnswers()) {
+                contents[row] = answer.getContent();
+                normalizedContents[row] = ShortAnswerMatcher.normalize(answer.getContent());
+                correct[row] = Boolean.TRUE.equals(answer.getIsCorrect());
+                answerQuestionIds[row] = questionIds.get(i);
+                row++;
+            }
+        }
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_ANSWERS_SQL);
+            statement.setArray(1, connection.createArrayOf("text", contents));
+            statement.setArray(2, connection.createArrayOf("text", normalizedContents));
+            statement.setArray(3, connection.createArrayOf("boolean", correct));
+            statement.setArray(4, connection.createArrayOf("bigint", answerQuestionIds));
+            return statement;
+        });
+    }
+}
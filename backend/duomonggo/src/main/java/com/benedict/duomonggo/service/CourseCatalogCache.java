@@ -0,0 +1,147 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.CourseSummary;
+import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.repository.CourseRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the course catalog views as already-encoded JSON, so serving them is
+ * a byte copy with no database or Jackson work. Views hold course summaries;
+ * any write that changes a course or its questions calls {@link #invalidate()},
+ * which drops every view once the write has committed. Enrollment and
+ * completion counts change on every play, so they are not invalidated for;
+ * instead each view is reloaded once it is older than the configured TTL.
+ * <p>
+ * Only canonical pages are kept: the default page size, starting at the
+ * beginning or at a cursor handed out by a cached page. Other pages are loaded
+ * on every request, so arbitrary {@code after} values cannot fill the cache.
+ * <p>
+ * A view loaded while an invalidation is in flight may hold data from before
+ * the write; the generation counter makes sure such a view is never kept.
+ */
+@Service
+public class CourseCatalogCache {
+    private static final int MAX_VIEWS = 256;
+
+    private final CourseRepository courseRepository;
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+    private final long ttlNanos;
+    private final Map<Object, View> views = new ConcurrentHashMap<>();
+    private final Set<Long> cursors = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public CourseCatalogCache(CourseRepository courseRepository, ObjectMapper objectMapper,
+                              @Value("${duomonggo.pagination.default-page-size:50}") int pageSize,
+                              @Value("${duomonggo.courses.catalog-ttl:30s}") Duration ttl) {
+        this.courseRepository = courseRepository;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public View getPage(long after, int limit) {
+        Supplier<List<CourseSummary>> loader = () -> courseRepository.findSummariesAfter(after, Limit.of(limit));
+        if (limit != pageSize || (after != 0 && !cursors.contains(after))) {
+            return encode(loader.get());
+        }
+        View view = get(after, loader);
+        // The next page starts where this one ends, so that cursor is canonical too
+        if (view.getSize() == pageSize && cursors.size() < MAX_VIEWS) {
+            cursors.add(view.getLastId());
+        }
+        return view;
+    }
+
+    public View getByType(CourseType courseType) {
+        return get(courseType, () -> courseRepository.findSummariesByCourseType(courseType));
+    }
+
+    public void invalidate() {
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            views.clear();
+            cursors.clear();
+        });
+    }
+
+    private View get(Object key, Supplier<List<CourseSummary>> loader) {
+        View cached = views.get(key);
+        if (cached != null && !cached.isExpired(ttlNanos)) {
+            return cached;
+        }
+
+        long observedGeneration = generation.get();
+        View view = encode(loader.get());
+        if (generation.get() == observedGeneration) {
+            if (views.size() >= MAX_VIEWS && !views.containsKey(key)) {
+                views.values().removeIf(old -> old.isExpired(ttlNanos));
+                if (views.size() >= MAX_VIEWS) {
+                    return view;
+                }
+            }
+            views.put(key, view);
+            // An invalidation that slipped in between the check and the put must still win
+            if (generation.get() != observedGeneration) {
+                views.remove(key, view);
+            }
+        }
+        return view;
+    }
+
+    private View encode(List<CourseSummary> courses) {
+        try {
+            Long lastId = courses.isEmpty() ? null : courses.get(courses.size() - 1).getId();
+            return new View(objectMapper.writeValueAsBytes(courses), courses.size(), lastId);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode course catalog", e);
+        }
+    }
+
+    public static final class View {
+        private final byte[] json;
+        private final int size;
+        private final Long lastId;
+        private final long loadedAt = System.nanoTime();
+
+        private View(byte[] json, int size, Long lastId) {
+            this.json = json;
+            this.size = size;
+            this.lastId = lastId;
+        }
+
+        private boolean isExpired(long ttlNanos) {
+            return System.nanoTime() - loadedAt >= ttlNanos;
+        }
+
+        /**
+         * The encoded course summaries. Shared between requests, so it must not be modified.
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public Long getLastId() {
+            return lastId;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.repository.CourseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the content version of each course so that conditional reads can be
+ * answered without loading the course or its questions. Versions only ever
+ * grow, so a late write of an older value can never replace a newer one.
+ */
+@Service
+public class CourseContentVersions {
+    private final CourseRepository courseRepository;
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CourseContentVersions(CourseRepository courseRepository) {
+        this.courseRepository = courseRepository;
+    }
+
+    public Optional<Long> current(Long courseId) {
+        Long version = versions.get(courseId);
+        if (version != null) {
+            return Optional.of(version);
+        }
+        return courseRepository.findContentVersionById(courseId)
+                .map(loaded -> versions.merge(courseId, loaded, Math::max));
+    }
+
+    /**
+     * Whether {@code version} is still the course's version. Answered from
+     * memory once the course's version has been loaded.
+     */
+    public boolean isCurrent(Long courseId, long version) {
+        Long known = versions.get(courseId);
+        if (known != null) {
+            return known == version;
+        }
+        return current(courseId).map(loaded -> loaded == version).orElse(false);
+    }
+
+    /**
+     * Records that the course's questions or answers changed. Must run inside
+     * the transaction making the change.
+     */
+    public void bump(Long courseId) {
+        if (courseId == null || courseRepository.bumpContentVersion(courseId) == 0) {
+            return;
+        }
+        courseRepository.findContentVersionById(courseId).ifPresent(version ->
+                TransactionHooks.afterCommit(() -> versions.merge(courseId, version, Math::max)));
+    }
+
+    public void forget(Long courseId) {
+        TransactionHooks.afterCommit(() -> versions.remove(courseId));
+    }
+
+    public static String etag(Long courseId, long version) {
+        return "\"course-" + courseId + "-v" + version + "\"";
+    }
+}
@@ -0,0 +1,250 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.CourseSearchEntry;
+import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.model.Difficulty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index over course titles and descriptions. Text is normalised the
+ * same way as short answers, so case, accents and punctuation do not matter.
+ * A query word matches a course word exactly, as a prefix of it, or, from
+ * three letters on, by sharing enough trigrams with it, which tolerates
+ * small typos. Every query word must match for a course to be returned.
+ * <p>
+ * Courses are ranked by the sum over query words of their best match, where
+ * a match is worth its closeness times the word's weight in the course
+ * (title words count three times) times its inverse document frequency.
+ * Not thread-safe; callers guard it with their own lock.
+ */
+final class CourseSearchIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_MATCH = 0.8;
+    private static final double FUZZY_MATCH = 0.6;
+    private static final double MIN_TRIGRAM_SIMILARITY = 0.5;
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private final Map<Long, Indexed> courses = new HashMap<>();
+    private final TreeMap<String, Word> postings = new TreeMap<>();
+    private final Map<String, Set<String>> wordsByTrigram = new HashMap<>();
+
+    int size() {
+        return courses.size();
+    }
+
+    void clear() {
+        courses.clear();
+        postings.clear();
+        wordsByTrigram.clear();
+    }
+
+    void put(CourseSearchEntry entry) {
+        remove(entry.getId());
+
+        Map<String, Integer> weights = new HashMap<>();
+        for (String word : words(entry.getTitle())) {
+            weights.merge(word, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String word : words(entry.getDescription())) {
+            weights.merge(word, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+
+        courses.put(entry.getId(), new Indexed(entry, weights.keySet()));
+        weights.forEach((word, weight) -> postings.computeIfAbsent(word, this::addWord).weights.put(entry.getId(), weight));
+    }
+
+    void remove(Long courseId) {
+        Indexed previous = courses.remove(courseId);
+        if (previous == null) {
+            return;
+        }
+        for (String word : previous.words()) {
+            Word posting = postings.get(word);
+            posting.weights.remove(courseId);
+            if (posting.weights.isEmpty()) {
+                postings.remove(word);
+                removeWord(word);
+            }
+        }
+    }
+
+    /**
+     * @param difficulty only return courses of this difficulty, or any when null
+     * @param courseType only return courses of this type, or any when null
+     */
+    List<CourseSearchEntry> search(String query, Difficulty difficulty, CourseType courseType, int limit) {
+        Predicate<CourseSearchEntry> filter = entry -> (difficulty == null || entry.getDifficulty() == difficulty)
+                && (courseType == null || entry.getCourseType() == courseType);
+        List<String> queryWords = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        if (queryWords.isEmpty()) {
+            return courses.values().stream()
+                    .map(Indexed::entry)
+                    .filter(filter)
+                    .sorted(Comparator.comparing(CourseSearchEntry::getId))
+                    .limit(limit)
+                    .toList();
+        }
+
+        Map<Long, Double> scores = null;
+        for (String word : queryWords) {
+            // Later words only need to score courses every earlier word matched
+            Map<Long, Double> matched = scores;
+            LongPredicate candidates = matched == null
+                    ? courseId -> filter.test(courses.get(courseId).entry())
+                    : matched::containsKey;
+            Map<Long, Double> wordScores = score(word, candidates);
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                scores.keySet().retainAll(wordScores.keySet());
+                scores.replaceAll((courseId, score) -> score + wordScores.get(courseId));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+        return top(scores, limit);
+    }
+
+    /**
+     * The best {@code limit} courses by score, highest first and ties by id,
+     * picked with a bounded heap rather than by sorting every match.
+     */
+    private List<CourseSearchEntry> top(Map<Long, Double> scores, int limit) {
+        PriorityQueue<Scored> best = new PriorityQueue<>(limit + 1);
+        scores.forEach((courseId, score) -> {
+            Scored scored = new Scored(courseId, score);
+            if (best.size() < limit) {
+                best.add(scored);
+            } else if (scored.compareTo(best.peek()) > 0) {
+                best.poll();
+                best.add(scored);
+            }
+        });
+
+        Scored[] ranked = best.toArray(new Scored[0]);
+        Arrays.sort(ranked, Comparator.reverseOrder());
+        List<CourseSearchEntry> results = new ArrayList<>(ranked.length);
+        for (Scored scored : ranked) {
+            results.add(courses.get(scored.courseId()).entry());
+        }
+        return results;
+    }
+
+    /**
+     * Scores the courses that contain a match for {@code word}, looking only
+     * at courses that pass {@code candidates}.
+     */
+    private Map<Long, Double> score(String word, LongPredicate candidates) {
+        Map<Long, Double> best = new HashMap<>();
+
+        Word exact = postings.get(word);
+        if (exact != null) {
+            addMatches(exact, 1.0, candidates, best);
+        }
+        for (Map.Entry<String, Word> longer : postings.subMap(word, false, word + Character.MAX_VALUE, false).entrySet()) {
+            addMatches(longer.getValue(), PREFIX_MATCH * (0.5 + 0.5 * word.length() / longer.getKey().length()), candidates, best);
+        }
+
+        if (word.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> trigrams = trigrams(word);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String trigram : trigrams) {
+                for (String candidate : wordsByTrigram.getOrDefault(trigram, Set.of())) {
+                    shared.merge(candidate, 1, Integer::sum);
+                }
+            }
+            shared.forEach((candidate, count) -> {
+                Word indexed = postings.get(candidate);
+                double similarity = 2.0 * count / (trigrams.size() + indexed.trigramCount);
+                if (similarity >= MIN_TRIGRAM_SIMILARITY && !candidate.equals(word)) {
+                    addMatches(indexed, FUZZY_MATCH * similarity, candidates, best);
+                }
+            });
+        }
+        return best;
+    }
+
+    private void addMatches(Word word, double closeness, LongPredicate candidates, Map<Long, Double> best) {
+        double inverseFrequency = Math.log(1.0 + (double) courses.size() / word.weights.size());
+        word.weights.forEach((courseId, weight) -> {
+            if (candidates.test(courseId)) {
+                best.merge(courseId, closeness * weight * inverseFrequency, Math::max);
+            }
+        });
+    }
+
+    private Word addWord(String word) {
+        Set<String> trigrams = trigrams(word);
+        for (String trigram : trigrams) {
+            wordsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(word);
+        }
+        return new Word(trigrams.size());
+    }
+
+    private void removeWord(String word) {
+        for (String trigram : trigrams(word)) {
+            Set<String> words = wordsByTrigram.get(trigram);
+            words.remove(word);
+            if (words.isEmpty()) {
+                wordsByTrigram.remove(trigram);
+            }
+        }
+    }
+
+    private static List<String> words(String text) {
+        String normalized = ShortAnswerMatcher.normalize(text);
+        return normalized.isEmpty() ? List.of() : List.of(normalized.split(" "));
+    }
+
+    /**
+     * Trigrams of the word padded with two leading spaces and one trailing
+     * space, so that the start of a word weighs more than its end.
+     */
+    private static Set<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private record Indexed(CourseSearchEntry entry, Set<String> words) {
+    }
+
+    /**
+     * Orders worse results first, so the head of a heap is the one to drop.
+     */
+    private record Scored(long courseId, double score) implements Comparable<Scored> {
+        @Override
+        public int compareTo(Scored other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Long.compare(other.courseId, courseId);
+        }
+    }
+
+    private static final class Word {
+        // course id -> weight of the word in that course
+        private final Map<Long, Integer> weights = new HashMap<>();
+        private final int trigramCount;
+
+        private Word(int trigramCount) {
+            this.trigramCount = trigramCount;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.Course;
+import com.benedict.duomonggo.model.CourseSearchEntry;
+import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.model.Difficulty;
+import com.benedict.duomonggo.repository.CourseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Answers course searches from an in-memory {@link CourseSearchIndex}. The
+ * index is loaded once at startup and then kept current by the services that
+ * create, edit or delete courses, so searching never touches the database.
+ */
+@Service
+public class CourseSearchService {
+    private final CourseRepository courseRepository;
+    private final CourseSearchIndex index = new CourseSearchIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public CourseSearchService(CourseRepository courseRepository) {
+        this.courseRepository = courseRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<CourseSearchEntry> entries = courseRepository.findSearchEntries();
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            entries.forEach(index::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<CourseSearchEntry> search(String query, Difficulty difficulty, CourseType courseType, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, difficulty, courseType, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the course as it is now once the surrounding transaction commits.
+     */
+    public void courseChanged(Course course) {
+        courseChanged(CourseSearchEntry.from(course));
+    }
+
+    public void courseChanged(CourseSearchEntry entry) {
+        TransactionHooks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                index.put(entry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void courseRemoved(Long courseId) {
+        TransactionHooks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                index.remove(courseId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+}
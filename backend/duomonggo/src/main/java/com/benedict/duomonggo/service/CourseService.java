@@ -1,9 +1,11 @@
 package com.benedict.duomonggo.service;
 
 import com.benedict.duomonggo.model.Course;
+import com.benedict.duomonggo.model.CoursePlayBundle;
 import com.benedict.duomonggo.model.Difficulty;
 import com.benedict.duomonggo.model.CourseType;
 import com.benedict.duomonggo.repository.CourseRepository;
+import com.benedict.duomonggo.repository.QuestionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,14 +17,27 @@ import java.util.Optional;
 @Service
 public class CourseService {
     private final CourseRepository courseRepository;
+    private final MultiplayerRankingService multiplayerRankingService;
+    private final CourseCatalogCache courseCatalogCache;
+    private final QuestionRepository questionRepository;
+    private final EnrollmentService enrollmentService;
+    private final CourseContentVersions courseContentVersions;
+    private final CourseSearchService courseSearchService;
+    private final MediaCleanupService mediaCleanupService;
 
     @Autowired
-    public CourseService(CourseRepository courseRepository) {
+    public CourseService(CourseRepository courseRepository, MultiplayerRankingService multiplayerRankingService,
+                         CourseCatalogCache courseCatalogCache, QuestionRepository questionRepository,
+                         EnrollmentService enrollmentService, CourseContentVersions courseContentVersions,
+                         CourseSearchService courseSearchService, MediaCleanupService mediaCleanupService) {
         this.courseRepository = courseRepository;
-    }
-
-    public List<Course> getAllCourses() {
-        return courseRepository.findAll();
+        this.multiplayerRankingService = multiplayerRankingService;
+        this.courseCatalogCache = courseCatalogCache;
+        this.questionRepository = questionRepository;
+        this.enrollmentService = enrollmentService;
+        this.courseContentVersions = courseContentVersions;
+        this.courseSearchService = courseSearchService;
+        this.mediaCleanupService = mediaCleanupService;
     }
 
     public Optional<Course> getCourseById(Long id) {
@@ -33,16 +48,35 @@ public class CourseService {
         return courseRepository.findByCourseType(courseType);
     }
 
+    /**
+     * Loads a course for playing and makes sure the account is enrolled in it.
+     * Questions and their answers come back from a single join fetch, so the
+     * number of statements does not depend on how many questions there are.
+     */
+    @Transactional
+    public Optional<CoursePlayBundle> startPlaying(Long courseId, Long accountId) {
+        return courseRepository.findById(courseId).map(course -> new CoursePlayBundle(
+                course,
+                questionRepository.findWithAnswersByCourseId(courseId),
+                enrollmentService.startCourse(accountId, courseId)));
+    }
+
     @Transactional
     public Course createCourse(String title, String description, Difficulty difficulty, CourseType courseType, Integer expReward) {
         Course course = new Course(title, description, difficulty, courseType, expReward);
-        return courseRepository.save(course);
+        courseCatalogCache.invalidate();
+        course = courseRepository.save(course);
+        courseSearchService.courseChanged(course);
+        return course;
     }
 
     @Transactional
     public Course createMultiplayerCourse(String title, String description, Difficulty difficulty, LocalDateTime deadline, Integer expReward) {
         Course course = new Course(title, description, difficulty, CourseType.MULTIPLAYER, deadline, expReward);
-        return courseRepository.save(course);
+        courseCatalogCache.invalidate();
+        course = courseRepository.save(course);
+        courseSearchService.courseChanged(course);
+        return course;
     }
 
     @Transactional
@@ -55,6 +89,9 @@ public class CourseService {
             course.setDifficulty(difficulty);
             course.setCourseType(courseType);
             course.setExpReward(expReward);
+            courseCatalogCache.invalidate();
+            courseContentVersions.bump(id);
+            courseSearchService.courseChanged(course);
             return courseRepository.save(course);
         }
         return null;
@@ -71,6 +108,9 @@ public class CourseService {
             course.setCourseType(CourseType.MULTIPLAYER);
             course.setDeadline(deadline);
             course.setExpReward(expReward);
+            courseCatalogCache.invalidate();
+            courseContentVersions.bump(id);
+            courseSearchService.courseChanged(course);
             return courseRepository.save(course);
         }
         return null;
@@ -85,10 +125,15 @@ public class CourseService {
             course.setDescription(description);
             course.setDifficulty(difficulty);
             course.setExpReward(expReward);
+            courseCatalogCache.invalidate();
+            courseContentVersions.bump(id);
+            courseSearchService.courseChanged(course);
             return courseRepository.save(course);
         }
         return null;
-    }    @Transactional
+    }
+
+    @Transactional
     public void deleteCourse(Long id) {
         // Get the course
         Optional<Course> optionalCourse = courseRepository.findById(id);
@@ -97,10 +142,16 @@ public class CourseService {
 
             course.getEnrollments().clear();
             course.getMultiplayerSessions().clear();
-            
+
+            // The questions go with the course, and their images with them
+            mediaCleanupService.orphaned(questionRepository.findImagesByCourseId(id));
             courseRepository.delete(course);
         } else {
             courseRepository.deleteById(id);
         }
+        multiplayerRankingService.courseRemoved(id);
+        courseCatalogCache.invalidate();
+        courseContentVersions.forget(id);
+        courseSearchService.courseRemoved(id);
     }
 }
@@ -8,6 +8,7 @@ import com.benedict.duomonggo.repository.CourseRepository;
 import com.benedict.duomonggo.repository.EnrollmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -17,17 +18,21 @@ public class EnrollmentService {
     private final EnrollmentRepository enrollmentRepository;
     private final AccountRepository accountRepository;
     private final CourseRepository courseRepository;
+    private final LeaderboardService leaderboardService;
 
     @Autowired
     public EnrollmentService(
             EnrollmentRepository enrollmentRepository,
             AccountRepository accountRepository,
-            CourseRepository courseRepository) {
+            CourseRepository courseRepository,
+            LeaderboardService leaderboardService) {
         this.enrollmentRepository = enrollmentRepository;
         this.accountRepository = accountRepository;
         this.courseRepository = courseRepository;
+        this.leaderboardService = leaderboardService;
     }
 
+    @Transactional
     public Enrollment startCourse(Long accountId, Long courseId) {
         Optional<Enrollment> existingEnrollment = enrollmentRepository.findByAccountIdAndCourseId(accountId, courseId);
         if (existingEnrollment.isPresent()) {
@@ -47,24 +52,21 @@ public class EnrollmentService {
         return enrollmentRepository.save(enrollment);
     }
 
+    /**
+     * Marks the enrollment as completed and awards the course EXP exactly once.
+     * The completed flag is flipped with a conditional update, so when several
+     * requests race only the one that actually flipped it adds the reward, and
+     * the reward itself is an in-place increment that cannot lose updates.
+     */
+    @Transactional
     public Enrollment completeCourse(Long accountId, Long courseId) {
-        Enrollment enrollment = enrollmentRepository.findByAccountIdAndCourseId(accountId, courseId)
-                .orElseThrow(() -> new RuntimeException("Enrollment not found"));
-
-        if (!enrollment.getIsCompleted()) {
-            enrollment.setIsCompleted(true);
-
-            Account account = enrollment.getAccount();
-            Course course = enrollment.getCourse();
-
-            Integer currentExp = account.getExp() != null ? account.getExp() : 0;
-            Integer expReward = course.getExpReward() != null ? course.getExpReward() : 0;
-
-            account.setExp(currentExp + expReward);
-            accountRepository.save(account);
+        if (enrollmentRepository.markCompleted(accountId, courseId) == 1) {
+            accountRepository.addCourseReward(accountId, courseId);
+            leaderboardService.accountChanged(accountId);
         }
 
-        return enrollmentRepository.save(enrollment);
+        return enrollmentRepository.findByAccountIdAndCourseId(accountId, courseId)
+                .orElseThrow(() -> new RuntimeException("Enrollment not found"));
     }
 
     public boolean isCompleted(Long accountId, Long courseId) {
@@ -0,0 +1,132 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.Answer;
+import com.benedict.duomonggo.model.GradeResult;
+import com.benedict.duomonggo.model.Question;
+import com.benedict.duomonggo.model.QuestionType;
+import com.benedict.duomonggo.repository.QuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grades submissions on the server so that correctness never has to be sent
+ * to players. The correct choices and accepted short answers of a course are
+ * compiled into graders the first time one of its questions is graded, and
+ * reused until the course's content version moves on. Grading against a
+ * current grader touches neither the database nor the heap; short answers go
+ * through {@link ShortAnswerMatcher}.
+ */
+@Service
+public class GradingService {
+    private final QuestionRepository questionRepository;
+    private final CourseContentVersions courseContentVersions;
+    private final int maxSubmissions;
+    private final Map<Long, QuestionGrader> graders = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GradingService(QuestionRepository questionRepository, CourseContentVersions courseContentVersions,
+                          @Value("${duomonggo.grading.max-submissions:50}") int maxSubmissions) {
+        this.questionRepository = questionRepository;
+        this.courseContentVersions = courseContentVersions;
+        this.maxSubmissions = maxSubmissions;
+    }
+
+    /**
+     * Rejects batches larger than the configured maximum. Every result carries
+     * the correct answers, so an unbounded batch would hand them out wholesale.
+     */
+    public void checkBatchSize(int submissions) {
+        if (submissions > maxSubmissions) {
+            throw new IllegalArgumentException("At most " + maxSubmissions + " answers can be graded at once");
+        }
+    }
+
+    /**
+     * Grades a choice for a multiple-choice question, or a typed response for
+     * a short-answer question. Empty when the question does not exist.
+     */
+    public Optional<GradeResult> grade(Long questionId, Long answerId, String response) {
+        QuestionGrader grader = graderFor(questionId);
+        if (grader == null) {
+            return Optional.empty();
+        }
+        boolean correct = grader.questionType == QuestionType.MULTIPLE_CHOICE
+                ? grader.isCorrectChoice(answerId)
+                : grader.shortAnswerMatcher.matches(response);
+        return Optional.of(new GradeResult(questionId, correct, grader.correctAnswerIdList, grader.correctAnswer));
+    }
+
+    private QuestionGrader graderFor(Long questionId) {
+        QuestionGrader grader = graders.get(questionId);
+        if (grader != null && courseContentVersions.isCurrent(grader.courseId, grader.version)) {
+            return grader;
+        }
+
+        Optional<Long> courseId = grader != null ? Optional.of(grader.courseId) : questionRepository.findCourseIdById(questionId);
+        if (courseId.isEmpty()) {
+            graders.remove(questionId);
+            return null;
+        }
+        compile(courseId.get());
+        return graders.get(questionId);
+    }
+
+    private void compile(Long courseId) {
+        // Read before loading, so graders built from content newer than the version are merely recompiled later
+        Optional<Long> version = courseContentVersions.current(courseId);
+        if (version.isEmpty()) {
+            graders.values().removeIf(grader -> grader.courseId.equals(courseId));
+            return;
+        }
+
+        List<QuestionGrader> compiled = new ArrayList<>();
+        for (Question question : questionRepository.findWithAnswersByCourseId(courseId)) {
+            compiled.add(new QuestionGrader(courseId, version.get(), question));
+        }
+        for (QuestionGrader grader : compiled) {
+            graders.merge(grader.questionId, grader, (current, fresh) -> fresh.version >= current.version ? fresh : current);
+        }
+        // Whatever is left over from an older version belongs to a deleted question
+        graders.values().removeIf(grader -> grader.courseId.equals(courseId) && grader.version < version.get());
+    }
+
+    private static final class QuestionGrader {
+        private final Long questionId;
+        private final Long courseId;
+        private final long version;
+        private final QuestionType questionType;
+        private final long[] correctAnswerIds;
+        private final List<Long> correctAnswerIdList;
+        private final ShortAnswerMatcher shortAnswerMatcher;
+        private final String correctAnswer;
+
+        private QuestionGrader(Long courseId, long version, Question question) {
+            this.questionId = question.getId();
+            this.courseId = courseId;
+            this.version = version;
+            this.questionType = question.getQuestionType();
+
+            List<Answer> correct = question.getAnswers().stream()
+                    .filter(answer -> Boolean.TRUE.equals(answer.getIsCorrect()))
+                    .toList();
+            this.correctAnswerIds = correct.stream().mapToLong(Answer::getId).sorted().toArray();
+            this.correctAnswerIdList = correct.stream().map(Answer::getId).toList();
+            this.shortAnswerMatcher = new ShortAnswerMatcher(
+                    correct.stream().map(Answer::getNormalizedContent).toList(),
+                    question.getTypoTolerance() != null ? question.getTypoTolerance() : 0);
+            this.correctAnswer = correct.isEmpty() ? null : correct.get(0).getContent();
+        }
+
+        private boolean isCorrectChoice(Long answerId) {
+            return answerId != null && Arrays.binarySearch(correctAnswerIds, answerId) >= 0;
+        }
+    }
+}
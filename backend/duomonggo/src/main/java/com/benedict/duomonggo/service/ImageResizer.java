@@ -0,0 +1,309 @@
+package com.benedict.duomonggo.service;
+
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Turns an uploaded image into the fixed set of sizes the app shows. The
+ * source is decoded once, already subsampled on read when it is much larger
+ * than the biggest variant, turned upright according to its EXIF
+ * orientation, and each smaller variant is scaled down from the one before
+ * it. Images are never scaled up. Opaque images are re-encoded as JPEG,
+ * images with transparency as PNG. CMYK JPEGs are refused, since they cannot
+ * be converted to RGB faithfully without their colour profile.
+ */
+final class ImageResizer {
+    enum Variant {
+        FULL(1600), MEDIUM(640), THUMBNAIL(128);
+
+        // Longest edge in pixels
+        final int size;
+
+        Variant(int size) {
+            this.size = size;
+        }
+    }
+
+    // Refuse images whose decoded pixels alone would take hundreds of megabytes
+    static final long MAX_PIXELS = 40_000_000L;
+
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final int APP1_MARKER = 0xE1;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private ImageResizer() {
+    }
+
+    /**
+     * Checks from the header alone, without decoding, that the file is an
+     * image this class can read, that it is not too large to decode and that
+     * it is not a CMYK JPEG.
+     *
+     * @throws IllegalArgumentException if it is not
+     */
+    static void check(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            ImageReader reader = readerFor(input);
+            try {
+                reader.setInput(input, true, false);
+                checkDimensions(reader.getWidth(0), reader.getHeight(0));
+                checkColorSpace(jpegHeader(reader));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Writes every variant of {@code source} into {@code directory}, named
+     * after {@code prefix}, and returns their paths.
+     *
+     * @throws IllegalArgumentException if the source is not a readable image or is too large
+     */
+    static Map<Variant, Path> resize(Path source, Path directory, String prefix) throws IOException {
+        BufferedImage image = decode(source, Variant.FULL.size);
+        boolean opaque = !image.getColorModel().hasAlpha();
+        String format = opaque ? "jpg" : "png";
+
+        Map<Variant, Path> files = new EnumMap<>(Variant.class);
+        try {
+            for (Variant variant : Variant.values()) {
+                image = scaleDown(image, variant.size, opaque);
+                Path file = directory.resolve(prefix + "-" + variant.name().toLowerCase() + "." + format);
+                files.put(variant, file);
+                write(image, format, file);
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Path file : files.values()) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        }
+        return files;
+    }
+
+    private static BufferedImage decode(Path source, int size) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            ImageReader reader = readerFor(input);
+            try {
+                reader.setInput(input, true, false);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                checkDimensions(width, height);
+                IIOMetadataNode header = jpegHeader(reader);
+                checkColorSpace(header);
+
+                // Skipping pixels while reading keeps at least twice the largest variant for scaling
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * size));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return orient(reader.read(0, param), orientation(header));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader readerFor(ImageInputStream input) {
+        Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+        if (readers == null || !readers.hasNext()) {
+            throw new IllegalArgumentException("The file is not a supported image");
+        }
+        return readers.next();
+    }
+
+    private static void checkDimensions(int width, int height) {
+        if ((long) width * height > MAX_PIXELS) {
+            throw new IllegalArgumentException("Images may be at most " + MAX_PIXELS / 1_000_000 + " megapixels");
+        }
+    }
+
+    /**
+     * The JPEG marker segments read before the image data, or null for other
+     * formats. Reading them does not decode any pixels.
+     */
+    private static IIOMetadataNode jpegHeader(ImageReader reader) throws IOException {
+        if (!reader.getFormatName().equalsIgnoreCase("jpeg")) {
+            return null;
+        }
+        IIOMetadata metadata = reader.getImageMetadata(0);
+        if (metadata == null || !Arrays.asList(metadata.getMetadataFormatNames()).contains(JPEG_METADATA_FORMAT)) {
+            return null;
+        }
+        return (IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT);
+    }
+
+    // Four components in a JPEG frame are CMYK or YCCK
+    private static void checkColorSpace(IIOMetadataNode header) {
+        if (header == null) {
+            return;
+        }
+        NodeList frames = header.getElementsByTagName("sof");
+        if (frames.getLength() > 0 && "4".equals(((IIOMetadataNode) frames.item(0)).getAttribute("numFrameComponents"))) {
+            throw new IllegalArgumentException("CMYK images are not supported, please save the image as RGB");
+        }
+    }
+
+    /**
+     * The EXIF orientation of a JPEG, 1 to 8, or 1 when there is none.
+     */
+    static int orientation(IIOMetadataNode header) {
+        if (header == null) {
+            return 1;
+        }
+        NodeList segments = header.getElementsByTagName("unknown");
+        for (int i = 0; i < segments.getLength(); i++) {
+            IIOMetadataNode segment = (IIOMetadataNode) segments.item(i);
+            if (Integer.toString(APP1_MARKER).equals(segment.getAttribute("MarkerTag"))
+                    && segment.getUserObject() instanceof byte[] data) {
+                int orientation = exifOrientation(data);
+                if (orientation > 0) {
+                    return orientation;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Finds the orientation tag in the first IFD of an APP1 Exif segment, or
+     * returns 0 when the segment is not Exif or has none.
+     */
+    private static int exifOrientation(byte[] data) {
+        // "Exif\0\0", then a TIFF header: byte order, 42, offset of the first IFD
+        if (data.length < 14 || data[0] != 'E' || data[1] != 'x' || data[2] != 'i' || data[3] != 'f') {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(data, 6, data.length - 6).slice();
+        if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+            tiff.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (tiff.get(0) != 'M' || tiff.get(1) != 'M') {
+            return 0;
+        }
+        long ifd = Integer.toUnsignedLong(tiff.getInt(4));
+        if (ifd + 2 > tiff.limit()) {
+            return 0;
+        }
+        int entries = Short.toUnsignedInt(tiff.getShort((int) ifd));
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                return 0;
+            }
+            if (Short.toUnsignedInt(tiff.getShort(entry)) == ORIENTATION_TAG) {
+                int orientation = Short.toUnsignedInt(tiff.getShort(entry + 8));
+                return orientation >= 1 && orientation <= 8 ? orientation : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Turns the image upright for the given EXIF orientation. Orientations
+     * 5 to 8 swap width and height.
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+
+        boolean swap = orientation >= 5;
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage upright = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D graphics = upright.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return upright;
+    }
+
+    /**
+     * Scales the image so its longest edge is at most {@code size}, halving
+     * it with bilinear filtering until the last step, which keeps the result
+     * sharp without the cost of bicubic filtering. Also normalises the pixel
+     * type, so an image already small enough is still copied when it is not
+     * plain RGB or ARGB.
+     */
+    static BufferedImage scaleDown(BufferedImage image, int size, boolean opaque) {
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        int longest = Math.max(image.getWidth(), image.getHeight());
+        double scale = Math.min(1.0, (double) size / longest);
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        if (image.getType() == type && image.getWidth() == targetWidth && image.getHeight() == targetHeight) {
+            return image;
+        }
+
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static void write(BufferedImage image, String format, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (format.equals("jpg")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
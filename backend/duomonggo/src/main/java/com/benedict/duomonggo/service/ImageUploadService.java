@@ -0,0 +1,181 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.ImageUpload;
+import com.benedict.duomonggo.model.StoredImage;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Uploads images on a dedicated pool, after the transaction that asked for
+ * them has committed, so no database connection is held while bytes travel
+ * to the image host. Each image is resized into its variants on the pool
+ * too, and once they are stored the caller's callback records their URLs
+ * in a short transaction of its own.
+ * <p>
+ * Upload statuses are kept in memory for polling and forgotten some time
+ * after they finish.
+ */
+@Service
+public class ImageUploadService {
+    private final MediaStore mediaStore;
+    private final MediaCleanupService mediaCleanupService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Duration statusTtl;
+    private final DataSize maxSize;
+    private final Path spoolDirectory;
+    private final Map<String, ImageUpload> uploads = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ImageUploadService(MediaStore mediaStore, MediaCleanupService mediaCleanupService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${duomonggo.uploads.threads:4}") int threads,
+                              @Value("${duomonggo.uploads.queue-capacity:64}") int queueCapacity,
+                              @Value("${duomonggo.uploads.status-ttl:30m}") Duration statusTtl,
+                              @Value("${duomonggo.uploads.max-size:10MB}") DataSize maxSize,
+                              @Value("${duomonggo.uploads.spool-directory}") Path spoolDirectory) throws IOException {
+        this.mediaStore = mediaStore;
+        this.mediaCleanupService = mediaCleanupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.statusTtl = statusTtl;
+        this.maxSize = maxSize;
+        this.spoolDirectory = Files.createDirectories(spoolDirectory);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-upload-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Moves the uploaded file into a spool file so it outlives the request,
+     * once its reported size is within the limit, then checks from its header
+     * that it is an image that can be resized.
+     * Returns null when there is no file. The caller closes the upload, which
+     * deletes the spool file unless the upload has been started.
+     *
+     * @throws IllegalArgumentException if the file is too large or not a supported image
+     */
+    public ImageUpload stage(MultipartFile file, String folder) throws IOException {
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        if (file.getSize() > maxSize.toBytes()) {
+            throw tooLarge();
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path spooled = spoolDirectory.resolve(id);
+        try {
+            // The container has already stored the part, so this is a move or a single copy
+            file.transferTo(spooled);
+            ImageResizer.check(spooled);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+        return new ImageUpload(id, folder, spooled);
+    }
+
+    /**
+     * Starts the upload once the surrounding transaction commits, then passes
+     * the stored image's URLs to {@code onStored} inside a new transaction. If
+     * the surrounding transaction rolls back, the upload is cancelled.
+     */
+    public void startAfterCommit(ImageUpload upload, Consumer<StoredImage> onStored) {
+        upload.started();
+        uploads.put(upload.getId(), upload);
+        TransactionHooks.afterCommit(() -> start(upload, onStored),
+                () -> upload.failed("Cancelled because the change was not saved"));
+    }
+
+    public Optional<ImageUpload> getUpload(String id) {
+        return Optional.ofNullable(uploads.get(id));
+    }
+
+    @Scheduled(fixedDelayString = "${duomonggo.uploads.cleanup-interval-ms:60000}")
+    public void forgetOldUploads() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(statusTtl);
+        uploads.values().removeIf(upload -> upload.getCreatedAt().isBefore(cutoff)
+                && (upload.isFinished() || upload.getStatus() == ImageUpload.Status.QUEUED));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private IllegalArgumentException tooLarge() {
+        return new IllegalArgumentException("Images may be at most " + maxSize.toMegabytes() + " MB");
+    }
+
+    private void start(ImageUpload upload, Consumer<StoredImage> onStored) {
+        try {
+            executor.execute(() -> upload(upload, onStored));
+        } catch (RejectedExecutionException e) {
+            upload.failed("Too many uploads in progress, please try again shortly");
+        }
+    }
+
+    private void upload(ImageUpload upload, Consumer<StoredImage> onStored) {
+        upload.uploading();
+        Map<ImageResizer.Variant, Path> variants = Map.of();
+        try {
+            variants = ImageResizer.resize(upload.getFile(), spoolDirectory, upload.getId());
+            StoredImage image = new StoredImage(
+                    store(variants.get(ImageResizer.Variant.FULL), upload.getFolder()),
+                    store(variants.get(ImageResizer.Variant.MEDIUM), upload.getFolder()),
+                    store(variants.get(ImageResizer.Variant.THUMBNAIL), upload.getFolder()));
+            transactionTemplate.executeWithoutResult(status -> onStored.accept(image));
+            upload.stored(image);
+        } catch (Exception e) {
+            upload.failed("Upload failed: " + e.getMessage());
+        } finally {
+            for (Path variant : variants.values()) {
+                deleteQuietly(variant);
+            }
+        }
+    }
+
+    private String store(Path variant, String folder) throws IOException {
+        // Stores hand out the existing file for known content, which an earlier deletion may still have queued
+        mediaCleanupService.storing(ContentHash.of(variant));
+        return mediaStore.store(variant, folder);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left for the operating system's temp cleanup
+        }
+    }
+}
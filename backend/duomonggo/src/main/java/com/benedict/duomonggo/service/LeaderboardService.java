@@ -0,0 +1,154 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.LeaderboardEntry;
+import com.benedict.duomonggo.model.LeaderboardStanding;
+import com.benedict.duomonggo.model.Role;
+import com.benedict.duomonggo.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps every USER account ranked by EXP in memory. The index is loaded once at
+ * startup and then kept current by the services that change EXP, usernames or
+ * avatars, so leaderboard reads never touch the database.
+ */
+@Service
+public class LeaderboardService {
+    private static final Comparator<LeaderboardEntry> RANKING_ORDER =
+            Comparator.comparingInt(LeaderboardEntry::getExp).reversed()
+                    .thenComparing(LeaderboardEntry::getAccountId);
+
+    private final AccountRepository accountRepository;
+    private final OrderStatisticTree<LeaderboardEntry> ranking = new OrderStatisticTree<>(RANKING_ORDER);
+    private final Map<Long, LeaderboardEntry> entriesByAccount = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock refreshLock = new ReentrantLock();
+
+    @Autowired
+    public LeaderboardService(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            ranking.clear();
+            entriesByAccount.clear();
+            for (LeaderboardEntry entry : accountRepository.findLeaderboardEntries(Role.USER)) {
+                put(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-reads the ranked columns of an account once the surrounding
+     * transaction commits. Accounts that are gone or are not regular users
+     * are dropped from the ranking.
+     */
+    public void accountChanged(Long accountId) {
+        accountsChanged(List.of(accountId));
+    }
+
+    public void accountsChanged(Collection<Long> accountIds) {
+        // An import that created nothing has nothing to re-read
+        if (accountIds.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> refresh(accountIds));
+    }
+
+    public void accountRemoved(Long accountId) {
+        accountChanged(accountId);
+    }
+    public List<LeaderboardStanding> getStandings(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int total = ranking.size();
+            List<LeaderboardEntry> entries = ranking.range(offset, limit);
+            List<LeaderboardStanding> standings = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                standings.add(new LeaderboardStanding(offset + i + 1, total, entries.get(i)));
+            }
+            return standings;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<LeaderboardStanding> getStanding(Long accountId) {
+        lock.readLock().lock();
+        try {
+            LeaderboardEntry entry = entriesByAccount.get(accountId);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new LeaderboardStanding(ranking.rank(entry) + 1, ranking.size(), entry));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the accounts after their change committed and applies what it
+     * finds. Refreshes run one at a time, so when two commits touch the same
+     * account the refresh that read last is also the one applied last, and
+     * the ranking cannot keep the older state.
+     */
+    private void refresh(Collection<Long> accountIds) {
+        refreshLock.lock();
+        try {
+            Map<Long, LeaderboardEntry> current = new HashMap<>();
+            for (LeaderboardEntry entry : accountRepository.findLeaderboardEntriesByIds(accountIds, Role.USER)) {
+                current.put(entry.getAccountId(), entry);
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Long accountId : accountIds) {
+                    LeaderboardEntry entry = current.get(accountId);
+                    if (entry != null) {
+                        put(entry);
+                    } else {
+                        remove(accountId);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void put(LeaderboardEntry entry) {
+        LeaderboardEntry previous = entriesByAccount.put(entry.getAccountId(), entry);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        ranking.add(entry);
+    }
+
+    private void remove(Long accountId) {
+        LeaderboardEntry previous = entriesByAccount.remove(accountId);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.benedict.duomonggo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Keeps media in a local directory, for self-hosting and for development
+ * and tests without network access. Files are named by the SHA-256 of their
+ * content and spread over subdirectories by the first two hex digits, so a
+ * file stored twice is kept once. Folders are not used: identical images
+ * from different folders share a file. Files are served by the media
+ * controller at {@value #URL_PATH}. An optional delay makes the store behave
+ * like a slow remote one.
+ */
+@Service
+@ConditionalOnProperty(name = "duomonggo.media.store", havingValue = "local")
+public class LocalMediaStore implements MediaStore {
+    public static final String URL_PATH = "/media/";
+
+    private static final Pattern NAME = Pattern.compile("[0-9a-f]{" + ContentHash.LENGTH + "}(\\.[a-z0-9]{1,8})?");
+
+    private final Path directory;
+    private final String baseUrl;
+    private final Duration delay;
+
+    public LocalMediaStore(@Value("${duomonggo.media.local.directory}") Path directory,
+                           @Value("${duomonggo.media.local.base-url}") String baseUrl,
+                           @Value("${duomonggo.media.local.delay:0ms}") Duration delay) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.baseUrl = baseUrl;
+        this.delay = delay;
+    }
+
+    @Override
+    public String store(Path file, String folder) throws IOException {
+        if (!delay.isZero()) {
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while storing", e);
+            }
+        }
+
+        // Hash while copying next to the final location, then move into place in one step
+        Path incoming = Files.createTempFile(directory, "incoming-", ".tmp");
+        try {
+            MessageDigest digest = ContentHash.digest();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest);
+                 OutputStream out = Files.newOutputStream(incoming)) {
+                in.transferTo(out);
+            }
+
+            String extension = StringUtils.getFilenameExtension(file.getFileName().toString());
+            boolean plainExtension = extension != null && extension.matches("[A-Za-z0-9]{1,8}");
+            String name = ContentHash.hex(digest) + (plainExtension ? "." + extension.toLowerCase() : "");
+            Path target = pathOf(name);
+            if (Files.exists(target)) {
+                // In use again, so the orphan reconciliation must not take it for an old leftover
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            } else {
+                Files.createDirectories(target.getParent());
+                moveIntoPlace(incoming, target);
+            }
+            return baseUrl + URL_PATH + name;
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    @Override
+    public void delete(String url) throws IOException {
+        String path = URI.create(url).getPath();
+        if (path != null && path.startsWith(URL_PATH)) {
+            Optional<Path> file = find(path.substring(URL_PATH.length()));
+            if (file.isPresent()) {
+                Files.deleteIfExists(file.get());
+            }
+        }
+    }
+
+    /**
+     * Lists every stored file, whatever the folders, since files are not
+     * kept by folder.
+     */
+    @Override
+    public void list(Collection<String> folders, Instant storedBefore, Consumer<String> action) throws IOException {
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (NAME.matcher(name).matches() && Files.isRegularFile(file)
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(storedBefore)) {
+                    action.accept(baseUrl + URL_PATH + name);
+                }
+            }
+        }
+    }
+
+    /**
+     * The file stored under {@code name}, as it appears in a media URL, or
+     * empty if the name is not one this store hands out or the file is gone.
+     */
+    public Optional<Path> find(String name) {
+        if (!NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path file = pathOf(name);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private Path pathOf(String name) {
+        return directory.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private static void moveIntoPlace(Path incoming, Path target) throws IOException {
+        try {
+            Files.move(incoming, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Stored concurrently by another upload; the content is the same
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(incoming, target);
+            } catch (FileAlreadyExistsException alreadyStored) {
+                // As above
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.config.SchedulingConfig;
+import com.benedict.duomonggo.model.StoredImage;
+import com.benedict.duomonggo.repository.MediaDeletionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deletes media files nothing refers to any more. Requests only queue the
+ * URLs of replaced and deleted images, in their own transaction; a
+ * background worker deletes them from the media store in small batches at a
+ * limited rate, once a grace period has passed, and retries failures with
+ * backoff. An optional nightly reconciliation queues stored files that no
+ * row uses, which catches uploads whose row went away and anything the
+ * queue missed.
+ * <p>
+ * Stores are content addressed, so one file can back several images. A
+ * claimed batch is checked by URL path against every account and question in
+ * one query, and each file is then deleted while its entry is locked; the
+ * entry is dropped instead if a row used the file. Uploads cancel the entries
+ * for their content before storing it, and course imports the entries for
+ * the URLs they write, both waiting for a deletion that is already under
+ * way, so a file that comes back into use after the check is not deleted.
+ */
+@Service
+public class MediaCleanupService {
+    public static final List<String> MEDIA_FOLDERS = List.of("questions", "accounts");
+
+    // Claimed entries are skipped by other workers until the lease runs out, then retried
+    private static final String CLAIM_SQL =
+            "UPDATE media_deletions SET not_before = LOCALTIMESTAMP + make_interval(secs => ?), attempts = attempts + 1 " +
+            "WHERE id IN (SELECT id FROM media_deletions WHERE not_before <= LOCALTIMESTAMP AND attempts < ? " +
+            "ORDER BY not_before LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, url, attempts";
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(15);
+    private static final Duration FIRST_RETRY = Duration.ofMinutes(1);
+    private static final Duration MAX_RETRY = Duration.ofHours(6);
+    private static final int RECONCILE_CHUNK_SIZE = 500;
+
+    private final MediaStore mediaStore;
+    private final MediaDeletionRepository mediaDeletionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final int deletesPerSecond;
+    private final int maxAttempts;
+    private final boolean reconcileEnabled;
+
+    @Autowired
+    public MediaCleanupService(MediaStore mediaStore, MediaDeletionRepository mediaDeletionRepository,
+                               JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               @Value("${duomonggo.media.cleanup.grace-period:10m}") Duration gracePeriod,
+                               @Value("${duomonggo.media.cleanup.batch-size:50}") int batchSize,
+                               @Value("${duomonggo.media.cleanup.deletes-per-second:5}") int deletesPerSecond,
+                               @Value("${duomonggo.media.cleanup.max-attempts:8}") int maxAttempts,
+                               @Value("${duomonggo.media.cleanup.reconcile-enabled:false}") boolean reconcileEnabled) {
+        this.mediaStore = mediaStore;
+        this.mediaDeletionRepository = mediaDeletionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        this.deletesPerSecond = Math.max(1, deletesPerSecond);
+        this.maxAttempts = maxAttempts;
+        this.reconcileEnabled = reconcileEnabled;
+    }
+
+    /**
+     * Queues the files of an image that is no longer used, in the caller's
+     * transaction, so they are only deleted if the change is saved.
+     */
+    @Transactional
+    public void orphaned(StoredImage image) {
+        if (image != null) {
+            enqueue(image.urls());
+        }
+    }
+
+    @Transactional
+    public void orphaned(Collection<StoredImage> images) {
+        List<String> urls = new ArrayList<>();
+        for (StoredImage image : images) {
+            urls.addAll(image.urls());
+        }
+        enqueue(urls);
+    }
+
+    /**
+     * Queues the files of {@code previous} that {@code replacement} does not
+     * reuse. Uploading the same image again gives the same URLs.
+     */
+    @Transactional
+    public void replaced(StoredImage previous, StoredImage replacement) {
+        if (previous != null) {
+            List<String> urls = previous.urls();
+            urls.removeAll(replacement.urls());
+            enqueue(urls);
+        }
+    }
+
+    /**
+     * Cancels queued deletions of the file with this content, before it is
+     * stored again. A deletion that is under way is waited for, so storing
+     * afterwards puts the file back.
+     */
+    @Transactional
+    public void storing(String contentHash) {
+        mediaDeletionRepository.cancelByContentHash(contentHash);
+    }
+
+    /**
+     * Cancels queued deletions of files that rows written in the caller's
+     * transaction refer to again, as imported questions do.
+     */
+    @Transactional
+    public void reusing(Collection<String> urls) {
+        if (!urls.isEmpty()) {
+            mediaDeletionRepository.cancelByUrls(urls.toArray(String[]::new));
+        }
+    }
+
+    /**
+     * Deletes one batch of queued files whose grace period or retry delay
+     * is over, no faster than the configured rate.
+     */
+    @Scheduled(fixedDelayString = "${duomonggo.media.cleanup.interval-ms:30000}",
+               scheduler = SchedulingConfig.MEDIA_CLEANUP_SCHEDULER)
+    public void deleteOrphans() {
+        List<Claim> claims = jdbcTemplate.query(CLAIM_SQL,
+                (rs, row) -> new Claim(rs.getLong("id"), rs.getString("url"), rs.getInt("attempts")),
+                CLAIM_LEASE.toSeconds(), maxAttempts, batchSize);
+        if (claims.isEmpty()) {
+            return;
+        }
+        Set<String> used = usedPaths(claims.stream().map(Claim::url).toList());
+        long interval = 1_000_000_000L / deletesPerSecond;
+        long next = System.nanoTime();
+        for (Claim claim : claims) {
+            try {
+                pause(next);
+            } catch (InterruptedException e) {
+                // The rest stay claimed and are picked up again when the lease runs out
+                Thread.currentThread().interrupt();
+                return;
+            }
+            next = System.nanoTime() + interval;
+            transactionTemplate.executeWithoutResult(status -> delete(claim, used.contains(pathOf(claim.url()))));
+        }
+    }
+
+    /**
+     * Queues every stored file that is older than the grace period and that
+     * no account or question uses. Files are checked in chunks while the
+     * store is listed.
+     * <p>
+     * Off unless {@code duomonggo.media.cleanup.reconcile-enabled} is set:
+     * a file that is not in this database is only safe to delete when no
+     * other deployment shares the store. The local store is private to its
+     * directory; Cloudinary lists only this deployment's folder prefix.
+     */
+    @Scheduled(cron = "${duomonggo.media.cleanup.reconcile-cron:0 30 3 * * *}",
+               scheduler = SchedulingConfig.MEDIA_CLEANUP_SCHEDULER)
+    public void reconcile() throws IOException {
+        if (!reconcileEnabled) {
+            return;
+        }
+        List<String> chunk = new ArrayList<>(RECONCILE_CHUNK_SIZE);
+        mediaStore.list(MEDIA_FOLDERS, Instant.now().minus(gracePeriod), url -> {
+            chunk.add(url);
+            if (chunk.size() == RECONCILE_CHUNK_SIZE) {
+                enqueueUnused(chunk);
+                chunk.clear();
+            }
+        });
+        enqueueUnused(chunk);
+    }
+
+    private void enqueueUnused(List<String> urls) {
+        if (urls.isEmpty()) {
+            return;
+        }
+        Set<String> used = usedPaths(urls);
+        List<String> unused = urls.stream().filter(url -> !used.contains(pathOf(url))).toList();
+        if (!unused.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> enqueue(unused));
+        }
+    }
+
+    private Set<String> usedPaths(List<String> urls) {
+        return new HashSet<>(mediaDeletionRepository.findUsedPaths(
+                urls.stream().map(MediaCleanupService::pathOf).toArray(String[]::new)));
+    }
+
+    private void enqueue(List<String> urls) {
+        if (!urls.isEmpty()) {
+            mediaDeletionRepository.enqueue(urls.toArray(String[]::new), gracePeriod.toSeconds());
+        }
+    }
+
+    /**
+     * Deletes the file of one claimed entry and then the entry, unless an
+     * upload or import cancelled it, or the batch check found the file in
+     * use. The entry stays locked until the file is gone.
+     */
+    private void delete(Claim claim, boolean used) {
+        if (mediaDeletionRepository.lockById(claim.id()).isEmpty()) {
+            return;
+        }
+        if (!used) {
+            try {
+                mediaStore.delete(claim.url());
+            } catch (IOException | RuntimeException e) {
+                String error = e.getMessage() != null ? e.getMessage() : e.toString();
+                mediaDeletionRepository.retryLater(claim.id(), retryDelay(claim.attempts()).toSeconds(), error);
+                return;
+            }
+        }
+        mediaDeletionRepository.deleteAllByIdInBatch(List.of(claim.id()));
+    }
+
+    // 1, 2, 4... minutes after each failed attempt, at most six hours
+    static Duration retryDelay(int attempts) {
+        Duration delay = FIRST_RETRY.multipliedBy(1L << Math.min(Math.max(attempts - 1, 0), 16));
+        return delay.compareTo(MAX_RETRY) < 0 ? delay : MAX_RETRY;
+    }
+
+    private static String pathOf(String url) {
+        try {
+            String path = URI.create(url).getRawPath();
+            return path != null ? path : url;
+        } catch (IllegalArgumentException e) {
+            // Not a URL any store hands out; deleting it fails and is retried like any other failure
+            return url;
+        }
+    }
+
+    private static void pause(long until) throws InterruptedException {
+        long wait = until - System.nanoTime();
+        if (wait > 0) {
+            Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+        }
+    }
+
+    private record Claim(long id, String url, int attempts) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.benedict.duomonggo.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Where uploaded media lives: Cloudinary by default, or a local directory
+ * with {@code duomonggo.media.store=local}. Stores are content addressed, so
+ * the same file stored twice is kept once and gets the same URL.
+ * <p>
+ * Called from the upload workers, never inside a database transaction. The
+ * file should be streamed rather than read into memory.
+ */
+public interface MediaStore {
+    /**
+     * Stores the file and returns its public URL. The file name's extension
+     * is kept; {@code folder} groups the file where the store supports it.
+     */
+    String store(Path file, String folder) throws IOException;
+
+    /**
+     * Deletes the file behind a URL this store returned. URLs the store does
+     * not recognise, and files that are already gone, are ignored.
+     */
+    void delete(String url) throws IOException;
+
+    /**
+     * Passes the URL of every file in the given folders that was stored, or
+     * last stored again, before {@code storedBefore} to {@code action}.
+     */
+    void list(Collection<String> folders, Instant storedBefore, Consumer<String> action) throws IOException;
+}
@@ -0,0 +1,243 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.MultiplayerResult;
+import com.benedict.duomonggo.model.MultiplayerStanding;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes multiplayer ranking changes to subscribers over Server-Sent Events.
+ * Finishes only mark a course as dirty; a scheduled flush turns everything
+ * that changed since the last tick into a single frame per course, so the
+ * cost of a finish does not grow with the number of people watching.
+ * <p>
+ * Frames are queued per subscriber and written on a small sender pool, so a
+ * slow client only holds up itself. A subscriber that falls too far behind
+ * is disconnected and gets a fresh snapshot when it reconnects.
+ */
+@Service
+public class MultiplayerLiveService {
+    private static final int SNAPSHOT_SIZE = 20;
+    private static final long HEARTBEAT_INTERVAL_MS = 20_000;
+    private static final int MAX_QUEUED_FRAMES = 64;
+    private static final Comparator<MultiplayerStanding> BY_RANK = Comparator.comparingInt(MultiplayerStanding::getRank);
+
+    private final MultiplayerRankingService rankingService;
+    private final ObjectMapper objectMapper;
+    private final long subscriptionTimeoutMs;
+    private final ExecutorService sender;
+    private final Map<Long, CourseChannel> channels = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MultiplayerLiveService(MultiplayerRankingService rankingService, ObjectMapper objectMapper,
+                                  @Value("${duomonggo.multiplayer.live.subscription-timeout-ms:1800000}") long subscriptionTimeoutMs,
+                                  @Value("${duomonggo.multiplayer.live.sender-threads:4}") int senderThreads) {
+        this.rankingService = rankingService;
+        this.objectMapper = objectMapper;
+        this.subscriptionTimeoutMs = subscriptionTimeoutMs;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "multiplayer-live-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Subscribes first and then reads the snapshot, both while the course is
+     * not being flushed, so every finish is either in the snapshot or in a
+     * frame queued after it. The snapshot may have to be loaded from the
+     * database, so it is read outside the map's lock; if that fails the
+     * subscription is dropped and the emitter completes with the error.
+     */
+    public SseEmitter subscribe(Long courseId) {
+        Subscriber subscriber = new Subscriber(courseId, new SseEmitter(subscriptionTimeoutMs));
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(error -> unsubscribe(subscriber));
+
+        // Adding inside compute keeps the flush from dropping the channel in between
+        CourseChannel channel = channels.compute(courseId, (id, existing) -> {
+            CourseChannel current = existing != null ? existing : new CourseChannel();
+            current.subscribers.add(subscriber);
+            return current;
+        });
+        synchronized (channel) {
+            try {
+                List<MultiplayerStanding> snapshot = rankingService.getStandings(courseId, 0, SNAPSHOT_SIZE);
+                subscriber.offer(event("snapshot", courseId, snapshot));
+            } catch (RuntimeException e) {
+                unsubscribe(subscriber);
+                subscriber.emitter.completeWithError(e);
+            }
+        }
+        return subscriber.emitter;
+    }
+
+    public void resultRecorded(Long courseId, MultiplayerResult result) {
+        TransactionHooks.afterCommit(() -> {
+            CourseChannel channel = channels.get(courseId);
+            if (channel != null && !channel.subscribers.isEmpty()) {
+                channel.pendingAccounts.add(result.getAccountId());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${duomonggo.multiplayer.live.flush-interval-ms:250}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, CourseChannel> entry : channels.entrySet()) {
+            Long courseId = entry.getKey();
+            CourseChannel channel = entry.getValue();
+            channels.computeIfPresent(courseId, (id, current) -> current.subscribers.isEmpty() ? null : current);
+            synchronized (channel) {
+                flush(courseId, channel, now);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+    }
+
+    private void flush(Long courseId, CourseChannel channel, long now) {
+        if (channel.subscribers.isEmpty()) {
+            return;
+        }
+
+        List<Long> changedAccounts = new ArrayList<>(channel.pendingAccounts);
+        if (changedAccounts.isEmpty()) {
+            if (now - channel.lastSentAt > HEARTBEAT_INTERVAL_MS) {
+                broadcast(channel, SseEmitter.event().comment("keepalive").build(), now);
+            }
+            return;
+        }
+        changedAccounts.forEach(channel.pendingAccounts::remove);
+
+        List<MultiplayerStanding> updates = new ArrayList<>(changedAccounts.size());
+        for (Long accountId : changedAccounts) {
+            rankingService.getStanding(courseId, accountId).ifPresent(updates::add);
+        }
+        if (!updates.isEmpty()) {
+            updates.sort(BY_RANK);
+            broadcast(channel, event("ranking", courseId, updates), now);
+        }
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> event(String name, Long courseId, List<MultiplayerStanding> standings) {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("courseId", courseId);
+        frame.put("totalPlayers", standings.isEmpty() ? 0 : standings.get(standings.size() - 1).getTotalPlayers());
+        frame.put("standings", standings);
+        try {
+            return SseEmitter.event().name(name).data(objectMapper.writeValueAsString(frame), MediaType.APPLICATION_JSON).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode ranking update", e);
+        }
+    }
+
+    private void broadcast(CourseChannel channel, Set<ResponseBodyEmitter.DataWithMediaType> encoded, long now) {
+        // The event is encoded once and the same frame is queued for every subscriber
+        channel.lastSentAt = now;
+        for (Subscriber subscriber : channel.subscribers) {
+            subscriber.offer(encoded);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        CourseChannel channel = channels.get(subscriber.courseId);
+        if (channel != null) {
+            channel.subscribers.remove(subscriber);
+        }
+    }
+
+    private static final class CourseChannel {
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final Set<Long> pendingAccounts = ConcurrentHashMap.newKeySet();
+        private volatile long lastSentAt = System.currentTimeMillis();
+    }
+
+    /**
+     * One connection's frames, written in order by at most one sender thread
+     * at a time.
+     */
+    private final class Subscriber {
+        private final Long courseId;
+        private final SseEmitter emitter;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> frames = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(Long courseId, SseEmitter emitter) {
+            this.courseId = courseId;
+            this.emitter = emitter;
+        }
+
+        private void offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            if (queued.incrementAndGet() > MAX_QUEUED_FRAMES) {
+                unsubscribe(this);
+                emitter.complete();
+                return;
+            }
+            frames.add(frame);
+            schedule();
+        }
+
+        private void schedule() {
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> frame;
+                while ((frame = frames.poll()) != null) {
+                    queued.decrementAndGet();
+                    emitter.send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                unsubscribe(this);
+                return;
+            } finally {
+                sending.set(false);
+            }
+            // A frame offered after the last poll but before the flag was cleared
+            if (!frames.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
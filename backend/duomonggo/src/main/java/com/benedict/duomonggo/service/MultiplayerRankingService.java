@@ -0,0 +1,162 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.MultiplayerResult;
+import com.benedict.duomonggo.model.MultiplayerStanding;
+import com.benedict.duomonggo.repository.CourseRepository;
+import com.benedict.duomonggo.repository.MultiplayerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-course ranking of finished multiplayer attempts ordered by completion time.
+ * A course board is warmed with a single projection query the first time it is
+ * read and afterwards fed by {@link MultiplayerService#completeCourse}.
+ */
+@Service
+public class MultiplayerRankingService {
+    private static final Comparator<MultiplayerResult> RANKING_ORDER =
+            Comparator.comparingLong(MultiplayerResult::getCompletionTime)
+                    .thenComparing(MultiplayerResult::getCompletedAt)
+                    .thenComparing(MultiplayerResult::getAccountId);
+
+    private final MultiplayerRepository multiplayerRepository;
+    private final CourseRepository courseRepository;
+    private final Map<Long, CourseBoard> boards = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MultiplayerRankingService(MultiplayerRepository multiplayerRepository, CourseRepository courseRepository) {
+        this.multiplayerRepository = multiplayerRepository;
+        this.courseRepository = courseRepository;
+    }
+
+    public List<MultiplayerStanding> getStandings(Long courseId, int offset, int limit) {
+        return board(courseId).standings(offset, limit);
+    }
+
+    public Optional<MultiplayerStanding> getStanding(Long courseId, Long accountId) {
+        return board(courseId).standing(accountId);
+    }
+
+    public void resultRecorded(Long courseId, MultiplayerResult result) {
+        TransactionHooks.afterCommit(() -> {
+            // Boards that were never read are warmed from the database later on
+            CourseBoard board = boards.get(courseId);
+            if (board != null) {
+                board.put(result);
+            }
+        });
+    }
+
+    public void accountRenamed(Long accountId, String username) {
+        TransactionHooks.afterCommit(() -> boards.values().forEach(board -> board.rename(accountId, username)));
+    }
+
+    public void courseRemoved(Long courseId) {
+        TransactionHooks.afterCommit(() -> boards.remove(courseId));
+    }
+
+    private CourseBoard board(Long courseId) {
+        CourseBoard board = boards.get(courseId);
+        if (board == null) {
+            if (!courseRepository.existsById(courseId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found");
+            }
+            board = boards.computeIfAbsent(courseId, id -> new CourseBoard());
+        }
+        board.warm(courseId);
+        return board;
+    }
+
+    private final class CourseBoard {
+        private final OrderStatisticTree<MultiplayerResult> ranking = new OrderStatisticTree<>(RANKING_ORDER);
+        private final Map<Long, MultiplayerResult> resultsByAccount = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile boolean warmed;
+
+        void warm(Long courseId) {
+            if (warmed) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                if (!warmed) {
+                    for (MultiplayerResult result : multiplayerRepository.findResultsByCourseId(courseId)) {
+                        putLocked(result);
+                    }
+                    warmed = true;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void put(MultiplayerResult result) {
+            lock.writeLock().lock();
+            try {
+                putLocked(result);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void rename(Long accountId, String username) {
+            lock.writeLock().lock();
+            try {
+                MultiplayerResult result = resultsByAccount.get(accountId);
+                if (result != null) {
+                    putLocked(result.withUsername(username));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<MultiplayerStanding> standings(int offset, int limit) {
+            lock.readLock().lock();
+            try {
+                int total = ranking.size();
+                List<MultiplayerResult> results = ranking.range(offset, limit);
+                List<MultiplayerStanding> standings = new ArrayList<>(results.size());
+                for (int i = 0; i < results.size(); i++) {
+                    standings.add(new MultiplayerStanding(offset + i + 1, total, results.get(i)));
+                }
+                return standings;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Optional<MultiplayerStanding> standing(Long accountId) {
+            lock.readLock().lock();
+            try {
+                MultiplayerResult result = resultsByAccount.get(accountId);
+                if (result == null) {
+                    return Optional.empty();
+                }
+                return Optional.of(new MultiplayerStanding(ranking.rank(result) + 1, ranking.size(), result));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void putLocked(MultiplayerResult result) {
+            MultiplayerResult previous = resultsByAccount.put(result.getAccountId(), result);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            ranking.add(result);
+        }
+    }
+}
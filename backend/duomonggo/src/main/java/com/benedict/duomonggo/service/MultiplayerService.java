@@ -4,6 +4,8 @@ import com.benedict.duomonggo.model.Account;
 import com.benedict.duomonggo.model.Course;
 import com.benedict.duomonggo.model.CourseType;
 import com.benedict.duomonggo.model.Multiplayer;
+import com.benedict.duomonggo.model.MultiplayerResult;
+import com.benedict.duomonggo.model.MultiplayerStanding;
 import com.benedict.duomonggo.repository.AccountRepository;
 import com.benedict.duomonggo.repository.CourseRepository;
 import com.benedict.duomonggo.repository.MultiplayerRepository;
@@ -12,9 +14,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -25,14 +28,20 @@ public class MultiplayerService {
     private final MultiplayerRepository multiplayerRepository;
     private final AccountRepository accountRepository;
     private final CourseRepository courseRepository;
+    private final MultiplayerRankingService rankingService;
+    private final MultiplayerLiveService liveService;
 
     @Autowired
     public MultiplayerService(MultiplayerRepository multiplayerRepository,
                              AccountRepository accountRepository,
-                             CourseRepository courseRepository) {
+                             CourseRepository courseRepository,
+                             MultiplayerRankingService rankingService,
+                             MultiplayerLiveService liveService) {
         this.multiplayerRepository = multiplayerRepository;
         this.accountRepository = accountRepository;
         this.courseRepository = courseRepository;
+        this.rankingService = rankingService;
+        this.liveService = liveService;
     }
 
     @Transactional
@@ -54,7 +63,7 @@ public class MultiplayerService {
         }
 
         // Check if user already started this course
-        if (multiplayerRepository.existsByAccountIdAndCourseId(accountId, courseId)) {
+        if (multiplayerRepository.existsByAccount_IdAndCourse_Id(accountId, courseId)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You have already enrolled in this multiplayer course");
         }
 
@@ -65,7 +74,7 @@ public class MultiplayerService {
 
     @Transactional
     public Multiplayer completeCourse(Long accountId, Long courseId) {
-        Multiplayer multiplayer = multiplayerRepository.findByAccountIdAndCourseId(accountId, courseId)
+        Multiplayer multiplayer = multiplayerRepository.findByAccount_IdAndCourse_Id(accountId, courseId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "No multiplayer course attempt found for this account and course"));
 
@@ -74,17 +83,23 @@ public class MultiplayerService {
         }
 
         multiplayer.setCompletedAt(LocalDateTime.now());
-        return multiplayerRepository.save(multiplayer);
+        multiplayer = multiplayerRepository.save(multiplayer);
+
+        MultiplayerResult result = new MultiplayerResult(accountId,
+                multiplayer.getAccount().getUsername(), multiplayer.getStartedAt(), multiplayer.getCompletedAt());
+        rankingService.resultRecorded(courseId, result);
+        liveService.resultRecorded(courseId, result);
+        return multiplayer;
     }
 
     public boolean isCompleted(Long accountId, Long courseId) {
-        return multiplayerRepository.findByAccountIdAndCourseId(accountId, courseId)
+        return multiplayerRepository.findByAccount_IdAndCourse_Id(accountId, courseId)
                 .map(Multiplayer::isCompleted)
                 .orElse(false);
     }
 
     public Long getCompletionTimeInSeconds(Long accountId, Long courseId) {
-        Multiplayer multiplayer = multiplayerRepository.findByAccountIdAndCourseId(accountId, courseId)
+        Multiplayer multiplayer = multiplayerRepository.findByAccount_IdAndCourse_Id(accountId, courseId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "No multiplayer course attempt found for this account and course"));
 
@@ -95,23 +110,32 @@ public class MultiplayerService {
         return multiplayer.getDurationInSeconds();
     }
 
-    public List<Map<String, Object>> getAllCompletionTimesForCourse(Long courseId) {
-        // Verify the course exists
-        if (!courseRepository.existsById(courseId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found");
-        }
-
-        List<Multiplayer> completedSessions = multiplayerRepository.findByCourseIdAndCompletedAtIsNotNull(courseId);
-
-        return completedSessions.stream()
-            .map(multiplayer -> {
-                Map<String, Object> result = new HashMap<>();
-                result.put("accountId", multiplayer.getAccount().getId());
-                result.put("username", multiplayer.getAccount().getUsername());
-                result.put("completionTime", multiplayer.getDurationInSeconds());
-                result.put("completedAt", multiplayer.getCompletedAt());
-                return result;
+    public List<Map<String, Object>> getAllCompletionTimesForCourse(Long courseId, int offset, int limit) {
+        return rankingService.getStandings(courseId, offset, limit).stream()
+            .map(standing -> {
+                MultiplayerResult result = standing.getResult();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("rank", standing.getRank());
+                entry.put("accountId", result.getAccountId());
+                entry.put("username", result.getUsername());
+                entry.put("completionTime", result.getCompletionTime());
+                entry.put("completedAt", result.getCompletedAt());
+                return entry;
             })
             .collect(Collectors.toList());
     }
+
+    public List<MultiplayerStanding> getRanking(Long courseId, int offset, int limit) {
+        return rankingService.getStandings(courseId, offset, limit);
+    }
+
+    public SseEmitter subscribeToRanking(Long courseId) {
+        return liveService.subscribe(courseId);
+    }
+
+    public MultiplayerStanding getRankingForAccount(Long accountId, Long courseId) {
+        return rankingService.getStanding(courseId, accountId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No completed multiplayer attempt found for this account and course"));
+    }
 }
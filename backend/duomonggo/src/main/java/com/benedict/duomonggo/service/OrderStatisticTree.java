@@ -0,0 +1,173 @@
+package com.benedict.duomonggo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorted set backed by a size-augmented treap, so that rank lookups and
+ * positional access run in O(log n) instead of walking the whole set.
+ * Not thread-safe; callers guard it with their own lock.
+ */
+final class OrderStatisticTree<E> {
+    private final Comparator<? super E> comparator;
+    private Node<E> root;
+
+    OrderStatisticTree(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    boolean add(E element) {
+        if (contains(element)) {
+            return false;
+        }
+        Split<E> split = split(root, element, false);
+        root = merge(merge(split.left, new Node<>(element)), split.right);
+        return true;
+    }
+
+    boolean remove(E element) {
+        Split<E> lower = split(root, element, false);
+        Split<E> upper = split(lower.right, element, true);
+        root = merge(lower.left, upper.right);
+        return upper.left != null;
+    }
+
+    boolean contains(E element) {
+        Node<E> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(element, node.value);
+            if (cmp == 0) {
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Number of elements strictly smaller than the given one, which is the
+     * zero-based index of the element when it is present.
+     */
+    int rank(E element) {
+        int rank = 0;
+        Node<E> node = root;
+        while (node != null) {
+            if (comparator.compare(element, node.value) <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    E get(int index) {
+        Node<E> node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        throw new IndexOutOfBoundsException("Index: " + index);
+    }
+
+    /**
+     * Returns up to {@code limit} elements in order starting at {@code offset},
+     * skipping whole subtrees that lie before the offset.
+     */
+    List<E> range(int offset, int limit) {
+        List<E> result = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+        collect(root, offset, limit, result);
+        return result;
+    }
+
+    private void collect(Node<E> node, int offset, int limit, List<E> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            collect(node.left, offset, limit, out);
+        }
+        if (out.size() < limit && offset <= leftSize) {
+            out.add(node.value);
+        }
+        if (out.size() < limit) {
+            collect(node.right, Math.max(0, offset - leftSize - 1), limit, out);
+        }
+    }
+
+    private Split<E> split(Node<E> node, E key, boolean inclusive) {
+        if (node == null) {
+            return new Split<>(null, null);
+        }
+        int cmp = comparator.compare(node.value, key);
+        if (cmp < 0 || (inclusive && cmp == 0)) {
+            Split<E> split = split(node.right, key, inclusive);
+            node.right = split.left;
+            node.update();
+            return new Split<>(node, split.right);
+        }
+        Split<E> split = split(node.left, key, inclusive);
+        node.left = split.right;
+        node.update();
+        return new Split<>(split.left, node);
+    }
+
+    private Node<E> merge(Node<E> left, Node<E> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node<E> {
+        final E value;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        int size = 1;
+        Node<E> left;
+        Node<E> right;
+
+        Node(E value) {
+            this.value = value;
+        }
+
+        void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+
+    private record Split<E>(Node<E> left, Node<E> right) {
+    }
+}
@@ -2,39 +2,51 @@ package com.benedict.duomonggo.service;
 
 import com.benedict.duomonggo.model.Answer;
 import com.benedict.duomonggo.model.Course;
+import com.benedict.duomonggo.model.ImageUpload;
 import com.benedict.duomonggo.model.Question;
 import com.benedict.duomonggo.model.QuestionType;
-import com.benedict.duomonggo.repository.AnswerRepository;
+import com.benedict.duomonggo.model.StoredImage;
 import com.benedict.duomonggo.repository.CourseRepository;
 import com.benedict.duomonggo.repository.QuestionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class QuestionService {
+    private static final int MAX_TYPO_TOLERANCE = 3;
+
     private final QuestionRepository questionRepository;
     private final CourseRepository courseRepository;
-    private final AnswerRepository answerRepository;
-    private final CloudinaryService cloudinaryService;
+    private final AnswerService answerService;
+    private final ImageUploadService imageUploadService;
+    private final CourseCatalogCache courseCatalogCache;
+    private final CourseContentVersions courseContentVersions;
+    private final MediaCleanupService mediaCleanupService;
 
     @Autowired
     public QuestionService(QuestionRepository questionRepository, CourseRepository courseRepository,
-                          AnswerRepository answerRepository, CloudinaryService cloudinaryService) {
+                          AnswerService answerService, ImageUploadService imageUploadService,
+                          CourseCatalogCache courseCatalogCache, CourseContentVersions courseContentVersions,
+                          MediaCleanupService mediaCleanupService) {
         this.questionRepository = questionRepository;
         this.courseRepository = courseRepository;
-        this.answerRepository = answerRepository;
-        this.cloudinaryService = cloudinaryService;
+        this.answerService = answerService;
+        this.imageUploadService = imageUploadService;
+        this.courseCatalogCache = courseCatalogCache;
+        this.courseContentVersions = courseContentVersions;
+        this.mediaCleanupService = mediaCleanupService;
     }
 
-    public List<Question> getAllQuestions() {
-        return questionRepository.findAll();
+    public List<Question> getQuestionsAfter(Long after, int limit) {
+        return questionRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit));
     }
 
     public Optional<Question> getQuestionById(Long id) {
@@ -46,108 +58,152 @@ public class QuestionService {
     }
 
     public List<Question> getQuestionsByCourseId(Long courseId) {
-        return questionRepository.findByCourse_IdOrderByOrderNumberAsc(courseId);
+        return questionRepository.findByCourse_IdOrderByOrderNumberAscIdAsc(courseId);
     }
 
     @Transactional
     public Question createQuestion(String content, QuestionType questionType, String explanation,
                                   Long courseId, Integer orderNumber) {
-        return createQuestion(content, questionType, explanation, courseId, orderNumber, null, null);
+        return createQuestion(content, questionType, explanation, courseId, orderNumber, null, null, null);
     }
 
     @Transactional
     public Question createQuestion(String content, QuestionType questionType, String explanation,
                                   Long courseId, Integer orderNumber, List<Map<String, Object>> choices) {
-        return createQuestion(content, questionType, explanation, courseId, orderNumber, choices, null);
+        return createQuestion(content, questionType, explanation, courseId, orderNumber, choices, null, null);
     }
 
     @Transactional
     public Question createQuestion(String content, QuestionType questionType, String explanation,
                                   Long courseId, Integer orderNumber, List<Map<String, Object>> choices,
-                                  MultipartFile imageFile) {
-        try {
-            Optional<Course> courseOptional = courseRepository.findById(courseId);
-            if (courseOptional.isPresent()) {
-                Course course = courseOptional.get();
-
-                String imageUrl = null;
-                if (imageFile != null && !imageFile.isEmpty()) {
-                    imageUrl = cloudinaryService.uploadImage(imageFile, "questions");
-                }
-
-                Question question = new Question(content, questionType, explanation, course, orderNumber, imageUrl);
-                question = questionRepository.save(question);
-
-                if (questionType == QuestionType.MULTIPLE_CHOICE && choices != null && !choices.isEmpty()) {
-                    for (Map<String, Object> choiceData : choices) {
-                        String choiceContent = (String) choiceData.get("content");
-                        Boolean isCorrect = (Boolean) choiceData.get("isCorrect");
+                                  ImageUpload image, Integer typoTolerance) {
+        validateTypoTolerance(typoTolerance);
+        Optional<Course> courseOptional = courseRepository.findById(courseId);
+        if (courseOptional.isPresent()) {
+            Course course = courseOptional.get();
+
+            Question question = new Question(content, questionType, explanation, course, orderNumber, null);
+            if (typoTolerance != null) {
+                question.setTypoTolerance(typoTolerance);
+            }
+            if (image != null) {
+                question.setImageUploadId(image.getId());
+            }
+            question = questionRepository.save(question);
+            courseCatalogCache.invalidate();
+            courseContentVersions.bump(courseId);
 
-                        Answer answer = new Answer(choiceContent, isCorrect, question);
-                        question.addAnswer(answer);
-                    }
+            if (questionType == QuestionType.MULTIPLE_CHOICE && choices != null && !choices.isEmpty()) {
+                for (Map<String, Object> choiceData : choices) {
+                    String choiceContent = (String) choiceData.get("content");
+                    Boolean isCorrect = (Boolean) choiceData.get("isCorrect");
 
-                    question = questionRepository.save(question);
+                    Answer answer = new Answer(choiceContent, isCorrect, question);
+                    question.addAnswer(answer);
                 }
 
-                return question;
+                question = questionRepository.save(question);
+            }
+
+            if (image != null) {
+                Long questionId = question.getId();
+                imageUploadService.startAfterCommit(image, url -> questionImageStored(questionId, image.getId(), url));
             }
-            return null;
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to upload image: " + e.getMessage(), e);
+            return question;
         }
+        return null;
     }
 
     @Transactional
     public Question updateQuestion(Long id, String content, QuestionType questionType,
                                   String explanation, Integer orderNumber,
-                                  List<Map<String, Object>> choices, MultipartFile imageFile) {
-        try {
-            Optional<Question> optionalQuestion = questionRepository.findById(id);
-            if (optionalQuestion.isPresent()) {
-                Question question = optionalQuestion.get();
-                question.setContent(content);
-                question.setQuestionType(questionType);
-                question.setExplanation(explanation);
-                question.setOrderNumber(orderNumber);
-
-                if (imageFile != null && !imageFile.isEmpty()) {
-//                     cloudinaryService.deleteImage(previousImagePublicId);
-
-                    String imageUrl = cloudinaryService.uploadImage(imageFile, "questions");
-                    question.setImageUrl(imageUrl);
-                }
-
-                if (questionType == QuestionType.MULTIPLE_CHOICE && choices != null) {
-                    answerRepository.deleteByQuestion_Id(question.getId());
-                    question.getAnswers().clear();
-
-                    for (Map<String, Object> choiceData : choices) {
-                        String choiceContent = (String) choiceData.get("content");
-                        Boolean isCorrect = (Boolean) choiceData.get("isCorrect");
+                                  List<Map<String, Object>> choices, ImageUpload image,
+                                  Integer typoTolerance) {
+        validateTypoTolerance(typoTolerance);
+        Optional<Question> optionalQuestion = questionRepository.findById(id);
+        if (optionalQuestion.isPresent()) {
+            Question question = optionalQuestion.get();
+            question.setContent(content);
+            question.setQuestionType(questionType);
+            question.setExplanation(explanation);
+            question.setOrderNumber(orderNumber);
+            if (typoTolerance != null) {
+                question.setTypoTolerance(typoTolerance);
+            }
 
-                        Answer answer = new Answer(choiceContent, isCorrect, question);
-                        question.addAnswer(answer);
-                    }
-                }
+            if (image != null) {
+                question.setImageUploadId(image.getId());
+                imageUploadService.startAfterCommit(image, url -> questionImageStored(id, image.getId(), url));
+            }
 
-                return questionRepository.save(question);
+            if (questionType == QuestionType.MULTIPLE_CHOICE && choices != null) {
+                answerService.syncAnswers(question.getId(), choices);
             }
-            return null;
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to upload image: " + e.getMessage(), e);
+
+            question = questionRepository.save(question);
+            courseContentVersions.bump(question.getCourse().getId());
+            return question;
         }
+        return null;
     }
 
     @Transactional
     public void deleteQuestion(Long id) {
+        // Taken before the question row, in the same order as reorderQuestions
+        questionRepository.findCourseIdById(id).ifPresent(courseRepository::lockById);
         Optional<Question> question = questionRepository.findById(id);
-        question.ifPresent(q -> {
-            if (q.getImageUrl() != null) {
-//                 cloudinaryService.deleteImage(publicId);
-            }
-        });
+        question.ifPresent(q -> mediaCleanupService.orphaned(
+                new StoredImage(q.getImageUrl(), q.getImageMediumUrl(), q.getImageThumbnailUrl())));
 
         questionRepository.deleteById(id);
+        courseCatalogCache.invalidate();
+        question.ifPresent(q -> courseContentVersions.bump(q.getCourse().getId()));
+    }
+
+    /**
+     * Puts a course's questions in the given order. The list must name every
+     * question of the course exactly once; positions become order numbers
+     * starting at 1.
+     */
+    @Transactional
+    public List<Question> reorderQuestions(Long courseId, List<Long> questionIds) {
+        // Held until commit, so questions cannot be added or removed between the check and the update
+        if (courseRepository.lockById(courseId).isEmpty()) {
+            throw new IllegalArgumentException("Course not found");
+        }
+        Set<Long> requested = new HashSet<>(questionIds);
+        if (requested.size() != questionIds.size()) {
+            throw new IllegalArgumentException("Each question may appear only once");
+        }
+        if (!requested.equals(new HashSet<>(questionRepository.findIdsByCourseId(courseId)))) {
+            throw new IllegalArgumentException("The new order must list every question of the course");
+        }
+
+        if (questionRepository.applyOrder(courseId, questionIds.toArray(Long[]::new)) > 0) {
+            courseContentVersions.bump(courseId);
+        }
+        return questionRepository.findByCourse_IdOrderByOrderNumberAscIdAsc(courseId);
+    }
+
+    /**
+     * Records the URLs of a question image uploaded in the background and
+     * queues the image it replaces for deletion. The new image is the orphan
+     * instead if the question was deleted while it was on its way, or if a
+     * later change gave the question another upload.
+     */
+    private void questionImageStored(Long questionId, String uploadId, StoredImage image) {
+        StoredImage previous = questionRepository.findImageById(questionId).orElse(null);
+        if (questionRepository.updateImage(questionId, uploadId, image) == 0) {
+            mediaCleanupService.orphaned(image);
+            return;
+        }
+        mediaCleanupService.replaced(previous, image);
+        questionRepository.findCourseIdById(questionId).ifPresent(courseContentVersions::bump);
+    }
+
+    static void validateTypoTolerance(Integer typoTolerance) {
+        if (typoTolerance != null && (typoTolerance < 0 || typoTolerance > MAX_TYPO_TOLERANCE)) {
+            throw new IllegalArgumentException("Typo tolerance must be between 0 and " + MAX_TYPO_TOLERANCE);
+        }
     }
 }
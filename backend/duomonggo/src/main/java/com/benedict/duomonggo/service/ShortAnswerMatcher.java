@@ -0,0 +1,140 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.util.TextNormalizer;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Decides whether a typed response matches any of a question's accepted
+ * short answers. Both sides are normalised the same way, by
+ * {@link TextNormalizer}, and a response then matches when it is within
+ * {@code tolerance} single-character edits of an accepted form.
+ * <p>
+ * Accepted forms are normalised once, when the answer is saved. Matching a
+ * response works in per-thread buffers and gives up as soon as a response is
+ * too long or too far from every accepted form, so for ASCII input it does
+ * not allocate at all.
+ */
+public final class ShortAnswerMatcher {
+    private static final ThreadLocal<Workspace> WORKSPACES = ThreadLocal.withInitial(Workspace::new);
+
+    private final char[][] acceptedForms;
+    private final int tolerance;
+    private final int maxResponseLength;
+
+    /**
+     * @param normalizedForms accepted answers, already passed through {@link #normalize(String)}
+     * @param tolerance       the largest number of edits a response may be away from an accepted form
+     */
+    public ShortAnswerMatcher(Collection<String> normalizedForms, int tolerance) {
+        this.acceptedForms = normalizedForms.stream()
+                .filter(form -> !form.isEmpty())
+                .map(String::toCharArray)
+                .toArray(char[][]::new);
+        this.tolerance = Math.max(0, tolerance);
+        this.maxResponseLength = Arrays.stream(acceptedForms).mapToInt(form -> form.length).max().orElse(0) + this.tolerance;
+    }
+
+    public static String normalize(String text) {
+        return TextNormalizer.normalize(text);
+    }
+
+    public boolean matches(String response) {
+        if (response == null || acceptedForms.length == 0) {
+            return false;
+        }
+
+        Workspace workspace = WORKSPACES.get();
+        char[] buffer = workspace.chars(maxResponseLength + 1);
+        int length = TextNormalizer.normalize(response, buffer, maxResponseLength);
+        if (length <= 0) {
+            return false;
+        }
+
+        for (char[] accepted : acceptedForms) {
+            if (withinDistance(buffer, length, accepted, tolerance, workspace)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Levenshtein distance restricted to the diagonal band of width
+     * {@code 2k + 1}, stopping once every cell in a row exceeds {@code k}.
+     */
+    static boolean withinDistance(char[] a, int n, char[] b, int k, Workspace workspace) {
+        int m = b.length;
+        if (Math.abs(n - m) > k) {
+            return false;
+        }
+        if (n == m && Arrays.equals(a, 0, n, b, 0, m)) {
+            return true;
+        }
+        if (k == 0) {
+            return false;
+        }
+
+        int unreachable = k + 1;
+        int[] previous = workspace.previousRow(m + 1);
+        int[] current = workspace.currentRow(m + 1);
+        for (int j = 0; j <= m; j++) {
+            previous[j] = Math.min(j, unreachable);
+        }
+
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - k);
+            int to = Math.min(m, i + k);
+            current[0] = Math.min(i, unreachable);
+            current[from - 1] = from == 1 ? current[0] : unreachable;
+            int rowMinimum = current[from - 1];
+
+            char ai = a[i - 1];
+            for (int j = from; j <= to; j++) {
+                int substitution = previous[j - 1] + (ai == b[j - 1] ? 0 : 1);
+                int edit = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = Math.min(edit, unreachable);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = unreachable;
+            }
+            if (rowMinimum > k) {
+                return false;
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m] <= k;
+    }
+
+    static final class Workspace {
+        private char[] chars = new char[64];
+        private int[] previousRow = new int[64];
+        private int[] currentRow = new int[64];
+
+        char[] chars(int size) {
+            if (chars.length < size) {
+                chars = new char[size];
+            }
+            return chars;
+        }
+
+        int[] previousRow(int size) {
+            if (previousRow.length < size) {
+                previousRow = new int[size];
+            }
+            return previousRow;
+        }
+
+        int[] currentRow(int size) {
+            if (currentRow.length < size) {
+                currentRow = new int[size];
+            }
+            return currentRow;
+        }
+    }
+}
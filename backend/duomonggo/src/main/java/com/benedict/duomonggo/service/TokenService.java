@@ -0,0 +1,183 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.Account;
+import com.benedict.duomonggo.model.Role;
+import com.benedict.duomonggo.model.TokenClaims;
+import com.benedict.duomonggo.model.TokenPair;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies HMAC-SHA256 signed tokens. A token is
+ * {@code base64url(claims) + "." + base64url(signature)}, so checking one is a
+ * single MAC over a few dozen bytes and never touches the database. Tokens
+ * that have already been verified are cached until they expire.
+ * <p>
+ * Tokens issued to an account before it was revoked (password or role change,
+ * deletion) are refused. Revocations live in memory only, which is why access
+ * tokens are kept short-lived.
+ * <p>
+ * The secret must be at least 32 bytes, the size of the HMAC-SHA256 output;
+ * the application does not start without one, so tokens survive restarts
+ * and are accepted by every instance.
+ */
+@Service
+public class TokenService {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final long accessTokenTtlMs;
+    private final long refreshTokenTtlMs;
+    private final int maxCachedTokens;
+    private final Map<String, TokenClaims> verifiedTokens = new ConcurrentHashMap<>();
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    public TokenService(@Value("${duomonggo.auth.token-secret:}") String secret,
+                        @Value("${duomonggo.auth.access-token-ttl:15m}") Duration accessTokenTtl,
+                        @Value("${duomonggo.auth.refresh-token-ttl:7d}") Duration refreshTokenTtl,
+                        @Value("${duomonggo.auth.max-cached-tokens:10000}") int maxCachedTokens) {
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("duomonggo.auth.token-secret must be at least " + MIN_SECRET_BYTES
+                    + " bytes, set AUTH_TOKEN_SECRET");
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.accessTokenTtlMs = accessTokenTtl.toMillis();
+        this.refreshTokenTtlMs = refreshTokenTtl.toMillis();
+        this.maxCachedTokens = maxCachedTokens;
+    }
+
+    public TokenPair issue(Account account) {
+        long now = System.currentTimeMillis();
+        TokenClaims access = new TokenClaims(TokenClaims.Type.ACCESS, account.getId(), account.getRole(), now, now + accessTokenTtlMs);
+        TokenClaims refresh = new TokenClaims(TokenClaims.Type.REFRESH, account.getId(), account.getRole(), now, now + refreshTokenTtlMs);
+        return new TokenPair(sign(access), sign(refresh), access.getExpiresAt());
+    }
+
+    /**
+     * Trades a valid refresh token for a new access token, using only the
+     * claims carried by the refresh token itself.
+     */
+    public Optional<TokenPair> refresh(String refreshToken) {
+        return verify(refreshToken, TokenClaims.Type.REFRESH).map(claims -> {
+            long now = System.currentTimeMillis();
+            TokenClaims access = new TokenClaims(TokenClaims.Type.ACCESS, claims.getAccountId(), claims.getRole(),
+                    now, Math.min(now + accessTokenTtlMs, claims.getExpiresAt()));
+            return new TokenPair(sign(access), refreshToken, access.getExpiresAt());
+        });
+    }
+
+    public Optional<TokenClaims> verifyAccessToken(String token) {
+        return verify(token, TokenClaims.Type.ACCESS);
+    }
+
+    /**
+     * Invalidates every token issued to the account up to now.
+     */
+    public void revoke(Long accountId) {
+        revokedBefore.put(accountId, System.currentTimeMillis());
+        verifiedTokens.values().removeIf(claims -> claims.getAccountId().equals(accountId));
+    }
+
+    private Optional<TokenClaims> verify(String token, TokenClaims.Type expectedType) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        TokenClaims claims = verifiedTokens.get(token);
+        if (claims == null) {
+            claims = parse(token);
+            if (claims == null || claims.isExpired(now)) {
+                return Optional.empty();
+            }
+            cache(token, claims, now);
+        }
+
+        if (claims.getType() != expectedType || claims.isExpired(now) || isRevoked(claims)) {
+            return Optional.empty();
+        }
+        return Optional.of(claims);
+    }
+
+    private boolean isRevoked(TokenClaims claims) {
+        Long revokedAt = revokedBefore.get(claims.getAccountId());
+        return revokedAt != null && claims.getIssuedAt() < revokedAt;
+    }
+
+    private void cache(String token, TokenClaims claims, long now) {
+        if (verifiedTokens.size() >= maxCachedTokens) {
+            verifiedTokens.values().removeIf(cached -> cached.isExpired(now));
+            revokedBefore.values().removeIf(revokedAt -> revokedAt + refreshTokenTtlMs < now);
+            if (verifiedTokens.size() >= maxCachedTokens) {
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(token, claims);
+    }
+
+    private String sign(TokenClaims claims) {
+        String payload = String.join(":",
+                claims.getType().name(),
+                claims.getAccountId().toString(),
+                claims.getRole().name(),
+                Long.toString(claims.getIssuedAt()),
+                Long.toString(claims.getExpiresAt()));
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encodedPayload + "." + ENCODER.encodeToString(mac(encodedPayload));
+    }
+
+    private TokenClaims parse(String token) {
+        int separator = token.indexOf('.');
+        if (separator <= 0 || separator != token.lastIndexOf('.')) {
+            return null;
+        }
+
+        try {
+            String encodedPayload = token.substring(0, separator);
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, mac(encodedPayload))) {
+                return null;
+            }
+
+            String[] fields = new String(DECODER.decode(encodedPayload), StandardCharsets.UTF_8).split(":");
+            if (fields.length != 5) {
+                return null;
+            }
+            return new TokenClaims(TokenClaims.Type.valueOf(fields[0]), Long.valueOf(fields[1]),
+                    Role.valueOf(fields[2]), Long.parseLong(fields[3]), Long.parseLong(fields[4]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] mac(String encodedPayload) {
+        return macs.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.benedict.duomonggo.util;
+
+import java.text.Normalizer;
+
+/**
+ * Brings text to the form short answers are compared in: accents and case
+ * are dropped, punctuation is ignored, and runs of whitespace, dashes and
+ * underscores become a single space.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = decompose(text);
+        char[] normalized = new char[decomposed.length()];
+        return new String(normalized, 0, normalizeInto(decomposed, normalized, normalized.length));
+    }
+
+    /**
+     * Writes the normalised form of {@code text} into {@code out} and returns
+     * its length, or -1 as soon as it would be longer than {@code limit}.
+     */
+    public static int normalize(String text, char[] out, int limit) {
+        return normalizeInto(decompose(text), out, limit);
+    }
+
+    private static int normalizeInto(String text, char[] out, int limit) {
+        int length = 0;
+        boolean separator = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c) || Character.isSurrogate(c)) {
+                int needed = separator && length > 0 ? 2 : 1;
+                if (length + needed > limit) {
+                    return -1;
+                }
+                if (needed == 2) {
+                    out[length++] = ' ';
+                }
+                out[length++] = Character.toLowerCase(c);
+                separator = false;
+            } else if (Character.isWhitespace(c) || isSeparatorPunctuation(c)) {
+                separator = true;
+            }
+            // Combining marks left over from decomposition, other punctuation and symbols are dropped
+        }
+        return length;
+    }
+
+    private static boolean isSeparatorPunctuation(char c) {
+        int type = Character.getType(c);
+        return type == Character.DASH_PUNCTUATION || type == Character.CONNECTOR_PUNCTUATION;
+    }
+
+    private static String decompose(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return Normalizer.normalize(text, Normalizer.Form.NFKD);
+            }
+        }
+        return text;
+    }
+}
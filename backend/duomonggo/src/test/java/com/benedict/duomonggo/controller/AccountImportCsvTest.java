@@ -0,0 +1,86 @@
+package com.benedict.duomonggo.controller;
+
+import com.benedict.duomonggo.model.AccountImportRow;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountImportCsvTest {
+
+    @Test
+    void readsColumnsByHeaderName() {
+        List<AccountImportRow> rows = AccountImportCsv.parse("""
+                Email, USERNAME ,password,role
+                sari@example.com,sari,secret,admin
+                budi@example.com,budi,hunter2,
+                """);
+
+        assertEquals(2, rows.size());
+        assertRow(rows.get(0), "sari", "secret", "sari@example.com", "admin");
+        assertRow(rows.get(1), "budi", "hunter2", "budi@example.com", null);
+    }
+
+    @Test
+    void quotedFieldsKeepCommasLineBreaksAndEscapedQuotes() {
+        List<AccountImportRow> rows = AccountImportCsv.parse(
+                "username,password,email\n" +
+                "\"sari, the second\",\"pass\"\"word\",sari@example.com\n" +
+                "budi,\"two\nlines\",budi@example.com\n");
+
+        assertEquals(2, rows.size());
+        assertRow(rows.get(0), "sari, the second", "pass\"word", "sari@example.com", null);
+        assertRow(rows.get(1), "budi", "two\nlines", "budi@example.com", null);
+    }
+
+    @Test
+    void acceptsCrLfAndSkipsBlankLines() {
+        List<AccountImportRow> rows = AccountImportCsv.parse(
+                "username,password,email\r\n\r\nsari,secret,sari@example.com\r\n  \r\nbudi,\"a\r\nb\",budi@example.com");
+
+        assertEquals(2, rows.size());
+        assertRow(rows.get(0), "sari", "secret", "sari@example.com", null);
+        assertRow(rows.get(1), "budi", "a\r\nb", "budi@example.com", null);
+    }
+
+    @Test
+    void missingFieldsAreLeftForTheRowsOwnValidation() {
+        // The import rejects these rows one by one; parsing keeps them in place
+        List<AccountImportRow> rows = AccountImportCsv.parse("""
+                username,password,email
+                sari
+                ,secret,budi@example.com
+                dewi,secret,dewi@example.com
+                """);
+
+        assertEquals(3, rows.size());
+        assertRow(rows.get(0), "sari", null, null, null);
+        assertRow(rows.get(1), null, "secret", "budi@example.com", null);
+        assertRow(rows.get(2), "dewi", "secret", "dewi@example.com", null);
+    }
+
+    @Test
+    void headerMustNameTheRequiredColumns() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> AccountImportCsv.parse("username,pass,email\nsari,secret,sari@example.com\n"));
+        assertEquals("CSV header must contain a password column", error.getMessage());
+
+        assertEquals("CSV header is missing",
+                assertThrows(IllegalArgumentException.class, () -> AccountImportCsv.parse("\n\n")).getMessage());
+    }
+
+    @Test
+    void unterminatedQuoteIsRejected() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> AccountImportCsv.parse("username,password,email\n\"sari,secret,sari@example.com\n"));
+        assertEquals("CSV ends inside a quoted field", error.getMessage());
+    }
+
+    private static void assertRow(AccountImportRow row, String username, String password, String email, String role) {
+        assertEquals(username, row.getUsername());
+        assertEquals(password, row.getPassword());
+        assertEquals(email, row.getEmail());
+        assertEquals(role, row.getRole());
+    }
+}
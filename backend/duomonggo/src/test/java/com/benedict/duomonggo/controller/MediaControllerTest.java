@@ -0,0 +1,67 @@
+package com.benedict.duomonggo.controller;
+
+import com.benedict.duomonggo.service.LocalMediaStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MediaControllerTest {
+    private static final String BASE_URL = "http://media.test";
+
+    @TempDir
+    Path directory;
+
+    private MockMvc mockMvc;
+    private String name;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalMediaStore store = new LocalMediaStore(directory.resolve("media"), BASE_URL, Duration.ZERO);
+        String url = store.store(Files.writeString(directory.resolve("image.png"), "image bytes"), "questions");
+        name = url.substring((BASE_URL + LocalMediaStore.URL_PATH).length());
+        mockMvc = MockMvcBuilders.standaloneSetup(new MediaController(store)).build();
+    }
+
+    @Test
+    void storedFileIsServedWithCacheHeaders() throws Exception {
+        mockMvc.perform(get(LocalMediaStore.URL_PATH + name))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().string("image bytes"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + name + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        mockMvc.perform(get(LocalMediaStore.URL_PATH + name).header(HttpHeaders.IF_NONE_MATCH, "\"" + name + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + name + "\""))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get(LocalMediaStore.URL_PATH + name).header(HttpHeaders.IF_NONE_MATCH, "\"something-else\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void unknownOrInvalidNamesAreNotFound() throws Exception {
+        mockMvc.perform(get(LocalMediaStore.URL_PATH + "0".repeat(64) + ".png"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get(LocalMediaStore.URL_PATH + name.toUpperCase()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get(LocalMediaStore.URL_PATH + "not-a-hash.png"))
+                .andExpect(status().isNotFound());
+    }
+}
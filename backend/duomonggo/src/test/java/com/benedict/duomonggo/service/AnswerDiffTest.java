@@ -0,0 +1,87 @@
+package com.benedict.duomonggo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerDiffTest {
+    private static final List<AnswerDiff.Choice> STORED = List.of(
+            new AnswerDiff.Choice(1L, "Sugeng enjing", true),
+            new AnswerDiff.Choice(2L, "Sugeng sonten", false),
+            new AnswerDiff.Choice(3L, "Sugeng dalu", false));
+
+    @Test
+    void unchangedAnswersCauseNoWrites() {
+        AnswerDiff withIds = AnswerDiff.between(STORED, STORED);
+        AnswerDiff withoutIds = AnswerDiff.between(STORED, List.of(
+                new AnswerDiff.Choice(null, "Sugeng dalu", false),
+                new AnswerDiff.Choice(null, "Sugeng enjing", true),
+                new AnswerDiff.Choice(null, "Sugeng sonten", false)));
+
+        assertTrue(withIds.isEmpty());
+        assertTrue(withoutIds.isEmpty());
+    }
+
+    @Test
+    void editedAnswerWithoutIdIsReplaced() {
+        AnswerDiff diff = AnswerDiff.between(STORED, List.of(
+                new AnswerDiff.Choice(null, "Sugeng enjing", true),
+                new AnswerDiff.Choice(null, "Sugeng siang", false),
+                new AnswerDiff.Choice(null, "Sugeng dalu", false)));
+
+        // The new text gets a new row rather than the id of the text it replaced
+        assertTrue(diff.getUpdates().isEmpty());
+        assertEquals(List.of(new AnswerDiff.Choice(null, "Sugeng siang", false)), diff.getInsertions());
+        assertEquals(List.of(2L), diff.getDeletions());
+    }
+
+    @Test
+    void correctnessChangeWithoutIdKeepsTheId() {
+        AnswerDiff diff = AnswerDiff.between(STORED, List.of(
+                new AnswerDiff.Choice(null, "Sugeng enjing", false),
+                new AnswerDiff.Choice(null, "Sugeng sonten", true),
+                new AnswerDiff.Choice(null, "Sugeng dalu", false)));
+
+        assertEquals(List.of(
+                new AnswerDiff.Choice(1L, "Sugeng enjing", false),
+                new AnswerDiff.Choice(2L, "Sugeng sonten", true)), diff.getUpdates());
+        assertTrue(diff.getInsertions().isEmpty());
+        assertTrue(diff.getDeletions().isEmpty());
+    }
+
+    @Test
+    void explicitIdsWinOverContentMatching() {
+        AnswerDiff diff = AnswerDiff.between(STORED, List.of(
+                new AnswerDiff.Choice(3L, "Sugeng enjing", false),
+                new AnswerDiff.Choice(1L, "Sugeng enjing", true)));
+
+        assertEquals(List.of(new AnswerDiff.Choice(3L, "Sugeng enjing", false)), diff.getUpdates());
+        assertEquals(List.of(2L), diff.getDeletions());
+        assertTrue(diff.getInsertions().isEmpty());
+    }
+
+    @Test
+    void onlyAddedAndRemovedAnswersAreInsertedOrDeleted() {
+        AnswerDiff shrunk = AnswerDiff.between(STORED, List.of(new AnswerDiff.Choice(2L, "Sugeng sonten", true)));
+        AnswerDiff grown = AnswerDiff.between(STORED.subList(0, 1), List.of(
+                new AnswerDiff.Choice(null, "Sugeng enjing", true),
+                new AnswerDiff.Choice(null, "Sugeng rawuh", false)));
+
+        assertEquals(List.of(1L, 3L), shrunk.getDeletions());
+        assertEquals(List.of(new AnswerDiff.Choice(2L, "Sugeng sonten", true)), shrunk.getUpdates());
+        assertEquals(List.of(new AnswerDiff.Choice(null, "Sugeng rawuh", false)), grown.getInsertions());
+        assertTrue(grown.getUpdates().isEmpty());
+        assertTrue(grown.getDeletions().isEmpty());
+    }
+
+    @Test
+    void rejectsForeignOrRepeatedIds() {
+        assertThrows(IllegalArgumentException.class,
+                () -> AnswerDiff.between(STORED, List.of(new AnswerDiff.Choice(9L, "x", true))));
+        assertThrows(IllegalArgumentException.class, () -> AnswerDiff.between(STORED, List.of(
+                new AnswerDiff.Choice(1L, "x", true),
+                new AnswerDiff.Choice(1L, "y", true))));
+    }
+}
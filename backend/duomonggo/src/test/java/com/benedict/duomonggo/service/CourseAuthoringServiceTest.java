@@ -0,0 +1,128 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.Answer;
+import com.benedict.duomonggo.model.CourseDraft;
+import com.benedict.duomonggo.model.CourseSummary;
+import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.model.Difficulty;
+import com.benedict.duomonggo.model.Question;
+import com.benedict.duomonggo.model.QuestionType;
+import com.benedict.duomonggo.repository.AnswerRepository;
+import com.benedict.duomonggo.repository.CourseRepository;
+import com.benedict.duomonggo.repository.QuestionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class CourseAuthoringServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private CourseAuthoringService courseAuthoringService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Test
+    void publishWritesTheCourseWithItsQuestionsAndAnswers() {
+        CourseDraft draft = new CourseDraft("Greetings", "Basic greetings", Difficulty.EASY, CourseType.SINGLEPLAYER,
+                null, 30, List.of(
+                        new CourseDraft.QuestionDraft("Good morning?", QuestionType.MULTIPLE_CHOICE, null, null, null, null,
+                                List.of(new CourseDraft.AnswerDraft("Sugeng enjing", true),
+                                        new CourseDraft.AnswerDraft("Sugeng dalu", false))),
+                        new CourseDraft.QuestionDraft("Thank you?", QuestionType.SHORT_ANSWER, "Polite form", null, null, 1,
+                                List.of(new CourseDraft.AnswerDraft("Matur  Nuwun!", true)))));
+
+        CourseSummary course = courseAuthoringService.publish(draft);
+
+        assertEquals("Greetings", course.getTitle());
+        assertEquals(30, course.getExpReward());
+        assertEquals(2, course.getQuestionCount());
+
+        List<Question> questions = questionRepository.findByCourse_IdOrderByOrderNumberAscIdAsc(course.getId());
+        assertEquals(List.of("Good morning?", "Thank you?"), questions.stream().map(Question::getContent).toList());
+        // Order numbers default to the position in the draft, typo tolerance to none
+        assertEquals(List.of(1, 2), questions.stream().map(Question::getOrderNumber).toList());
+        assertEquals(0, questions.get(0).getTypoTolerance());
+        assertEquals(1, questions.get(1).getTypoTolerance());
+
+        List<Answer> choices = answerRepository.findByQuestion_Id(questions.get(0).getId());
+        assertEquals(2, choices.size());
+        assertEquals(1, choices.stream().filter(Answer::getIsCorrect).count());
+
+        List<Answer> accepted = answerRepository.findByQuestion_Id(questions.get(1).getId());
+        assertEquals(1, accepted.size());
+        assertEquals("matur nuwun", accepted.get(0).getNormalizedContent());
+    }
+
+    @Test
+    void publishWritesNothingWhenAQuestionIsInvalid() {
+        long coursesBefore = courseRepository.count();
+        CourseDraft draft = new CourseDraft("Broken", "", Difficulty.EASY, CourseType.SINGLEPLAYER, null, 10, List.of(
+                new CourseDraft.QuestionDraft("Fine", QuestionType.MULTIPLE_CHOICE, null, null, null, null,
+                        List.of(new CourseDraft.AnswerDraft("Yes", true))),
+                new CourseDraft.QuestionDraft("No correct answer", QuestionType.MULTIPLE_CHOICE, null, null, null, null,
+                        List.of(new CourseDraft.AnswerDraft("No", false)))));
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> courseAuthoringService.publish(draft));
+
+        assertEquals("Question 2 needs at least one correct answer", error.getMessage());
+        assertEquals(coursesBefore, courseRepository.count());
+    }
+
+    @Test
+    void addQuestionsAppendsAfterTheCoursesQuestions() {
+        CourseSummary course = courseAuthoringService.publish(new CourseDraft("Numbers", "", Difficulty.EASY,
+                CourseType.SINGLEPLAYER, null, 10, List.of(
+                        new CourseDraft.QuestionDraft("One?", QuestionType.SHORT_ANSWER, null, null, null, null,
+                                List.of(new CourseDraft.AnswerDraft("Siji", true))))));
+
+        List<Long> questionIds = courseAuthoringService.addQuestions(course.getId(), List.of(
+                new CourseDraft.QuestionDraft("Two?", QuestionType.MULTIPLE_CHOICE, null, null, null, null,
+                        List.of(new CourseDraft.AnswerDraft("Loro", true),
+                                new CourseDraft.AnswerDraft("Telu", false))))).orElseThrow();
+
+        List<Question> questions = questionRepository.findByCourse_IdOrderByOrderNumberAscIdAsc(course.getId());
+        assertEquals(List.of("One?", "Two?"), questions.stream().map(Question::getContent).toList());
+        assertEquals(List.of(1, 2), questions.stream().map(Question::getOrderNumber).toList());
+        assertEquals(List.of(questions.get(1).getId()), questionIds);
+        assertEquals(2, answerRepository.findByQuestion_Id(questionIds.get(0)).size());
+        assertTrue(courseAuthoringService.addQuestions(-1L, List.of()).isEmpty());
+    }
+
+    @Test
+    void multiplayerCoursesNeedADeadline() {
+        long coursesBefore = courseRepository.count();
+        CourseDraft draft = new CourseDraft("Race", "", Difficulty.HARD, CourseType.MULTIPLAYER, null, 10, List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> courseAuthoringService.publish(draft));
+        assertEquals(coursesBefore, courseRepository.count());
+    }
+}
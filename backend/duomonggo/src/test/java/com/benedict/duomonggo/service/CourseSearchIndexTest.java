@@ -0,0 +1,69 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.CourseSearchEntry;
+import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.model.Difficulty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseSearchIndexTest {
+    private CourseSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CourseSearchIndex();
+        index.put(course(1L, "Javanese Greetings", "Say good morning the polite way", Difficulty.EASY, CourseType.SINGLEPLAYER));
+        index.put(course(2L, "Numbers", "Counting in Javanese and Sundanese", Difficulty.MEDIUM, CourseType.SINGLEPLAYER));
+        index.put(course(3L, "Greetings Race", "Answer greetings faster than everyone", Difficulty.HARD, CourseType.MULTIPLAYER));
+        index.put(course(4L, "Krama Inggil", "Polite speech for elders", Difficulty.HARD, CourseType.SINGLEPLAYER));
+    }
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatches() {
+        assertEquals(List.of(1L, 2L), ids(index.search("javanese", null, null, 10)));
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        assertEquals(List.of(1L), ids(index.search("javanese greetings", null, null, 10)));
+        assertEquals(List.of(), ids(index.search("javanese dragons", null, null, 10)));
+    }
+
+    @Test
+    void matchesPrefixesTyposAndAccents() {
+        assertEquals(List.of(3L, 1L), ids(index.search("greet", null, null, 10)));
+        assertEquals(List.of(4L), ids(index.search("Kráma ingil", null, null, 10)));
+        assertEquals(List.of(2L), ids(index.search("sundanse", null, null, 10)));
+    }
+
+    @Test
+    void filtersByDifficultyAndType() {
+        assertEquals(List.of(3L), ids(index.search("greetings", Difficulty.HARD, null, 10)));
+        assertEquals(List.of(1L), ids(index.search("greetings", null, CourseType.SINGLEPLAYER, 10)));
+        assertEquals(List.of(3L, 4L), ids(index.search("", Difficulty.HARD, null, 10)));
+        assertEquals(List.of(3L), ids(index.search("greetings", null, null, 1)));
+    }
+
+    @Test
+    void followsEditsAndRemovals() {
+        index.put(course(2L, "Counting", "Numbers one to ten", Difficulty.MEDIUM, CourseType.SINGLEPLAYER));
+        index.remove(1L);
+
+        assertEquals(List.of(), ids(index.search("sundanese", null, null, 10)));
+        assertEquals(List.of(3L), ids(index.search("greetings", null, null, 10)));
+        assertEquals(List.of(2L), ids(index.search("count", null, null, 10)));
+        assertEquals(3, index.size());
+    }
+
+    private static CourseSearchEntry course(Long id, String title, String description, Difficulty difficulty, CourseType type) {
+        return new CourseSearchEntry(id, title, description, difficulty, type, null, 10);
+    }
+
+    private static List<Long> ids(List<CourseSearchEntry> entries) {
+        return entries.stream().map(CourseSearchEntry::getId).toList();
+    }
+}
@@ -0,0 +1,138 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.Account;
+import com.benedict.duomonggo.model.Course;
+import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.model.Difficulty;
+import com.benedict.duomonggo.model.Role;
+import com.benedict.duomonggo.repository.AccountRepository;
+import com.benedict.duomonggo.repository.CourseRepository;
+import com.benedict.duomonggo.repository.EnrollmentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class EnrollmentServiceConcurrencyTest {
+    private static final int THREADS = 32;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS);
+    }
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Test
+    void racingCompletionsOfOneEnrollmentAwardExpExactlyOnce() throws Exception {
+        Account account = newAccount();
+        Course course = newCourse(50);
+        enrollmentService.startCourse(account.getId(), course.getId());
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            tasks.add(() -> {
+                enrollmentService.completeCourse(account.getId(), course.getId());
+                return null;
+            });
+        }
+        runConcurrently(tasks);
+
+        assertEquals(50, accountRepository.findById(account.getId()).orElseThrow().getExp());
+        assertTrue(enrollmentService.isCompleted(account.getId(), course.getId()));
+    }
+
+    @Test
+    void concurrentCompletionsOfDifferentCoursesLoseNoExp() throws Exception {
+        Account account = newAccount();
+        List<Course> courses = new ArrayList<>();
+        int expectedExp = 0;
+        for (int i = 1; i <= THREADS * 2; i++) {
+            Course course = newCourse(i);
+            enrollmentService.startCourse(account.getId(), course.getId());
+            courses.add(course);
+            expectedExp += i;
+        }
+
+        // Every course is completed twice to mix duplicate and distinct completions
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int round = 0; round < 2; round++) {
+            for (Course course : courses) {
+                tasks.add(() -> {
+                    enrollmentService.completeCourse(account.getId(), course.getId());
+                    return null;
+                });
+            }
+        }
+        runConcurrently(tasks);
+
+        assertEquals(expectedExp, accountRepository.findById(account.getId()).orElseThrow().getExp());
+        for (Course course : courses) {
+            assertTrue(enrollmentRepository.findByAccountIdAndCourseId(account.getId(), course.getId())
+                    .orElseThrow().getIsCompleted());
+        }
+    }
+
+    private void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Account newAccount() {
+        String name = UUID.randomUUID().toString();
+        return accountRepository.save(new Account(name, "secret", name + "@example.com", Role.USER, 0, null));
+    }
+
+    private Course newCourse(int expReward) {
+        return courseRepository.save(new Course("Course " + expReward, "", Difficulty.EASY, CourseType.SINGLEPLAYER, expReward));
+    }
+}
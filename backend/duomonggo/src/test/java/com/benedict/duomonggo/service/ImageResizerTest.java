@@ -0,0 +1,153 @@
+package com.benedict.duomonggo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageResizerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void largeImageIsScaledToEveryVariantKeepingItsShape() throws IOException {
+        Path source = write(new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_RGB), "png");
+
+        Map<ImageResizer.Variant, Path> variants = ImageResizer.resize(source, directory, "large");
+
+        assertSize(variants.get(ImageResizer.Variant.FULL), 1600, 1200);
+        assertSize(variants.get(ImageResizer.Variant.MEDIUM), 640, 480);
+        assertSize(variants.get(ImageResizer.Variant.THUMBNAIL), 128, 96);
+        assertTrue(variants.get(ImageResizer.Variant.THUMBNAIL).toString().endsWith(".jpg"));
+    }
+
+    @Test
+    void smallImageIsNotScaledUp() throws IOException {
+        Path source = write(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB), "png");
+
+        Map<ImageResizer.Variant, Path> variants = ImageResizer.resize(source, directory, "small");
+
+        assertSize(variants.get(ImageResizer.Variant.FULL), 100, 50);
+        assertSize(variants.get(ImageResizer.Variant.THUMBNAIL), 100, 50);
+    }
+
+    @Test
+    void transparentImageStaysPng() throws IOException {
+        Path source = write(new BufferedImage(300, 600, BufferedImage.TYPE_INT_ARGB), "png");
+
+        Map<ImageResizer.Variant, Path> variants = ImageResizer.resize(source, directory, "transparent");
+
+        Path thumbnail = variants.get(ImageResizer.Variant.THUMBNAIL);
+        assertTrue(thumbnail.toString().endsWith(".png"));
+        assertSize(thumbnail, 64, 128);
+        assertTrue(ImageIO.read(thumbnail.toFile()).getColorModel().hasAlpha());
+    }
+
+    @Test
+    void rejectsFilesThatAreNotImages() throws IOException {
+        Path source = Files.writeString(directory.resolve("notes.png"), "not an image");
+
+        assertThrows(IllegalArgumentException.class, () -> ImageResizer.check(source));
+        assertThrows(IllegalArgumentException.class, () -> ImageResizer.resize(source, directory, "notes"));
+    }
+
+    @Test
+    void rotatedJpegIsTurnedUpright() throws IOException {
+        // Stored sideways: red on the left, blue on the right, to be shown rotated 90 degrees clockwise
+        BufferedImage sideways = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = sideways.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 200, 200);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(200, 0, 200, 200);
+        graphics.dispose();
+        Path source = withExifOrientation(write(sideways, "jpg"), 6);
+
+        Map<ImageResizer.Variant, Path> variants = ImageResizer.resize(source, directory, "rotated");
+
+        assertSize(variants.get(ImageResizer.Variant.FULL), 200, 400);
+        assertSize(variants.get(ImageResizer.Variant.THUMBNAIL), 64, 128);
+        BufferedImage upright = ImageIO.read(variants.get(ImageResizer.Variant.FULL).toFile());
+        assertTrue(new Color(upright.getRGB(100, 50)).getRed() > 200);
+        assertTrue(new Color(upright.getRGB(100, 350)).getBlue() > 200);
+    }
+
+    @Test
+    void everyOrientationMapsCornersLikeExif() {
+        BufferedImage image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xff0000);
+
+        // Where the top-left pixel ends up for each orientation
+        int[][] corners = {{0, 0}, {2, 0}, {2, 1}, {0, 1}, {0, 0}, {1, 0}, {1, 2}, {0, 2}};
+        for (int orientation = 1; orientation <= 8; orientation++) {
+            BufferedImage upright = ImageResizer.orient(image, orientation);
+            int[] corner = corners[orientation - 1];
+            assertEquals(orientation >= 5 ? 2 : 3, upright.getWidth(), "orientation " + orientation);
+            assertEquals(0xff0000, upright.getRGB(corner[0], corner[1]) & 0xffffff, "orientation " + orientation);
+        }
+    }
+
+    @Test
+    void rejectsCmykJpegs() throws IOException {
+        Path source = directory.resolve("cmyk.jpg");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(source.toFile())) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 20, 10, 4, null), null, null), null);
+        } finally {
+            writer.dispose();
+        }
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> ImageResizer.check(source));
+        assertTrue(error.getMessage().contains("CMYK"));
+    }
+
+    // Inserts an APP1 Exif segment holding only the orientation tag after the JFIF segment
+    private static Path withExifOrientation(Path jpeg, int orientation) throws IOException {
+        byte[] bytes = Files.readAllBytes(jpeg);
+        int app0End = 4 + ((bytes[4] & 0xff) << 8 | (bytes[5] & 0xff));
+        ByteBuffer exif = ByteBuffer.allocate(2 + 2 + 6 + 8 + 2 + 12 + 4);
+        exif.putShort((short) 0xFFE1).putShort((short) (exif.capacity() - 2));
+        exif.put("Exif\0\0".getBytes(StandardCharsets.US_ASCII));
+        exif.put("MM".getBytes(StandardCharsets.US_ASCII)).putShort((short) 42).putInt(8);
+        exif.putShort((short) 1);
+        exif.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        exif.putInt(0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(bytes, 0, app0End);
+        out.write(exif.array());
+        out.write(bytes, app0End, bytes.length - app0End);
+        Files.write(jpeg, out.toByteArray());
+        return jpeg;
+    }
+
+    private Path write(BufferedImage image, String format) throws IOException {
+        Path file = directory.resolve("source-" + image.getWidth() + "x" + image.getHeight() + "." + format);
+        ImageIO.write(image, format, file.toFile());
+        return file;
+    }
+
+    private static void assertSize(Path file, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(file.toFile());
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+}
@@ -0,0 +1,185 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.controller.UploadController;
+import com.benedict.duomonggo.model.ImageUpload;
+import com.benedict.duomonggo.model.StoredImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageUploadServiceTest {
+    @TempDir
+    Path directory;
+
+    private final PlatformTransactionManager transactionManager = new NoDatabaseTransactionManager();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ImageUploadService service;
+
+    @AfterEach
+    void shutDown() {
+        release.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void committedUploadIsStoredAndReported() throws Exception {
+        service = newService(2, 8, Duration.ofMinutes(30));
+        AtomicReference<StoredImage> recorded = new AtomicReference<>();
+
+        ImageUpload upload = stage();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                service.startAfterCommit(upload, recorded::set));
+
+        awaitFinished(upload);
+        assertEquals(ImageUpload.Status.STORED, upload.getStatus());
+        assertEquals(upload.getImage(), recorded.get());
+        assertTrue(upload.getImage().getUrl().startsWith("http://media.test/media/"));
+        assertFalse(Files.exists(upload.getFile()));
+        assertEquals(HttpStatus.OK, new UploadController(service).getUpload(upload.getId()).getStatusCode());
+    }
+
+    @Test
+    void rolledBackChangeFailsItsUpload() throws Exception {
+        service = newService(2, 8, Duration.ofMinutes(30));
+        AtomicReference<StoredImage> recorded = new AtomicReference<>();
+
+        ImageUpload upload = stage();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            service.startAfterCommit(upload, recorded::set);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(ImageUpload.Status.FAILED, upload.getStatus());
+        assertNull(recorded.get());
+        assertFalse(Files.exists(upload.getFile()));
+        assertNoMediaStored();
+    }
+
+    @Test
+    void uploadIsFailedWhenThePoolIsFull() throws Exception {
+        // One upload on the only thread, held in its callback, and one waiting in the queue
+        service = newService(1, 1, Duration.ofMinutes(30));
+        ImageUpload running = stage();
+        ImageUpload queued = stage();
+        ImageUpload rejected = stage();
+
+        service.startAfterCommit(running, image -> awaitRelease());
+        service.startAfterCommit(queued, image -> { });
+        service.startAfterCommit(rejected, image -> { });
+
+        assertEquals(ImageUpload.Status.FAILED, rejected.getStatus());
+        assertTrue(rejected.getError().contains("Too many uploads"));
+        assertFalse(Files.exists(rejected.getFile()));
+
+        release.countDown();
+        awaitFinished(running);
+        awaitFinished(queued);
+        assertEquals(ImageUpload.Status.STORED, running.getStatus());
+        assertEquals(ImageUpload.Status.STORED, queued.getStatus());
+    }
+
+    @Test
+    void finishedUploadsAreForgottenAfterTheirTtl() throws Exception {
+        service = newService(2, 8, Duration.ZERO);
+        ImageUpload finished = stage();
+        ImageUpload inProgress = stage();
+
+        service.startAfterCommit(finished, image -> { });
+        awaitFinished(finished);
+        service.startAfterCommit(inProgress, image -> awaitRelease());
+        Thread.sleep(5);
+
+        service.forgetOldUploads();
+
+        assertEquals(HttpStatus.NOT_FOUND, new UploadController(service).getUpload(finished.getId()).getStatusCode());
+        assertTrue(service.getUpload(inProgress.getId()).isPresent());
+
+        // Finished before the temporary directory is removed
+        release.countDown();
+        awaitFinished(inProgress);
+    }
+
+    private ImageUploadService newService(int threads, int queueCapacity, Duration statusTtl) throws IOException {
+        MediaStore mediaStore = new LocalMediaStore(directory.resolve("media"), "http://media.test", Duration.ZERO);
+        // Queued deletions need a database; none are queued here
+        MediaCleanupService mediaCleanupService = Mockito.mock(MediaCleanupService.class);
+        return new ImageUploadService(mediaStore, mediaCleanupService, transactionManager, threads, queueCapacity,
+                statusTtl, DataSize.ofMegabytes(10), directory.resolve("spool"));
+    }
+
+    private ImageUpload stage() throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB), "png", png);
+        return service.stage(new MockMultipartFile("image", "image.png", "image/png", png.toByteArray()), "questions");
+    }
+
+    private void awaitRelease() {
+        try {
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitFinished(ImageUpload upload) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!upload.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(upload.isFinished(), "upload did not finish");
+    }
+
+    private void assertNoMediaStored() throws IOException {
+        Path media = directory.resolve("media");
+        try (var files = Files.walk(media)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    /**
+     * Runs transaction synchronisation, and so the commit and rollback hooks,
+     * without a database.
+     */
+    private static final class NoDatabaseTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
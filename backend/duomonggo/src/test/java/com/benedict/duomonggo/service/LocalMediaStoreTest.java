@@ -0,0 +1,117 @@
+package com.benedict.duomonggo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalMediaStoreTest {
+    private static final String BASE_URL = "http://media.test";
+    private static final int THREADS = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sameContentIsStoredOnceUnderOneUrl() throws IOException {
+        LocalMediaStore store = newStore();
+        Path first = Files.writeString(directory.resolve("first.jpg"), "same bytes");
+        Path second = Files.writeString(directory.resolve("second.jpg"), "same bytes");
+        Path other = Files.writeString(directory.resolve("other.jpg"), "other bytes");
+
+        String url = store.store(first, "questions");
+
+        assertEquals(url, store.store(second, "accounts"));
+        assertNotEquals(url, store.store(other, "questions"));
+        assertTrue(url.matches(BASE_URL + "/media/[0-9a-f]{64}\\.jpg"));
+        assertEquals(2, storedFiles().size());
+    }
+
+    @Test
+    void concurrentStoresOfTheSameContentKeepOneFile() throws Exception {
+        LocalMediaStore store = newStore();
+        List<Path> sources = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            sources.add(Files.writeString(directory.resolve("source-" + i + ".png"), "racing bytes"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> urls = new HashSet<>();
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (Path source : sources) {
+                Callable<String> task = () -> {
+                    start.await();
+                    return store.store(source, "questions");
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            for (Future<String> future : futures) {
+                urls.add(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, urls.size());
+        List<Path> stored = storedFiles();
+        assertEquals(1, stored.size());
+        assertEquals("racing bytes", Files.readString(stored.get(0)));
+    }
+
+    @Test
+    void findOnlyAcceptsNamesTheStoreHandsOut() throws IOException {
+        LocalMediaStore store = newStore();
+        String url = store.store(Files.writeString(directory.resolve("image.png"), "content"), "questions");
+        String name = url.substring((BASE_URL + LocalMediaStore.URL_PATH).length());
+
+        assertTrue(store.find(name).isPresent());
+        assertTrue(store.find(name.replace(".png", ".jpg")).isEmpty());
+        assertTrue(store.find("0".repeat(ContentHash.LENGTH) + ".png").isEmpty());
+        assertTrue(store.find("not-a-hash.png").isEmpty());
+        assertTrue(store.find(name.toUpperCase()).isEmpty());
+        assertTrue(store.find("../" + name).isEmpty());
+        assertTrue(store.find(name.substring(0, 2) + "/" + name).isEmpty());
+        assertTrue(store.find("..").isEmpty());
+    }
+
+    @Test
+    void deleteRemovesTheFileAndIgnoresForeignUrls() throws IOException {
+        LocalMediaStore store = newStore();
+        String url = store.store(Files.writeString(directory.resolve("image.png"), "content"), "questions");
+
+        store.delete("https://elsewhere.test/images/" + url.substring(url.lastIndexOf('/') + 1));
+        assertEquals(1, storedFiles().size());
+
+        store.delete(url);
+        assertTrue(storedFiles().isEmpty());
+    }
+
+    private LocalMediaStore newStore() throws IOException {
+        return new LocalMediaStore(directory.resolve("media"), BASE_URL, Duration.ZERO);
+    }
+
+    private List<Path> storedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory.resolve("media"))) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+}
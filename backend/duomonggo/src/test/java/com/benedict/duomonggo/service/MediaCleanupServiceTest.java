@@ -0,0 +1,63 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.StoredImage;
+import com.benedict.duomonggo.repository.MediaDeletionRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaCleanupServiceTest {
+    private final MediaDeletionRepository mediaDeletionRepository = Mockito.mock(MediaDeletionRepository.class);
+    private final MediaCleanupService service = new MediaCleanupService(Mockito.mock(MediaStore.class),
+            mediaDeletionRepository, Mockito.mock(JdbcTemplate.class), Mockito.mock(PlatformTransactionManager.class),
+            Duration.ofMinutes(10), 50, 5, 8, false);
+
+    @Test
+    void retryDelayDoublesUpToSixHours() {
+        assertEquals(Duration.ofMinutes(1), MediaCleanupService.retryDelay(0));
+        assertEquals(Duration.ofMinutes(1), MediaCleanupService.retryDelay(1));
+        assertEquals(Duration.ofMinutes(2), MediaCleanupService.retryDelay(2));
+        assertEquals(Duration.ofMinutes(4), MediaCleanupService.retryDelay(3));
+        assertEquals(Duration.ofMinutes(256), MediaCleanupService.retryDelay(9));
+        assertEquals(Duration.ofHours(6), MediaCleanupService.retryDelay(10));
+        assertEquals(Duration.ofHours(6), MediaCleanupService.retryDelay(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void replacingQueuesOnlyTheFilesTheNewImageDoesNotReuse() {
+        StoredImage previous = new StoredImage("https://media.test/a.png", "https://media.test/b.png", "https://media.test/c.png");
+        StoredImage replacement = new StoredImage("https://media.test/a.png", "https://media.test/x.png", "https://media.test/c.png");
+
+        service.replaced(previous, replacement);
+
+        ArgumentCaptor<String[]> urls = ArgumentCaptor.forClass(String[].class);
+        Mockito.verify(mediaDeletionRepository).enqueue(urls.capture(), Mockito.eq(600L));
+        assertEquals(List.of("https://media.test/b.png"), List.of(urls.getValue()));
+    }
+
+    @Test
+    void replacingWithTheSameImageQueuesNothing() {
+        StoredImage image = new StoredImage("https://media.test/a.png", "https://media.test/b.png", "https://media.test/c.png");
+
+        service.replaced(image, new StoredImage("https://media.test/a.png", "https://media.test/b.png", "https://media.test/c.png"));
+        service.replaced(null, image);
+
+        Mockito.verifyNoInteractions(mediaDeletionRepository);
+    }
+
+    @Test
+    void reconciliationIsOffUnlessEnabled() throws Exception {
+        MediaStore mediaStore = Mockito.mock(MediaStore.class);
+        new MediaCleanupService(mediaStore, mediaDeletionRepository, Mockito.mock(JdbcTemplate.class),
+                Mockito.mock(PlatformTransactionManager.class), Duration.ofMinutes(10), 50, 5, 8, false).reconcile();
+
+        Mockito.verifyNoInteractions(mediaStore, mediaDeletionRepository);
+    }
+}
@@ -0,0 +1,203 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.Account;
+import com.benedict.duomonggo.model.CourseDraft;
+import com.benedict.duomonggo.model.CourseType;
+import com.benedict.duomonggo.model.Difficulty;
+import com.benedict.duomonggo.model.MediaDeletion;
+import com.benedict.duomonggo.model.QuestionType;
+import com.benedict.duomonggo.model.Role;
+import com.benedict.duomonggo.model.StoredImage;
+import com.benedict.duomonggo.repository.AccountRepository;
+import com.benedict.duomonggo.repository.MediaDeletionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class MediaDeletionQueueTest {
+    private static final int THREADS = 16;
+    private static final int BATCH_SIZE = 5;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS + 2);
+        registry.add("duomonggo.media.store", () -> "local");
+        registry.add("duomonggo.media.local.directory", Files.createTempDirectory("media-deletion-test")::toString);
+        registry.add("duomonggo.media.local.base-url", () -> "http://media.test");
+        // No grace period, and the scheduled worker stays out of the way after its first run
+        registry.add("duomonggo.media.cleanup.grace-period", () -> "0s");
+        registry.add("duomonggo.media.cleanup.interval-ms", () -> "3600000");
+        registry.add("duomonggo.media.cleanup.batch-size", () -> BATCH_SIZE);
+        registry.add("duomonggo.media.cleanup.deletes-per-second", () -> 1000);
+    }
+
+    @Autowired
+    private MediaCleanupService mediaCleanupService;
+
+    @Autowired
+    private LocalMediaStore localMediaStore;
+
+    @Autowired
+    private MediaDeletionRepository mediaDeletionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private CourseAuthoringService courseAuthoringService;
+
+    @BeforeEach
+    void emptyQueue() {
+        mediaDeletionRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void orphanedFileIsDeletedWithItsEntry() throws IOException {
+        String url = storeFile("orphaned");
+        mediaCleanupService.orphaned(new StoredImage(url, null, null));
+
+        mediaCleanupService.deleteOrphans();
+
+        assertFalse(isStored(url));
+        assertEquals(0, mediaDeletionRepository.count());
+    }
+
+    @Test
+    void fileUsedAgainBeforeItsTurnIsKept() throws IOException {
+        String url = storeFile("used again");
+        mediaCleanupService.orphaned(new StoredImage(url, null, null));
+        String name = UUID.randomUUID().toString();
+        accountRepository.save(new Account(name, "secret", name + "@example.com", Role.USER, 0, url));
+
+        mediaCleanupService.deleteOrphans();
+
+        assertTrue(isStored(url));
+        assertEquals(0, mediaDeletionRepository.count());
+    }
+
+    @Test
+    void uploadOfTheSameContentCancelsTheDeletion() throws IOException {
+        Path file = Files.writeString(Files.createTempFile("upload", ".png"), "uploaded again");
+        String url = localMediaStore.store(file, "questions");
+        mediaCleanupService.orphaned(new StoredImage(url, null, null));
+
+        mediaCleanupService.storing(ContentHash.of(file));
+        mediaCleanupService.deleteOrphans();
+
+        assertTrue(isStored(url));
+        assertEquals(0, mediaDeletionRepository.count());
+    }
+
+    @Test
+    void importedQuestionUsingTheFileCancelsTheDeletion() throws IOException {
+        String url = storeFile("imported");
+        mediaCleanupService.orphaned(new StoredImage(url, null, null));
+
+        courseAuthoringService.publish(new CourseDraft("Imported", "", Difficulty.EASY, CourseType.SINGLEPLAYER,
+                null, 10, List.of(new CourseDraft.QuestionDraft("Pictured?", QuestionType.SHORT_ANSWER, null, url,
+                        null, null, List.of(new CourseDraft.AnswerDraft("Yes", true))))));
+
+        // Cancelled by the import itself, not only skipped by the worker's check
+        assertEquals(0, mediaDeletionRepository.count());
+        mediaCleanupService.deleteOrphans();
+        assertTrue(isStored(url));
+    }
+
+    @Test
+    void failedDeletionIsRetriedAfterABackoff() {
+        // Not a valid URL, so the store refuses it
+        mediaCleanupService.orphaned(new StoredImage("http://bad host/broken.png", null, null));
+
+        mediaCleanupService.deleteOrphans();
+        mediaCleanupService.deleteOrphans();
+
+        MediaDeletion entry = mediaDeletionRepository.findAll().get(0);
+        assertEquals(1, entry.getAttempts());
+        assertNotNull(entry.getLastError());
+        assertTrue(Duration.between(entry.getCreatedAt(), entry.getNotBefore()).compareTo(Duration.ofSeconds(55)) > 0);
+    }
+
+    @Test
+    void racingWorkersClaimEveryEntryOnce() throws Exception {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < THREADS * BATCH_SIZE / 2; i++) {
+            urls.add("http://bad host/" + i + ".png");
+        }
+        mediaCleanupService.orphaned(urls.stream().map(url -> new StoredImage(url, null, null)).toList());
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> {
+                mediaCleanupService.deleteOrphans();
+                return null;
+            });
+        }
+        runConcurrently(tasks);
+
+        List<MediaDeletion> entries = mediaDeletionRepository.findAll();
+        assertEquals(urls.size(), entries.size());
+        for (MediaDeletion entry : entries) {
+            assertEquals(1, entry.getAttempts(), entry.getUrl());
+        }
+    }
+
+    private String storeFile(String content) throws IOException {
+        Path file = Files.writeString(Files.createTempFile("media", ".png"), content + " " + UUID.randomUUID());
+        return localMediaStore.store(file, "questions");
+    }
+
+    private boolean isStored(String url) {
+        return localMediaStore.find(url.substring(url.indexOf(LocalMediaStore.URL_PATH) + LocalMediaStore.URL_PATH.length()))
+                .isPresent();
+    }
+
+    private void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
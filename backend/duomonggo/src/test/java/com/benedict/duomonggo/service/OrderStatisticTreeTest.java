@@ -0,0 +1,53 @@
+package com.benedict.duomonggo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatisticTreeTest {
+
+    @Test
+    void matchesTreeSetUnderRandomInsertsAndRemovals() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(1000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), tree.add(value));
+            } else {
+                assertEquals(expected.remove(value), tree.remove(value));
+            }
+        }
+
+        List<Integer> sorted = new ArrayList<>(expected);
+        assertEquals(sorted.size(), tree.size());
+        assertEquals(sorted, tree.range(0, Integer.MAX_VALUE));
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.get(i), tree.get(i));
+            assertEquals(i, tree.rank(sorted.get(i)));
+        }
+        assertEquals(sorted.subList(10, 35), tree.range(10, 25));
+        assertTrue(tree.range(sorted.size(), 10).isEmpty());
+    }
+
+    @Test
+    void rankOfMissingElementCountsSmallerElements() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        tree.add(10);
+        tree.add(20);
+        tree.add(30);
+
+        assertEquals(0, tree.rank(5));
+        assertEquals(2, tree.rank(25));
+        assertEquals(3, tree.rank(40));
+        assertFalse(tree.contains(25));
+    }
+}
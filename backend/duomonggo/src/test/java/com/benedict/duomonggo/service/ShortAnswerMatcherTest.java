@@ -0,0 +1,79 @@
+package com.benedict.duomonggo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortAnswerMatcherTest {
+
+    @Test
+    void normalizesCaseAccentsPunctuationAndWhitespace() {
+        assertEquals("sugeng enjing", ShortAnswerMatcher.normalize("  Sugeng   ENJING! "));
+        assertEquals("sugeng enjing", ShortAnswerMatcher.normalize("sugeng-enjing"));
+        assertEquals("cafe", ShortAnswerMatcher.normalize("Café"));
+        assertEquals("dont", ShortAnswerMatcher.normalize("don't"));
+        assertEquals("", ShortAnswerMatcher.normalize(" ?! "));
+    }
+
+    @Test
+    void acceptsResponsesWithinTolerance() {
+        ShortAnswerMatcher matcher = new ShortAnswerMatcher(
+                List.of(ShortAnswerMatcher.normalize("Matur nuwun"), ShortAnswerMatcher.normalize("Maturnuwun")), 1);
+
+        assertTrue(matcher.matches("matur nuwun"));
+        assertTrue(matcher.matches("MATUR NUWUN."));
+        assertTrue(matcher.matches("matur nuwn"));
+        assertTrue(matcher.matches("maturnuwun"));
+        assertFalse(matcher.matches("matir nuwn"));
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches(null));
+        assertFalse(matcher.matches("matur nuwun sanget sanget sanget"));
+    }
+
+    @Test
+    void exactMatchWhenToleranceIsZero() {
+        ShortAnswerMatcher matcher = new ShortAnswerMatcher(List.of(ShortAnswerMatcher.normalize("Sugeng")), 0);
+
+        assertTrue(matcher.matches(" sugeng "));
+        assertFalse(matcher.matches("sugen"));
+    }
+
+    @Test
+    void bandedDistanceAgreesWithFullDistance() {
+        Random random = new Random(42);
+        ShortAnswerMatcher.Workspace workspace = new ShortAnswerMatcher.Workspace();
+        for (int i = 0; i < 20000; i++) {
+            char[] a = randomWord(random);
+            char[] b = randomWord(random);
+            int k = random.nextInt(4);
+            assertEquals(distance(a, b) <= k, ShortAnswerMatcher.withinDistance(a, a.length, b, k, workspace),
+                    new String(a) + " / " + new String(b) + " k=" + k);
+        }
+    }
+
+    private static char[] randomWord(Random random) {
+        char[] word = new char[random.nextInt(8)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(3));
+        }
+        return word;
+    }
+
+    private static int distance(char[] a, char[] b) {
+        int[][] d = new int[a.length + 1][b.length + 1];
+        for (int i = 0; i <= a.length; i++) {
+            for (int j = 0; j <= b.length; j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                } else {
+                    d[i][j] = Math.min(d[i - 1][j - 1] + (a[i - 1] == b[j - 1] ? 0 : 1),
+                            Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                }
+            }
+        }
+        return d[a.length][b.length];
+    }
+}
@@ -0,0 +1,106 @@
+package com.benedict.duomonggo.service;
+
+import com.benedict.duomonggo.model.Account;
+import com.benedict.duomonggo.model.Role;
+import com.benedict.duomonggo.model.TokenClaims;
+import com.benedict.duomonggo.model.TokenPair;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceTest {
+    private static final String SECRET = "a-secret-that-is-at-least-32-bytes-long";
+
+    private final TokenService tokenService = newService(SECRET, Duration.ofMinutes(15), Duration.ofDays(7));
+
+    @Test
+    void issuedAccessTokenCarriesTheAccount() {
+        TokenPair tokens = tokenService.issue(account(7L, Role.ADMIN));
+
+        TokenClaims claims = tokenService.verifyAccessToken(tokens.getAccessToken()).orElseThrow();
+        assertEquals(7L, claims.getAccountId());
+        assertEquals(Role.ADMIN, claims.getRole());
+        assertEquals(TokenClaims.Type.ACCESS, claims.getType());
+        assertEquals(claims.getExpiresAt(), tokens.getAccessTokenExpiresAt());
+        // Each token only works for its own purpose
+        assertTrue(tokenService.verifyAccessToken(tokens.getRefreshToken()).isEmpty());
+        assertTrue(tokenService.refresh(tokens.getAccessToken()).isEmpty());
+    }
+
+    @Test
+    void tokensSignedWithAnotherSecretOrTamperedWithAreRefused() {
+        String token = tokenService.issue(account(7L, Role.USER)).getAccessToken();
+        String payload = token.substring(0, token.indexOf('.'));
+        String signature = token.substring(token.indexOf('.') + 1);
+        String otherPayload = tokenService.issue(account(8L, Role.ADMIN)).getAccessToken().split("\\.")[0];
+
+        assertTrue(tokenService.verifyAccessToken(otherPayload + "." + signature).isEmpty());
+        assertTrue(tokenService.verifyAccessToken(payload + "." + flipFirstCharacter(signature)).isEmpty());
+        assertTrue(tokenService.verifyAccessToken(payload).isEmpty());
+        assertTrue(tokenService.verifyAccessToken("").isEmpty());
+        assertTrue(tokenService.verifyAccessToken(null).isEmpty());
+
+        TokenService otherSecret = newService(SECRET + "-rotated", Duration.ofMinutes(15), Duration.ofDays(7));
+        assertTrue(otherSecret.verifyAccessToken(token).isEmpty());
+    }
+
+    @Test
+    void expiredTokensAreRefused() throws InterruptedException {
+        TokenService shortLived = newService(SECRET, Duration.ofMillis(1), Duration.ofMillis(1));
+        TokenPair tokens = shortLived.issue(account(7L, Role.USER));
+        Thread.sleep(5);
+
+        assertTrue(shortLived.verifyAccessToken(tokens.getAccessToken()).isEmpty());
+        assertTrue(shortLived.refresh(tokens.getRefreshToken()).isEmpty());
+    }
+
+    @Test
+    void refreshIssuesANewAccessTokenUntilRevoked() throws InterruptedException {
+        TokenPair tokens = tokenService.issue(account(7L, Role.USER));
+        Thread.sleep(2);
+
+        TokenPair refreshed = tokenService.refresh(tokens.getRefreshToken()).orElseThrow();
+        assertNotEquals(tokens.getAccessToken(), refreshed.getAccessToken());
+        assertEquals(tokens.getRefreshToken(), refreshed.getRefreshToken());
+        assertEquals(7L, tokenService.verifyAccessToken(refreshed.getAccessToken()).orElseThrow().getAccountId());
+
+        Thread.sleep(2);
+        tokenService.revoke(7L);
+
+        assertTrue(tokenService.verifyAccessToken(tokens.getAccessToken()).isEmpty());
+        assertTrue(tokenService.verifyAccessToken(refreshed.getAccessToken()).isEmpty());
+        assertTrue(tokenService.refresh(tokens.getRefreshToken()).isEmpty());
+
+        // Other accounts and later logins are unaffected
+        Thread.sleep(2);
+        Optional<TokenClaims> later = tokenService.verifyAccessToken(tokenService.issue(account(7L, Role.USER)).getAccessToken());
+        assertTrue(later.isPresent());
+        assertTrue(tokenService.verifyAccessToken(tokenService.issue(account(8L, Role.USER)).getAccessToken()).isPresent());
+    }
+
+    @Test
+    void shortOrMissingSecretsAreRejected() {
+        assertThrows(IllegalStateException.class, () -> newService("", Duration.ofMinutes(15), Duration.ofDays(7)));
+        assertThrows(IllegalStateException.class,
+                () -> newService("too-short-for-hmac", Duration.ofMinutes(15), Duration.ofDays(7)));
+    }
+
+    private static TokenService newService(String secret, Duration accessTtl, Duration refreshTtl) {
+        return new TokenService(secret, accessTtl, refreshTtl, 100);
+    }
+
+    private static Account account(Long id, Role role) {
+        Account account = new Account("player" + id, "secret", "player" + id + "@example.com", role, 0, null);
+        ReflectionTestUtils.setField(account, "id", id);
+        return account;
+    }
+
+    // The first character holds six bits of the signature; the last one partly holds padding
+    private static String flipFirstCharacter(String text) {
+        return (text.charAt(0) == 'A' ? 'B' : 'A') + text.substring(1);
+    }
+}
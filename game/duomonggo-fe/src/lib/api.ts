@@ -0,0 +1,48 @@
+const API_BASE = "http://localhost:8091";
+
+let refreshing: Promise<boolean> | null = null;
+
+// Sends the stored access token with every request. Expired access tokens
+// are refused by the backend, so a refused request refreshes the token pair
+// once with the refresh token and is sent again.
+export async function apiFetch(
+  input: string,
+  init: RequestInit = {}
+): Promise<Response> {
+  const response = await fetch(input, withToken(init));
+  if (response.status !== 401 && response.status !== 403) return response;
+  if (!localStorage.getItem("refresh_token")) return response;
+
+  // Requests that fail together share one refresh
+  if (!refreshing) {
+    refreshing = refreshTokens().finally(() => {
+      refreshing = null;
+    });
+  }
+  if (!(await refreshing)) return response;
+  return fetch(input, withToken(init));
+}
+
+function withToken(init: RequestInit): RequestInit {
+  const headers = new Headers(init.headers);
+  const token = localStorage.getItem("access_token");
+  if (token) headers.set("x-auth-token", token);
+  return { ...init, headers };
+}
+
+async function refreshTokens(): Promise<boolean> {
+  const response = await fetch(`${API_BASE}/accounts/refresh`, {
+    method: "POST",
+    headers: { "x-refresh-token": localStorage.getItem("refresh_token") ?? "" },
+  });
+  if (!response.ok) {
+    // The session is over; the next login stores a new pair
+    localStorage.removeItem("access_token");
+    localStorage.removeItem("refresh_token");
+    return false;
+  }
+
+  localStorage.setItem("access_token", response.headers.get("x-auth-token") ?? "");
+  localStorage.setItem("refresh_token", response.headers.get("x-refresh-token") ?? "");
+  return true;
+}
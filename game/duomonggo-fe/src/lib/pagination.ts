@@ -0,0 +1,25 @@
+import { apiFetch } from "./api";
+
+// List endpoints return one page at a time. When a page is full, the id to
+// continue from comes back in the x-next-after header and is passed as
+// `after` for the next page; this follows it until the last page.
+export async function fetchAllPages<T>(url: string, limit = 200): Promise<T[]> {
+  const items: T[] = [];
+  let after = "0";
+  for (;;) {
+    const separator = url.includes("?") ? "&" : "?";
+    const response = await apiFetch(
+      `${url}${separator}after=${after}&limit=${limit}`
+    );
+    if (!response.ok) {
+      throw new Error(`HTTP error! Status: ${response.status}`);
+    }
+
+    const data = await response.json();
+    items.push(...(data.payload || []));
+
+    const next = response.headers.get("x-next-after");
+    if (!next) return items;
+    after = next;
+  }
+}
@@ -0,0 +1,28 @@
+import { apiFetch } from "./api";
+
+// Images are stored after the request that sent them returns. Endpoints that
+// accept an image send its upload id in the x-upload-id header; this polls
+// the upload until it has been stored or has failed.
+export async function waitForUpload(
+  response: Response,
+  intervalMs = 500,
+  timeoutMs = 60000
+): Promise<boolean> {
+  const uploadId = response.headers.get("x-upload-id");
+  if (!uploadId) return true;
+
+  const deadline = Date.now() + timeoutMs;
+  while (Date.now() < deadline) {
+    const statusResponse = await apiFetch(
+      `http://localhost:8091/uploads/${uploadId}`
+    );
+    if (!statusResponse.ok) return false;
+
+    const data = await statusResponse.json();
+    if (data.payload.status === "STORED") return true;
+    if (data.payload.status === "FAILED") return false;
+
+    await new Promise((resolve) => setTimeout(resolve, intervalMs));
+  }
+  return false;
+}
@@ -3,7 +3,7 @@ import { useNavigate } from "react-router-dom";
 import { Sheet, SheetContent, SheetTrigger } from "@/components/ui/sheet";
 import { Button } from "@/components/ui/button";
 import { Badge } from "@/components/ui/badge";
-import { Menu, Plus, Trash, Edit, X } from "lucide-react";
+import { Menu, Plus, Trash, Edit, X, ArrowUp, ArrowDown } from "lucide-react";
 import Logo from "../assets/Logo.svg";
 import SidebarAdmin from "../components/sidebar-admin";
 import {
@@ -14,6 +14,9 @@ import {
   DialogTrigger,
 } from "@/components/ui/dialog";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
+import { fetchAllPages } from "@/lib/pagination";
+import { waitForUpload } from "@/lib/uploads";
+import { apiFetch } from "@/lib/api";
 
 interface Answer {
   id?: string;
@@ -26,9 +29,11 @@ interface Question {
   id?: string;
   content: string;
   imageUrl?: string;
+  imageThumbnailUrl?: string;
   questionType: "MULTIPLE_CHOICE" | "SHORT_ANSWER";
   explanation: string;
   orderNumber: number;
+  typoTolerance?: number;
   courseId?: string;
   answers: Answer[];
   imageFile?: File;
@@ -380,6 +385,27 @@ const QuestionForm = ({
           required
         />
       </div>
+      {question.questionType === "SHORT_ANSWER" && (
+        <div>
+          <label
+            htmlFor="typoTolerance"
+            className="block text-sm font-medium text-gray-700"
+          >
+            Typos Allowed
+          </label>
+          <input
+            type="number"
+            id="typoTolerance"
+            value={question.typoTolerance ?? 0}
+            onChange={(e) =>
+              handleChange({ typoTolerance: parseInt(e.target.value) || 0 })
+            }
+            className="w-full p-2 mt-1 border rounded-md focus:ring-purple-500 focus:border-purple-500"
+            min="0"
+            max="3"
+          />
+        </div>
+      )}
 
       <div className="mt-4">
         <label className="block text-sm font-medium text-gray-700 mb-2">
@@ -560,12 +586,7 @@ export default function AddCoursePage() {
     setIsLoading(true);
     setError(null);
     try {
-      const response = await fetch("http://localhost:8091/courses");
-      if (!response.ok) {
-        throw new Error(`HTTP error! Status: ${response.status}`);
-      }
-      const data = await response.json();
-      setCourses(data.payload || []);
+      setCourses(await fetchAllPages<Course>("http://localhost:8091/courses"));
     } catch (err) {
       const error = err as Error;
       setError("Failed to fetch courses: " + error.message);
@@ -579,7 +600,7 @@ export default function AddCoursePage() {
     setIsLoading(true);
     setError(null);
     try {
-      const response = await fetch(
+      const response = await apiFetch(
         `http://localhost:8091/questions/course/${courseId}`
       );
       if (!response.ok) {
@@ -597,7 +618,7 @@ export default function AddCoursePage() {
 
   const fetchQuestionAnswers = async (questionId: string) => {
     try {
-      const response = await fetch(
+      const response = await apiFetch(
         `http://localhost:8091/answers/question/${questionId}`
       );
       if (!response.ok) {
@@ -619,18 +640,13 @@ export default function AddCoursePage() {
     setError(null);
 
     try {
-      let endpoint = "http://localhost:8091/courses";
-
-      if (newCourse.courseType === "MULTIPLAYER") {
-        endpoint = "http://localhost:8091/courses/multiplayer";
-      }
-
-      const response = await fetch(endpoint, {
+      // Published in one request; questions are added to the course afterwards
+      const response = await apiFetch("http://localhost:8091/courses/bulk", {
         method: "POST",
         headers: {
           "Content-Type": "application/json",
         },
-        body: JSON.stringify(newCourse),
+        body: JSON.stringify({ ...newCourse, questions: [] }),
       });
 
       if (!response.ok) {
@@ -668,7 +684,7 @@ export default function AddCoursePage() {
         endpoint = `http://localhost:8091/courses/multiplayer/${selectedCourse.id}`;
       }
 
-      const response = await fetch(endpoint, {
+      const response = await apiFetch(endpoint, {
         method: "PUT",
         headers: {
           "Content-Type": "application/json",
@@ -703,7 +719,7 @@ export default function AddCoursePage() {
     setIsLoading(true);
     setError(null);
     try {
-      const response = await fetch(
+      const response = await apiFetch(
         `http://localhost:8091/courses/${courseId}`,
         {
           method: "DELETE",
@@ -752,42 +768,60 @@ export default function AddCoursePage() {
     setError(null);
 
     try {
-      const formData = new FormData();
-      formData.append("content", newQuestion.content);
-      formData.append("questionType", newQuestion.questionType);
-      formData.append("explanation", newQuestion.explanation);
-      formData.append("courseId", selectedCourse.id);
-      formData.append("orderNumber", String(newQuestion.orderNumber));
-
-      if (newQuestion.imageFile) {
-        formData.append("image", newQuestion.imageFile);
-      }
-
-      const response = await fetch("http://localhost:8091/questions", {
-        method: "POST",
-        body: formData,
-      });
-
-      if (!response.ok) {
-        throw new Error(`HTTP error! Status: ${response.status}`);
-      }
-
-      const questionData = await response.json();
-      const questionId = questionData.payload.id;
-
-      // Create answers for the question
-      for (const answer of newQuestion.answers) {
-        await fetch("http://localhost:8091/answers", {
+      // The question and its answers are written in one request
+      const response = await apiFetch(
+        `http://localhost:8091/courses/${selectedCourse.id}/questions`,
+        {
           method: "POST",
           headers: {
             "Content-Type": "application/json",
           },
           body: JSON.stringify({
-            content: answer.content,
-            isCorrect: answer.isCorrect,
-            questionId: questionId,
+            questions: [
+              {
+                content: newQuestion.content,
+                questionType: newQuestion.questionType,
+                explanation: newQuestion.explanation,
+                orderNumber: newQuestion.orderNumber,
+                typoTolerance: newQuestion.typoTolerance ?? 0,
+                answers: newQuestion.answers.map((answer) => ({
+                  content: answer.content,
+                  isCorrect: answer.isCorrect,
+                })),
+              },
+            ],
           }),
-        });
+        }
+      );
+
+      if (!response.ok) {
+        throw new Error(`HTTP error! Status: ${response.status}`);
+      }
+
+      // Images still go up as multipart, attached to the saved question
+      if (newQuestion.imageFile) {
+        const questionData = await response.json();
+        const questionId = questionData.payload[0];
+
+        const formData = new FormData();
+        formData.append("content", newQuestion.content);
+        formData.append("questionType", newQuestion.questionType);
+        formData.append("explanation", newQuestion.explanation);
+        formData.append("orderNumber", String(newQuestion.orderNumber));
+        formData.append("typoTolerance", String(newQuestion.typoTolerance ?? 0));
+        formData.append("image", newQuestion.imageFile);
+
+        const imageResponse = await apiFetch(
+          `http://localhost:8091/questions/${questionId}`,
+          {
+            method: "PUT",
+            body: formData,
+          }
+        );
+
+        if (!imageResponse.ok || !(await waitForUpload(imageResponse))) {
+          setError("Question saved, but its image could not be uploaded");
+        }
       }
 
       await fetchQuestions(selectedCourse.id);
@@ -825,12 +859,13 @@ export default function AddCoursePage() {
       formData.append("explanation", selectedQuestion.explanation);
       formData.append("courseId", selectedQuestion.courseId || "");
       formData.append("orderNumber", String(selectedQuestion.orderNumber));
+      formData.append("typoTolerance", String(selectedQuestion.typoTolerance ?? 0));
 
       if (selectedQuestion.imageFile) {
         formData.append("image", selectedQuestion.imageFile);
       }
 
-      const response = await fetch(
+      const response = await apiFetch(
         `http://localhost:8091/questions/${selectedQuestion.id}`,
         {
           method: "PUT",
@@ -842,35 +877,30 @@ export default function AddCoursePage() {
         throw new Error(`HTTP error! Status: ${response.status}`);
       }
 
-      // Update answers for the question
-      for (const answer of selectedQuestion.answers) {
-        if (answer.id) {
-          // Update existing answer
-          await fetch(`http://localhost:8091/answers/${answer.id}`, {
-            method: "PUT",
-            headers: {
-              "Content-Type": "application/json",
-            },
-            body: JSON.stringify({
-              content: answer.content,
-              isCorrect: answer.isCorrect,
-              questionId: selectedQuestion.id,
-            }),
-          });
-        } else {
-          // Create new answer
-          await fetch("http://localhost:8091/answers", {
-            method: "POST",
-            headers: {
-              "Content-Type": "application/json",
-            },
-            body: JSON.stringify({
+      // Send the full answer list; the server only writes what changed
+      const answersResponse = await apiFetch(
+        `http://localhost:8091/answers/question/${selectedQuestion.id}`,
+        {
+          method: "PUT",
+          headers: {
+            "Content-Type": "application/json",
+          },
+          body: JSON.stringify({
+            answers: selectedQuestion.answers.map((answer) => ({
+              id: answer.id,
               content: answer.content,
               isCorrect: answer.isCorrect,
-              questionId: selectedQuestion.id,
-            }),
-          });
+            })),
+          }),
         }
+      );
+
+      if (!answersResponse.ok) {
+        throw new Error(`HTTP error! Status: ${answersResponse.status}`);
+      }
+
+      if (!(await waitForUpload(response))) {
+        setError("Question saved, but its image could not be uploaded");
       }
 
       if (selectedCourse && selectedCourse.id) {
@@ -898,7 +928,7 @@ export default function AddCoursePage() {
     setError(null);
 
     try {
-      const response = await fetch(
+      const response = await apiFetch(
         `http://localhost:8091/questions/${questionId}`,
         {
           method: "DELETE",
@@ -923,6 +953,43 @@ export default function AddCoursePage() {
     }
   };
 
+  const handleMoveQuestion = async (questionId: string, offset: number) => {
+    if (!selectedCourse || !selectedCourse.id) return;
+
+    const ordered = [...questions].sort((a, b) => a.orderNumber - b.orderNumber);
+    const from = ordered.findIndex((q) => q.id === questionId);
+    const to = from + offset;
+    if (from < 0 || to < 0 || to >= ordered.length) return;
+
+    const [moved] = ordered.splice(from, 1);
+    ordered.splice(to, 0, moved);
+
+    setIsLoading(true);
+    setError(null);
+
+    try {
+      const response = await apiFetch(
+        `http://localhost:8091/questions/course/${selectedCourse.id}/order`,
+        {
+          method: "PUT",
+          headers: { "Content-Type": "application/json" },
+          body: JSON.stringify({ questionIds: ordered.map((q) => q.id) }),
+        }
+      );
+
+      if (!response.ok) {
+        throw new Error(`HTTP error! Status: ${response.status}`);
+      }
+
+      await fetchQuestions(selectedCourse.id);
+    } catch (err) {
+      setError("Failed to reorder questions");
+      console.error("Error reordering questions:", err);
+    } finally {
+      setIsLoading(false);
+    }
+  };
+
   const handleAnswerDelete = async (answerId: string) => {
     if (!window.confirm("Are you sure you want to delete this answer?")) {
       return;
@@ -932,7 +999,7 @@ export default function AddCoursePage() {
     setError(null);
 
     try {
-      const response = await fetch(
+      const response = await apiFetch(
         `http://localhost:8091/answers/${answerId}`,
         {
           method: "DELETE",
@@ -1364,6 +1431,30 @@ export default function AddCoursePage() {
                                         </Badge>
                                       </div>
                                       <div className="flex gap-1">
+                                        <Button
+                                          variant="ghost"
+                                          size="icon"
+                                          className="h-8 w-8 text-gray-500 hover:text-gray-700"
+                                          onClick={(e) => {
+                                            e.stopPropagation();
+                                            question.id &&
+                                              handleMoveQuestion(question.id, -1);
+                                          }}
+                                        >
+                                          <ArrowUp className="h-4 w-4" />
+                                        </Button>
+                                        <Button
+                                          variant="ghost"
+                                          size="icon"
+                                          className="h-8 w-8 text-gray-500 hover:text-gray-700"
+                                          onClick={(e) => {
+                                            e.stopPropagation();
+                                            question.id &&
+                                              handleMoveQuestion(question.id, 1);
+                                          }}
+                                        >
+                                          <ArrowDown className="h-4 w-4" />
+                                        </Button>
                                         <Button
                                           variant="ghost"
                                           size="icon"
@@ -1395,7 +1486,10 @@ export default function AddCoursePage() {
                                     </div>
                                     {question.imageUrl && (
                                       <img
-                                        src={question.imageUrl}
+                                        src={
+                                          question.imageThumbnailUrl ??
+                                          question.imageUrl
+                                        }
                                         alt="Question"
                                         className="mt-2 h-24 object-contain"
                                       />
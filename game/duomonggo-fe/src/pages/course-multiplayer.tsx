@@ -16,18 +16,26 @@ import { Menu } from "lucide-react";
 import SidebarUser from "../components/sidebar-user";
 import SidebarAdmin from "../components/sidebar-admin";
 import Logo from "../assets/Logo.svg";
+import { apiFetch } from "@/lib/api";
 
 interface Answer {
   id: string;
   content: string;
-  isCorrect: boolean;
   question_id: string;
 }
 
+interface GradeResult {
+  questionId: string;
+  correct: boolean;
+  correctAnswerIds: string[];
+  correctAnswer: string | null;
+}
+
 interface Question {
   id: string;
   content: string;
   imageUrl?: string;
+  imageMediumUrl?: string;
   questionType: "MULTIPLE_CHOICE" | "SHORT_ANSWER";
   explanation: string;
   answers: Answer[];
@@ -55,6 +63,7 @@ export default function CoursePage() {
   const [shortAnswerText, setShortAnswerText] = useState("");
   const [showFeedback, setShowFeedback] = useState(false);
   const [isCorrect, setIsCorrect] = useState(false);
+  const [correctAnswerIds, setCorrectAnswerIds] = useState<string[]>([]);
   const [completed, setCompleted] = useState(false);
   const [score, setScore] = useState(0);
   const [isMobileMenuOpen, setIsMobileMenuOpen] = useState(false);
@@ -84,7 +93,7 @@ export default function CoursePage() {
         return;
 
       try {
-        const response = await fetch(
+        const response = await apiFetch(
           `http://localhost:8091/multiplayer/start?accountId=${encodeURIComponent(
             accountId
           )}&courseId=${encodeURIComponent(courseId)}`,
@@ -118,7 +127,7 @@ export default function CoursePage() {
       setIsLoading(true);
       setError(null);
       try {
-        const response = await fetch(
+        const response = await apiFetch(
           `http://localhost:8091/courses/${courseId}`
         );
         if (!response.ok) {
@@ -142,7 +151,7 @@ export default function CoursePage() {
       if (!accountId || !courseId || !courseCompleted) return;
 
       try {
-        const response = await fetch(
+        const response = await apiFetch(
           `http://localhost:8091/multiplayer/time/user/${accountId}/course/${courseId}`
         );
 
@@ -172,33 +181,43 @@ export default function CoursePage() {
     setShortAnswerText(e.target.value);
   };
 
-  const handleSubmitAnswer = () => {
+  const handleSubmitAnswer = async () => {
     if (!courseData || !courseData.questions[currentQuestionIndex]) return;
 
     const currentQuestion = courseData.questions[currentQuestionIndex];
-    let correct = false;
 
-    if (currentQuestion.questionType === "MULTIPLE_CHOICE") {
-      const selectedAnswer = currentQuestion.answers.find(
-        (answer) => answer.id === selectedAnswerId
-      );
-      correct = selectedAnswer?.isCorrect || false;
-    } else {
-      const correctAnswer = currentQuestion.answers.find(
-        (answer) => answer.isCorrect
+    try {
+      // Answers are graded on the server; the questions never carry which answer is correct
+      const response = await apiFetch(
+        `http://localhost:8091/questions/${currentQuestion.id}/grade`,
+        {
+          method: "POST",
+          headers: {
+            "Content-Type": "application/json",
+          },
+          body: JSON.stringify(
+            currentQuestion.questionType === "MULTIPLE_CHOICE"
+              ? { answerId: selectedAnswerId }
+              : { response: shortAnswerText }
+          ),
+        }
       );
-      correct = correctAnswer
-        ? shortAnswerText.trim().toLowerCase() ===
-          correctAnswer.content.trim().toLowerCase()
-        : false;
-    }
+      if (!response.ok) {
+        throw new Error(`HTTP error! Status: ${response.status}`);
+      }
+      const data = await response.json();
+      const result: GradeResult = data.payload;
 
-    if (correct) {
-      setScore((prevScore) => prevScore + 1);
-    }
+      if (result.correct) {
+        setScore((prevScore) => prevScore + 1);
+      }
 
-    setIsCorrect(correct);
-    setShowFeedback(true);
+      setIsCorrect(result.correct);
+      setCorrectAnswerIds(result.correctAnswerIds);
+      setShowFeedback(true);
+    } catch (err) {
+      console.error("Error grading answer:", err);
+    }
   };
 
   const handleNextQuestion = () => {
@@ -282,7 +301,7 @@ export default function CoursePage() {
             {question.imageUrl && (
               <div className="mt-4">
                 <img
-                  src={question.imageUrl}
+                  src={question.imageMediumUrl ?? question.imageUrl}
                   alt="Question Image"
                   className="w-1/4 mx-auto"
                 />
@@ -301,23 +320,23 @@ export default function CoursePage() {
                       ? "border-purple-600 bg-purple-50"
                       : "border-gray-200 hover:bg-gray-50"
                   } ${
-                    showFeedback && answer.isCorrect
+                    showFeedback && correctAnswerIds.includes(answer.id)
                       ? "border-green-600 bg-green-50"
                       : showFeedback &&
                         selectedAnswerId === answer.id &&
-                        !answer.isCorrect
+                        !correctAnswerIds.includes(answer.id)
                       ? "border-red-600 bg-red-50"
                       : ""
                   }`}
                 >
                   <div className="flex items-start">
                     <div className="flex-grow">{answer.content}</div>
-                    {showFeedback && answer.isCorrect && (
+                    {showFeedback && correctAnswerIds.includes(answer.id) && (
                       <Check className="w-5 h-5 text-green-600 ml-2 flex-shrink-0" />
                     )}
                     {showFeedback &&
                       selectedAnswerId === answer.id &&
-                      !answer.isCorrect && (
+                      !correctAnswerIds.includes(answer.id) && (
                         <X className="w-5 h-5 text-red-600 ml-2 flex-shrink-0" />
                       )}
                   </div>
@@ -431,7 +450,7 @@ export default function CoursePage() {
           `Marking course ${courseId} as complete for user ${accountId}`
         );
 
-        const response = await fetch(
+        const response = await apiFetch(
           `http://localhost:8091/multiplayer/complete?accountId=${encodeURIComponent(
             accountId
           )}&courseId=${encodeURIComponent(courseId)}`,
@@ -449,7 +468,7 @@ export default function CoursePage() {
 
         setCourseCompleted(true);
 
-        const timeResponse = await fetch(
+        const timeResponse = await apiFetch(
           `http://localhost:8091/multiplayer/time/user/${accountId}/course/${courseId}`
         );
 
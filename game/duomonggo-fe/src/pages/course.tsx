@@ -8,18 +8,26 @@ import { Menu } from "lucide-react";
 import SidebarUser from "../components/sidebar-user";
 import SidebarAdmin from "../components/sidebar-admin";
 import Logo from "../assets/Logo.svg";
+import { apiFetch } from "@/lib/api";
 
 interface Answer {
   id: string;
   content: string;
-  isCorrect: boolean;
   question_id: string;
 }
 
+interface GradeResult {
+  questionId: string;
+  correct: boolean;
+  correctAnswerIds: string[];
+  correctAnswer: string | null;
+}
+
 interface Question {
   id: string;
   content: string;
   imageUrl?: string;
+  imageMediumUrl?: string;
   questionType: "MULTIPLE_CHOICE" | "SHORT_ANSWER";
   explanation: string;
   answers: Answer[];
@@ -32,6 +40,7 @@ interface CourseDetail {
   difficulty: string;
   expReward: number;
   questions: Question[];
+  completed: boolean;
 }
 
 export default function CoursePage() {
@@ -47,11 +56,12 @@ export default function CoursePage() {
   const [shortAnswerText, setShortAnswerText] = useState("");
   const [showFeedback, setShowFeedback] = useState(false);
   const [isCorrect, setIsCorrect] = useState(false);
+  const [correctAnswerIds, setCorrectAnswerIds] = useState<string[]>([]);
+  const [correctAnswer, setCorrectAnswer] = useState<string | null>(null);
   const [completed, setCompleted] = useState(false);
   const [score, setScore] = useState(0);
   const [isMobileMenuOpen, setIsMobileMenuOpen] = useState(false);
   const [courseCompleted, setCourseCompleted] = useState(false);
-  const [enrollmentStarted, setEnrollmentStarted] = useState(false);
   useEffect(() => {
     const storedUsername = localStorage.getItem("username");
     const storedRole = localStorage.getItem("role");
@@ -66,83 +76,24 @@ export default function CoursePage() {
     setAccountId(storedAccountId);
   }, [navigate]);
   useEffect(() => {
-    const checkCourseCompletion = async () => {
+    const fetchPlayBundle = async () => {
       if (!accountId || !courseId) return;
-      
-      try {
-        const response = await fetch(
-          `http://localhost:8091/enrollments/is-completed/user/${accountId}/course/${courseId}`,
-          {
-            headers: {
-              "Content-Type": "application/json",
-              "Accept": "application/json"
-            }
-          }
-        );
-        
-        if (!response.ok) {
-          throw new Error(`HTTP error! Status: ${response.status}`);
-        }
-        
-        const data = await response.json();
-        setCourseCompleted(data.payload);
-      } catch (err) {
-        console.error("Error checking course completion status:", err);
-      }
-    };
-    
-    if (accountId && courseId) {
-      checkCourseCompletion();
-    }
-  }, [accountId, courseId]);
-
-  useEffect(() => {
-    const startCourseEnrollment = async () => {
-      if (!accountId || !courseId || courseCompleted || enrollmentStarted)
-        return;
-
-      try {
-        const response = await fetch("http://localhost:8091/enrollments/start", {
-          method: "POST",
-          headers: {
-            "Content-Type": "application/json",
-          },
-          body: JSON.stringify({
-            accountId,
-            courseId,
-          }),
-        });
-
-        if (!response.ok) {
-          throw new Error(`HTTP error! Status: ${response.status}`);
-        }
-
-        setEnrollmentStarted(true);
-      } catch (err) {
-        console.error("Error starting course enrollment:", err);
-      }
-    };
-
-    if (accountId && courseId) {
-      startCourseEnrollment();
-    }
-  }, [accountId, courseId, courseCompleted, enrollmentStarted]);
-
-  useEffect(() => {
-    const fetchCourseData = async () => {
-      if (!courseId) return;
 
       setIsLoading(true);
       setError(null);
       try {
-        const response = await fetch(
-          `http://localhost:8091/courses/${courseId}`
+        // Loads the questions and registers the enrollment in one request;
+        // the account is the one the access token belongs to
+        const response = await apiFetch(
+          `http://localhost:8091/courses/${courseId}/play`,
+          { method: "POST" }
         );
         if (!response.ok) {
           throw new Error(`HTTP error! Status: ${response.status}`);
         }
         const data = await response.json();
         setCourseData(data.payload);
+        setCourseCompleted(data.payload.completed);
       } catch (err) {
         setError("Failed to fetch course data. Please try again later.");
         console.error("Error fetching course data:", err);
@@ -151,8 +102,8 @@ export default function CoursePage() {
       }
     };
 
-    fetchCourseData();
-  }, [courseId]);
+    fetchPlayBundle();
+  }, [accountId, courseId]);
 
   const handleAnswerSelect = (answerId: string) => {
     setSelectedAnswerId(answerId);
@@ -162,33 +113,44 @@ export default function CoursePage() {
     setShortAnswerText(e.target.value);
   };
 
-  const handleSubmitAnswer = () => {
+  const handleSubmitAnswer = async () => {
     if (!courseData || !courseData.questions[currentQuestionIndex]) return;
 
     const currentQuestion = courseData.questions[currentQuestionIndex];
-    let correct = false;
 
-    if (currentQuestion.questionType === "MULTIPLE_CHOICE") {
-      const selectedAnswer = currentQuestion.answers.find(
-        (answer) => answer.id === selectedAnswerId
-      );
-      correct = selectedAnswer?.isCorrect || false;
-    } else {
-      const correctAnswer = currentQuestion.answers.find(
-        (answer) => answer.isCorrect
+    try {
+      // Answers are graded on the server; the questions never carry which answer is correct
+      const response = await apiFetch(
+        `http://localhost:8091/questions/${currentQuestion.id}/grade`,
+        {
+          method: "POST",
+          headers: {
+            "Content-Type": "application/json",
+          },
+          body: JSON.stringify(
+            currentQuestion.questionType === "MULTIPLE_CHOICE"
+              ? { answerId: selectedAnswerId }
+              : { response: shortAnswerText }
+          ),
+        }
       );
-      correct = correctAnswer
-        ? shortAnswerText.trim().toLowerCase() ===
-          correctAnswer.content.trim().toLowerCase()
-        : false;
-    }
+      if (!response.ok) {
+        throw new Error(`HTTP error! Status: ${response.status}`);
+      }
+      const data = await response.json();
+      const result: GradeResult = data.payload;
 
-    if (correct) {
-      setScore((prevScore) => prevScore + 1);
-    }
+      if (result.correct) {
+        setScore((prevScore) => prevScore + 1);
+      }
 
-    setIsCorrect(correct);
-    setShowFeedback(true);
+      setIsCorrect(result.correct);
+      setCorrectAnswerIds(result.correctAnswerIds);
+      setCorrectAnswer(result.correctAnswer);
+      setShowFeedback(true);
+    } catch (err) {
+      console.error("Error grading answer:", err);
+    }
   };
 
   const handleNextQuestion = () => {
@@ -259,7 +221,7 @@ export default function CoursePage() {
             {question.imageUrl && (
               <div className="mt-4">
                 <img
-                  src={question.imageUrl}
+                  src={question.imageMediumUrl ?? question.imageUrl}
                   alt="Question Image"
                   className="w-1/4 mx-auto"
                 />
@@ -278,23 +240,23 @@ export default function CoursePage() {
                       ? "border-purple-600 bg-purple-50"
                       : "border-gray-200 hover:bg-gray-50"
                   } ${
-                    showFeedback && answer.isCorrect
+                    showFeedback && correctAnswerIds.includes(answer.id)
                       ? "border-green-600 bg-green-50"
                       : showFeedback &&
                         selectedAnswerId === answer.id &&
-                        !answer.isCorrect
+                        !correctAnswerIds.includes(answer.id)
                       ? "border-red-600 bg-red-50"
                       : ""
                   }`}
                 >
                   <div className="flex items-start">
                     <div className="flex-grow">{answer.content}</div>
-                    {showFeedback && answer.isCorrect && (
+                    {showFeedback && correctAnswerIds.includes(answer.id) && (
                       <Check className="w-5 h-5 text-green-600 ml-2 flex-shrink-0" />
                     )}
                     {showFeedback &&
                       selectedAnswerId === answer.id &&
-                      !answer.isCorrect && (
+                      !correctAnswerIds.includes(answer.id) && (
                         <X className="w-5 h-5 text-red-600 ml-2 flex-shrink-0" />
                       )}
                   </div>
@@ -347,13 +309,11 @@ export default function CoursePage() {
                       }`}
                     >
                       {isCorrect ? "Correct!" : "Incorrect"}
-                      {!isCorrect &&
-                        question.answers.find((a) => a.isCorrect) && (
-                          <span className="block mt-1">
-                            Correct answer:{" "}
-                            {question.answers.find((a) => a.isCorrect)?.content}
-                          </span>
-                        )}
+                      {!isCorrect && correctAnswer && (
+                        <span className="block mt-1">
+                          Correct answer: {correctAnswer}
+                        </span>
+                      )}
                     </p>
                   </div>
                 </div>
@@ -408,7 +368,7 @@ export default function CoursePage() {
     if (isSuccessful) {
       try {
         console.log(`Marking course ${courseId} as complete for user ${accountId}`);
-        const response = await fetch("http://localhost:8091/enrollments/complete", {
+        const response = await apiFetch("http://localhost:8091/enrollments/complete", {
           method: "PUT",
           headers: {
             "Content-Type": "application/json",
@@ -16,7 +16,9 @@ import SidebarUser from "../components/sidebar-user";
 import SidebarAdmin from "../components/sidebar-admin";
 import Logo from "../assets/Logo.svg";
 import { toast } from "../components/ui/use-toast";
+import { waitForUpload } from "@/lib/uploads";
 import { Toaster } from "../components/ui/toaster";
+import { apiFetch } from "@/lib/api";
 import "../App.css";
 
 export default function EditProfile() {
@@ -52,7 +54,7 @@ export default function EditProfile() {
 
   const fetchUserData = async (userId: string) => {
     try {
-      const response = await fetch(`http://localhost:8091/accounts/${userId}`);
+      const response = await apiFetch(`http://localhost:8091/accounts/${userId}`);
       if (!response.ok) {
         throw new Error(`HTTP error! Status: ${response.status}`);
       }
@@ -63,7 +65,7 @@ export default function EditProfile() {
         setUsername(data.payload.username);
         setEmail(data.payload.email);
         if (data.payload.imageUrl) {
-          setPreviewImage(data.payload.imageUrl);
+          setPreviewImage(data.payload.imageMediumUrl ?? data.payload.imageUrl);
         }
       } else {
         throw new Error("Failed to fetch user data");
@@ -149,7 +151,7 @@ export default function EditProfile() {
         return;
       }
 
-      const response = await fetch(`http://localhost:8091/accounts/${userId}`, {
+      const response = await apiFetch(`http://localhost:8091/accounts/${userId}`, {
         method: "PUT",
         body: formData,
       });
@@ -165,6 +167,14 @@ export default function EditProfile() {
           localStorage.setItem("username", username);
         }
 
+        if (!(await waitForUpload(response))) {
+          toast({
+            variant: "destructive",
+            title: "Image not saved",
+            description: "Your profile was updated, but the new image could not be uploaded",
+          });
+        }
+
         toast({
           title: "Profile Updated",
           description: "Your profile has been updated successfully",
@@ -3,6 +3,7 @@ import { useEffect, useState } from "react";
 import { Badge } from "@/components/ui/badge";
 import { Button } from "@/components/ui/button";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
+import { Input } from "@/components/ui/input";
 import {
   Dialog,
   DialogContent,
@@ -12,10 +13,11 @@ import {
   DialogTitle,
 } from "@/components/ui/dialog";
 import { Sheet, SheetContent, SheetTrigger } from "@/components/ui/sheet";
-import { LogOut, Star, Award, Menu } from "lucide-react";
+import { LogOut, Star, Award, Menu, Search } from "lucide-react";
 import SidebarUser from "../components/sidebar-user";
 import SidebarAdmin from "../components/sidebar-admin";
 import Logo from "../assets/Logo.svg";
+import { apiFetch } from "@/lib/api";
 
 interface Course {
   id: string;
@@ -37,6 +39,8 @@ export default function LanguageLearningPage() {
   const [isLoading, setIsLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
   const [isCourseCompleted, setIsCourseCompleted] = useState<boolean>(false);
+  const [searchQuery, setSearchQuery] = useState("");
+  const [difficultyFilter, setDifficultyFilter] = useState("");
 
   useEffect(() => {
     const storedUsername = localStorage.getItem("username");
@@ -58,7 +62,18 @@ export default function LanguageLearningPage() {
       setIsLoading(true);
       setError(null);
       try {
-        const response = await fetch("http://localhost:8091/courses/type/SINGLEPLAYER");
+        const isSearching = searchQuery.trim() !== "" || difficultyFilter !== "";
+        const params = new URLSearchParams({
+          q: searchQuery.trim(),
+          courseType: "SINGLEPLAYER",
+        });
+        if (difficultyFilter) {
+          params.set("difficulty", difficultyFilter);
+        }
+        const url = isSearching
+          ? `http://localhost:8091/courses/search?${params}`
+          : "http://localhost:8091/courses/type/SINGLEPLAYER";
+        const response = await apiFetch(url);
         if (!response.ok) {
           throw new Error(`HTTP error! Status: ${response.status}`);
         }
@@ -72,13 +87,15 @@ export default function LanguageLearningPage() {
       }
     };
 
-    fetchCourses();
-  }, []);
+    // Wait for a pause in typing before searching
+    const timeout = setTimeout(fetchCourses, searchQuery ? 200 : 0);
+    return () => clearTimeout(timeout);
+  }, [searchQuery, difficultyFilter]);
   const checkCourseCompletion = async (courseId: string) => {
     if (!accountId) return false;
 
     try {
-      const response = await fetch(
+      const response = await apiFetch(
         `http://localhost:8091/enrollments/is-completed/user/${accountId}/course/${courseId}`,
         {
           headers: {
@@ -116,7 +133,7 @@ export default function LanguageLearningPage() {
     if (!isCourseCompleted) {
       try {
         // Start the enrollment
-        const response = await fetch(
+        const response = await apiFetch(
           "http://localhost:8091/enrollments/start",
           {
             method: "POST",
@@ -217,6 +234,28 @@ export default function LanguageLearningPage() {
               </p>
             </div>
 
+            <div className="flex flex-col sm:flex-row gap-3 mb-6">
+              <div className="relative flex-1">
+                <Search className="absolute left-3 top-1/2 -translate-y-1/2 w-4 h-4 text-gray-400" />
+                <Input
+                  value={searchQuery}
+                  onChange={(e) => setSearchQuery(e.target.value)}
+                  placeholder="Search courses"
+                  className="pl-9"
+                />
+              </div>
+              <select
+                value={difficultyFilter}
+                onChange={(e) => setDifficultyFilter(e.target.value)}
+                className="h-10 rounded-md border border-gray-200 bg-white px-3 text-sm text-gray-700"
+              >
+                <option value="">All difficulties</option>
+                <option value="EASY">Easy</option>
+                <option value="MEDIUM">Medium</option>
+                <option value="HARD">Hard</option>
+              </select>
+            </div>
+
             <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-3 gap-4 sm:gap-6">
               {isLoading ? (
                 <div className="col-span-3 flex justify-center items-center py-12">
@@ -229,7 +268,9 @@ export default function LanguageLearningPage() {
               ) : courses.length === 0 ? (
                 <div className="col-span-3 flex justify-center items-center py-12">
                   <p className="text-gray-500">
-                    No courses available at the moment.
+                    {searchQuery || difficultyFilter
+                      ? "No courses match your search."
+                      : "No courses available at the moment."}
                   </p>
                 </div>
               ) : (
@@ -8,14 +8,15 @@ import { Button } from "@/components/ui/button";
 import SidebarUser from "../components/sidebar-user";
 import SidebarAdmin from "../components/sidebar-admin";
 import Logo from "../assets/Logo.svg";
+import { apiFetch } from "@/lib/api";
 
 interface User {
-  id: number;
+  rank: number;
+  accountId: number;
   username: string;
-  email: string;
   exp: number;
-  role: string;
   imageUrl?: string;
+  imageThumbnailUrl?: string;
 }
 
 const getPodiumIcon = (position: number) => {
@@ -70,22 +71,14 @@ export default function Component() {
     const fetchLeaderboardData = async () => {
       setLoading(true);
       try {
-        const response = await fetch("http://localhost:8091/accounts");
+        const response = await apiFetch("http://localhost:8091/leaderboard?limit=10");
         if (!response.ok) {
           throw new Error(`HTTP error! Status: ${response.status}`);
         }
 
         const data = await response.json();
         if (data.success && data.payload) {
-          const usersOnly = data.payload.filter(
-            (user: User) => user.role === "USER"
-          );
-          const sortedUsers = usersOnly.sort(
-            (a: User, b: User) => b.exp - a.exp
-          );
-
-          const top10Users = sortedUsers.slice(0, 10);
-          setLeaderboardData(top10Users);
+          setLeaderboardData(data.payload);
         } else {
           throw new Error("Failed to fetch leaderboard data");
         }
@@ -258,7 +251,7 @@ export default function Component() {
                         {" "}
                         <Avatar className="h-16 w-16 mx-auto mb-2 ring-4 ring-gray-300">
                           <AvatarImage
-                            src={topThree[1]?.imageUrl}
+                            src={topThree[1]?.imageThumbnailUrl ?? topThree[1]?.imageUrl}
                             alt={topThree[1]?.username}
                             draggable="false"
                           />
@@ -299,7 +292,7 @@ export default function Component() {
                         {" "}
                         <Avatar className="h-20 w-20 mx-auto mb-2 ring-4 ring-yellow-400">
                           <AvatarImage
-                            src={topThree[0]?.imageUrl}
+                            src={topThree[0]?.imageThumbnailUrl ?? topThree[0]?.imageUrl}
                             alt={topThree[0]?.username}
                             draggable="false"
                           />
@@ -340,7 +333,7 @@ export default function Component() {
                         {" "}
                         <Avatar className="h-14 w-14 mx-auto mb-2 ring-4 ring-amber-500">
                           <AvatarImage
-                            src={topThree[2]?.imageUrl}
+                            src={topThree[2]?.imageThumbnailUrl ?? topThree[2]?.imageUrl}
                             alt={topThree[2]?.username}
                             draggable="false"
                           />
@@ -384,7 +377,7 @@ export default function Component() {
                   <div className="divide-y divide-gray-200">
                     {remaining.map((player, index) => (
                       <div
-                        key={player.id}
+                        key={player.accountId}
                         className="flex items-center justify-between p-4 hover:bg-gray-50 transition-colors"
                       >
                         <div className="flex items-center gap-4">
@@ -395,7 +388,7 @@ export default function Component() {
                           </div>{" "}
                           <Avatar className="h-10 w-10">
                             <AvatarImage
-                              src={player.imageUrl}
+                              src={player.imageThumbnailUrl ?? player.imageUrl}
                               alt={player.username}
                               draggable="false"
                             />
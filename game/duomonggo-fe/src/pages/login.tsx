@@ -33,6 +33,8 @@ export default function LoginRegister() {
       localStorage.setItem("username", data.payload.username);
       localStorage.setItem("user_id", data.payload.id);
       localStorage.setItem("role", data.payload.role);
+      localStorage.setItem("access_token", response.headers.get("x-auth-token") ?? "");
+      localStorage.setItem("refresh_token", response.headers.get("x-refresh-token") ?? "");
 
       alert("Login successful!");
       navigate("/courses");
@@ -14,6 +14,7 @@ import { Menu } from "lucide-react";
 import Logo from "../assets/Logo.svg";
 import SidebarUser from "../components/sidebar-user";
 import SidebarAdmin from "../components/sidebar-admin";
+import { apiFetch } from "@/lib/api";
 
 interface Course {
   id: string;
@@ -84,7 +85,7 @@ export default function MultiplayerCoursesPage() {
     setError(null);
 
     try {
-      const response = await fetch(
+      const response = await apiFetch(
         "http://localhost:8091/courses/type/MULTIPLAYER"
       );
 
@@ -105,7 +106,7 @@ export default function MultiplayerCoursesPage() {
   };
   const checkCourseCompletion = async (userId: string, courseId: string) => {
     try {
-      const response = await fetch(
+      const response = await apiFetch(
         `http://localhost:8091/multiplayer/is-completed/user/${userId}/course/${courseId}`
       );
 
@@ -121,7 +122,7 @@ export default function MultiplayerCoursesPage() {
   };
   const fetchCourseCompletionTimes = async (courseId: string) => {
     try {
-      const response = await fetch(
+      const response = await apiFetch(
         `http://localhost:8091/multiplayer/time/user/${accountId}/course/${courseId}`
       );
 
@@ -230,7 +231,7 @@ export default function MultiplayerCoursesPage() {
 
   const fetchAllCompletionTimes = async (courseId: string) => {
     try {
-      const response = await fetch(
+      const response = await apiFetch(
         `http://localhost:8091/multiplayer/time/course/${courseId}`
       );
 